@@ -0,0 +1,139 @@
+package com.yna.ecqmanager;
+
+/**
+ * 컨슈머 그룹의 알림 상태 클래스<br>
+ * status가 바뀔 때(정상 → WARN, WARN → ERR, 비정상 → 정상)만 알림을 보내고, 같은 비정상 status가 계속되면 remindIntervals 간격으로 다시 알린다.<br>
+ * 정상 status는 OK, STALL(또는 null)이다. 마지막 status, 다음 알림 시간, 알림 횟수만 저장하므로 update()는 O(1)이다.
+ */
+public class AlertState {
+
+	/** update() 결과 : 알림 없음 */
+	public static final int NONE = 0;
+
+	/** update() 결과 : 정상에서 비정상이 되었거나 비정상 status가 바뀜 */
+	public static final int ALERT = 1;
+
+	/** update() 결과 : 같은 비정상 status가 remind 간격 이상 계속됨 */
+	public static final int REMIND = 2;
+
+	/** update() 결과 : 비정상에서 정상이 됨 */
+	public static final int RECOVER = 3;
+
+	/** 다시 알리는 간격 (ms). 마지막 간격을 반복한다. 비어있으면 다시 알리지 않는다. */
+	private final long[] remindIntervals;
+
+	/** 마지막 비정상 status. 정상이면 null */
+	private String status;
+
+	/** 비정상 status가 시작된 시간 (epoch ms) */
+	private long since;
+
+	/** 다음 remind 시간 (epoch ms) */
+	private long nextRemindMillis;
+
+	/** 지금까지 다시 알린 횟수 */
+	private int remindCount;
+
+	/**
+	 * AlertState 생성자
+	 * @param remindIntervals 다시 알리는 간격 (ms). 예) {10분, 30분, 60분}이면 10분, 40분, 100분, 160분 ... 뒤에 알린다.
+	 */
+	public AlertState(long[] remindIntervals)
+	{
+		this.remindIntervals = remindIntervals == null ? new long[0] : remindIntervals.clone();
+	}
+
+	/**
+	 * 이번 status로 상태를 바꾸고, 보낼 알림 종류를 리턴하는 메소드
+	 * @param status 컨슈머 status
+	 * @param now 현재 시간 (epoch ms)
+	 * @return NONE, ALERT, REMIND, RECOVER
+	 */
+	public synchronized int update(String status, long now)
+	{
+		return this.evaluate(status, now, true);
+	}
+
+	/**
+	 * 상태를 바꾸지 않고, 이번 status로 보낼 알림 종류를 리턴하는 메소드<br>
+	 * 알림을 보내지 못하면 (전송량 제한 등) 상태를 바꾸지 않아야 다음 확인에서 같은 알림을 다시 보낼 수 있다. 보낸 뒤에 update()를 호출한다.
+	 * @param status 컨슈머 status
+	 * @param now 현재 시간 (epoch ms)
+	 * @return NONE, ALERT, REMIND, RECOVER
+	 */
+	public synchronized int check(String status, long now)
+	{
+		return this.evaluate(status, now, false);
+	}
+
+	/**
+	 * 이번 status로 보낼 알림 종류를 정하는 메소드
+	 * @param status 컨슈머 status
+	 * @param now 현재 시간 (epoch ms)
+	 * @param isCommit 상태를 바꿀지 여부
+	 * @return NONE, ALERT, REMIND, RECOVER
+	 */
+	private int evaluate(String status, long now, boolean isCommit)
+	{
+		if(isNormal(status))
+		{
+			if(this.status == null)
+				return NONE;
+
+			if(isCommit)
+				this.status = null;
+			return RECOVER;
+		}
+
+		if(!status.equals(this.status))
+		{
+			if(isCommit)
+			{
+				if(this.status == null)
+					this.since = now;
+				this.status = status;
+				this.remindCount = 0;
+				this.nextRemindMillis = this.remindIntervals.length == 0 ? Long.MAX_VALUE : now + this.remindIntervals[0];
+			}
+			return ALERT;
+		}
+
+		if(now < this.nextRemindMillis)
+			return NONE;
+
+		if(isCommit)
+		{
+			this.remindCount++;
+			this.nextRemindMillis = now + this.remindIntervals[Math.min(this.remindCount, this.remindIntervals.length - 1)];
+		}
+		return REMIND;
+	}
+
+	/**
+	 * 알림을 보내지 않는 정상 status인지 리턴하는 메소드
+	 * @param status status
+	 * @return OK, STALL, null이면 true
+	 */
+	public static boolean isNormal(String status)
+	{
+		return status == null || "OK".equals(status) || "STALL".equals(status);
+	}
+
+	/**
+	 * 비정상 status가 시작된 시간을 리턴하는 메소드
+	 * @return 시간 (epoch ms). 정상이면 0
+	 */
+	public synchronized long getSince()
+	{
+		return this.status == null ? 0 : this.since;
+	}
+
+	/**
+	 * 지금까지 다시 알린 횟수를 리턴하는 메소드
+	 * @return 횟수
+	 */
+	public synchronized int getRemindCount()
+	{
+		return this.remindCount;
+	}
+}
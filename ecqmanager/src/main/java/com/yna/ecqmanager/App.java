@@ -13,24 +13,43 @@ public class App
     	else if("-h".equals(args[0]))
     	{
     		System.out.println("첫 번째 인수 : 설정 파일의 path\n두 번째 인수 : 컨슈머 이름 (예: ECR, ECR_QA, ECR_DEV) 컨슈머 이름은 설정파일과 동일하게 해야함."
-    				+ "\n2번째 인수까지는 필수. 3번째부터는 관제할 또 다른 컨슈머명");
+    				+ "\n2번째 인수까지는 필수. 3번째부터는 관제할 또 다른 컨슈머명"
+    				+ "\n설정 파일에 burrow.consumer.list 또는 burrow.discovery.enable=true가 있으면 2번째 인수는 생략 가능."
+    				+ "\n설정 파일에 burrow.clusters가 있으면 클러스터마다 컨슈머를 관제함.");
     	}
     	else if(args[0] != null && args[0].length() > 0)
     	{
-    		if(args.length == 1)
+    		String[] arr = Arrays.copyOfRange(args, 1, args.length);
+    		for(int i = 0; i < arr.length; i++)
+    			arr[i] = arr[i].trim().toUpperCase();
+    		
+    		String[] clusters = null;
+    		try
     		{
-    			System.out.println("-h 로 argument를 확인하세요.");
+    			clusters = BurrowCheck.getClusterNames(args[0].trim());
     		}
-    		else
+    		catch(Exception e)
+    		{
+    			e.printStackTrace();
+    			return;
+    		}
+    		
+    		if(clusters.length == 0)
     		{
-    			String[] arr = Arrays.copyOfRange(args, 1, args.length);
-    			for(int i = 0; i < arr.length; i++)
-    				arr[i] = arr[i].trim().toUpperCase();
-
     			BurrowCheck burrowCheck = new BurrowCheck(args[0].trim(), arr);
     			Thread thread = new Thread(burrowCheck);
         		thread.start();
     		}
+    		else
+    		{
+    			// 클러스터마다 BurrowCheck를 따로 실행한다. (커넥션 풀, 주기, 로그는 클러스터별로 분리된다.)
+    			for(String cluster : clusters)
+    			{
+    				BurrowCheck burrowCheck = new BurrowCheck(args[0].trim(), arr, cluster);
+    				Thread thread = new Thread(burrowCheck, "BurrowCheck-" + cluster);
+    				thread.start();
+    			}
+    		}
     	}
     	else
     	{
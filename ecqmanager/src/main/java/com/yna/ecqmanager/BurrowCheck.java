@@ -1,22 +1,38 @@
 package com.yna.ecqmanager;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
+import com.yna.ecqmanager.history.LagHistoryWriter;
+import com.yna.ecqmanager.log.FlushPolicy;
 import com.yna.ecqmanager.log.KLogger;
-import com.yna.ecqmanager.log.LogData;
+import com.yna.ecqmanager.log.LazyLogData;
+import com.yna.ecqmanager.log.MappedLogWriter;
+import com.yna.ecqmanager.log.OverflowPolicy;
 
 public class BurrowCheck implements Runnable{
 	protected final static String PROPERTY_ERR_MSG = "properties파일에 값이 없습니다.";	
@@ -24,26 +40,237 @@ public class BurrowCheck implements Runnable{
 	protected final static String BURROW_PORT_NUM_KEY = "burrow.port.num";
 	protected final static String BURROW_CALL_URL_KEY = "burrow.call.url";
 	protected final static String BURROW_CHECK_TIME_KEY = "burrow.check.time";
+	protected final static String BURROW_CHECK_TIME_MIN_KEY = "burrow.check.time.min";
+	protected final static String BURROW_CHECK_TIME_MAX_KEY = "burrow.check.time.max";
+	protected final static String BURROW_CHECK_RELAX_AFTER_KEY = "burrow.check.relax.after";
+	protected final static String BURROW_CHECK_LAG_GROWTH_KEY = "burrow.check.lag.growth";
+	protected final static String BURROW_POLL_PARALLELISM_KEY = "burrow.poll.parallelism";
+	protected final static String BURROW_POLL_TIMEOUT_KEY = "burrow.poll.timeout";
+	protected final static String BURROW_CONNECT_TIMEOUT_KEY = "burrow.connect.timeout";
+	protected final static String BURROW_POOL_SIZE_KEY = "burrow.pool.size";
+	protected final static String BURROW_PARSE_MODE_KEY = "burrow.parse.mode";
+	protected final static String BURROW_CONSUMER_LIST_KEY = "burrow.consumer.list";
+	protected final static String BURROW_DISCOVERY_ENABLE_KEY = "burrow.discovery.enable";
+	protected final static String BURROW_DISCOVERY_INTERVAL_KEY = "burrow.discovery.interval";
+	protected final static String BURROW_DISCOVERY_INCLUDE_KEY = "burrow.discovery.include";
+	protected final static String BURROW_DISCOVERY_EXCLUDE_KEY = "burrow.discovery.exclude";
+	protected final static String BURROW_CLUSTERS_KEY = "burrow.clusters";
+	protected final static String BURROW_HISTORY_SIZE_KEY = "burrow.history.size";
+	protected final static String BURROW_HISTORY_FILE_KEY = "burrow.history.file";
+	protected final static String BURROW_HISTORY_PATH_KEY = "burrow.history.path";
+	protected final static String BURROW_RAW_LOG_KEY = "burrow.raw.log";
+	protected final static String BURROW_LOG_MODE_KEY = "burrow.log.mode";
+	protected final static String BURROW_LOG_DELTA_THRESHOLD_KEY = "burrow.log.delta.threshold";
+	protected final static String BURROW_LOG_KEYFRAME_INTERVAL_KEY = "burrow.log.keyframe.interval";
+	protected final static String CLUSTER_PREFIX = "cluster.";
 	protected final static String LOG_PATH_KEY = "log.path";
+	protected final static String LOG_CONSOLE_KEY = "log.console";
+	protected final static String LOG_LEVEL_KEY = "log.level";
+	protected final static String LOG_MAX_FILE_SIZE_KEY = "log.max.file.size";
+	protected final static String LOG_MAX_AGE_KEY = "log.max.age";
+	protected final static String LOG_MAX_TOTAL_SIZE_KEY = "log.max.total.size";
+	protected final static String LOG_COMPRESS_KEY = "log.compress";
+	protected final static String LOG_FLUSH_MODE_KEY = "log.flush.mode";
+	protected final static String LOG_FLUSH_INTERVAL_KEY = "log.flush.interval";
+	protected final static String LOG_ERROR_FLUSH_MODE_KEY = "log.error.flush.mode";
+	protected final static String LOG_ERROR_FLUSH_INTERVAL_KEY = "log.error.flush.interval";
+	protected final static String LOG_QUEUE_CAPACITY_KEY = "log.queue.capacity";
+	protected final static String LOG_OVERFLOW_POLICY_KEY = "log.overflow.policy";
+	protected final static String LOG_OVERFLOW_LEVEL_KEY = "log.overflow.level";
+	protected final static String LOG_OVERFLOW_SAMPLE_RATE_KEY = "log.overflow.sample.rate";
+	protected final static String LOG_OUTPUT_MODE_KEY = "log.output.mode";
+	protected final static String LOG_MMAP_SEGMENT_SIZE_KEY = "log.mmap.segment.size";
 	protected final static String TELEGRAM_TOKEN = "telegram.token";
 	protected final static String TELEGRAM_CHAT_ID = "telegram.chat.id";
+	protected final static String TELEGRAM_API_URL_KEY = "telegram.api.url";
+	protected final static String TELEGRAM_QUEUE_SIZE_KEY = "telegram.queue.size";
+	protected final static String TELEGRAM_WORKERS_KEY = "telegram.workers";
+	protected final static String TELEGRAM_CONNECT_TIMEOUT_KEY = "telegram.connect.timeout";
+	protected final static String TELEGRAM_READ_TIMEOUT_KEY = "telegram.read.timeout";
+	protected final static String TELEGRAM_RETRY_MAX_KEY = "telegram.retry.max";
+	protected final static String TELEGRAM_RETRY_BACKOFF_KEY = "telegram.retry.backoff";
+	protected final static String TELEGRAM_DIGEST_WINDOW_KEY = "telegram.digest.window";
+	protected final static String TELEGRAM_ALERT_REMIND_KEY = "telegram.alert.remind";
+	protected final static String TELEGRAM_ALERT_PARTITION_KEY = "telegram.alert.partition";
+	protected final static String TELEGRAM_ALERT_GROUP_LIMIT_KEY = "telegram.alert.group.limit";
+	protected final static String TELEGRAM_ALERT_GROUP_REFILL_KEY = "telegram.alert.group.refill";
+	protected final static String TELEGRAM_ALERT_GLOBAL_LIMIT_KEY = "telegram.alert.global.limit";
+	protected final static String TELEGRAM_ALERT_GLOBAL_REFILL_KEY = "telegram.alert.global.refill";
+	
+	/** burrow 요청, 응답 처리에 실패했을 때 알림 상태에 사용하는 status */
+	protected final static String FAIL_STATUS = "FAIL";
 	
 	/** 프로퍼티 파일 path */
 	private String propertyPath;
 	
-	/** 프로퍼티 key, value를 담을 map */
-	private Map<String, String> propertyMap;
+	/** 관제할 클러스터명. null이면 클러스터 구분 없이 공통 설정만 사용한다. */
+	private String clusterName;
+	
+	/** 프로퍼티 key, value를 담을 map. 프로퍼티 파일이 바뀌면 새 map으로 교체된다. */
+	private volatile Map<String, String> propertyMap;
+	
+	/** 마지막으로 읽은 프로퍼티 파일의 수정 시간 */
+	private long propertyModified;
 	
 	/** log를 저장할 path */
 	private String logPath;
 	
+	/** 로그를 System.out에도 출력할지 여부 */
+	private boolean isConsoleLog;
+	
+	/** 로그 레벨 (DEBUG, INFO, WARN, ERROR, FATAL) */
+	private String logLevel;
+	
+	/** 로그 파일 1개의 최대 크기 (byte). 0이면 날짜별로만 파일을 바꾼다. */
+	private long logMaxFileSize;
+	
+	/** 로그 파일 보관 기간 (일). 0이면 지우지 않는다. */
+	private int logMaxAge;
+	
+	/** 로거별 로그 파일 전체 최대 크기 (byte). 0이면 제한하지 않는다. */
+	private long logMaxTotalSize;
+	
+	/** 닫힌 로그 파일을 gzip으로 압축할지 여부 */
+	private boolean isLogCompress;
+	
+	/** 로그 파일 flush 방식과 INTERVAL일 때의 flush 간격 (ms) */
+	private FlushPolicy logFlushPolicy;
+	private long logFlushInterval;
+	
+	/** 에러 로그 파일 flush 방식과 INTERVAL일 때의 flush 간격 (ms) */
+	private FlushPolicy errorLogFlushPolicy;
+	private long errorLogFlushInterval;
+	
+	/** 로거별 queue 크기 */
+	private int logQueueCapacity;
+	
+	/** 로그 queue가 가득 찼을 때의 처리 방식 */
+	private OverflowPolicy logOverflowPolicy;
+	
+	/** DROP_BELOW일 때 버리지 않는 최소 레벨 */
+	private int logOverflowLevel;
+	
+	/** SAMPLE일 때 N개 중 1개만 남긴다. */
+	private int logOverflowSampleRate;
+	
+	/** 로그 파일 mmap 구간 크기 (byte). 0이면 mmap을 사용하지 않는다. (log.output.mode=mmap) */
+	private int logMappedSegmentSize;
+	
 	/** burrow http api를 call할 시간 간격 */
 	private int burrowCheckTime;
 	
-	/** consumer 이름 정보 */
+	/** 컨슈머별 poll 간격의 최소, 최대값 (ms). 둘 다 burrowCheckTime이면 모든 컨슈머를 burrowCheckTime마다 call한다. */
+	private long minCheckTime;
+	private long maxCheckTime;
+	
+	/** 컨슈머별로 poll 간격을 바꾸는지 여부 (minCheckTime < maxCheckTime) */
+	private boolean isAdaptivePoll;
+	
+	/** OK가 이 시간(ms) 이상 계속된 컨슈머는 poll 간격을 늘린다. */
+	private long checkRelaxAfter;
+	
+	/** 초당 lag 증가량이 이 값 이상이면 poll 간격을 최소로 줄인다. */
+	private double checkLagGrowth;
+	
+	/** lag 증가를 확인할 최근 sample 수 */
+	private static final int LAG_GROWTH_SAMPLES = 3;
+	
+	/** adaptive poll에서 다음 poll까지 기다리는 최소 시간 (ms) */
+	private static final long MIN_POLL_DELAY = 100;
+	
+	/** 제거된 컨슈머의 진행 중인 call이 끝난 뒤 로그 파일이 닫힐 때까지 더 기다리는 시간 (ms) */
+	private static final long CONSUMER_STOP_WAIT = 1000;
+	
+	/** 동시에 burrow api를 call할 컨슈머 수. 1 이하이면 순차적으로 call한다. */
+	private int pollParallelism;
+	
+	/** 컨슈머 1개당 burrow api 응답을 기다리는 시간 (ms) */
+	private int pollTimeout;
+	
+	/** 병렬 polling에 사용하는 executor. pollParallelism이 1 이하이면 null */
+	private ExecutorService pollExecutor;
+	
+	/** burrow api connect timeout (ms) */
+	private int connectTimeout;
+	
+	/** 모든 Consumer가 공유하는 burrow http client */
+	private BurrowClient burrowClient;
+	
+	/** 모든 Consumer가 공유하는 텔레그램 메세지 비동기 전송 */
+	private TelegramDispatcher telegramDispatcher;
+	
+	/** 텔레그램 알림을 모아서 보내는 digest. telegram.digest.window가 0이면 null */
+	private TelegramDigest telegramDigest;
+	
+	/** 같은 비정상 status가 계속될 때 다시 알리는 간격 (ms) */
+	private long[] alertRemindIntervals;
+	
+	/** partition status가 바뀔 때도 알림을 보낼지 여부 */
+	private boolean isPartitionAlert;
+	
+	/** 컨슈머별 알림 제한 (한 번에 보낼 수 있는 수, token 1개가 채워지는 시간 ms) */
+	private int alertGroupLimit;
+	private long alertGroupRefill;
+	
+	/** 전체 알림 제한 */
+	private TokenBucket alertBucket;
+	
+	/** burrow 응답을 BurrowLagParser로 파싱할지 여부. false이면 json-simple 트리로 파싱한다. */
+	private boolean isStreamParse;
+	
+	/** 컨슈머, partition별로 메모리에 기록할 최근 lag 수. 0이면 기록하지 않는다. */
+	private int historySize;
+	
+	/** 컨슈머별 lag을 binary history 파일(LagHistoryWriter)로 기록할지 여부 */
+	private boolean isHistoryFile;
+	
+	/** history 파일을 저장할 path */
+	private String historyPath;
+	
+	/** burrow 응답 원문을 컨슈머 로그에 기록할지 여부 */
+	private boolean isRawLog;
+	
+	/** partition lag을 바뀐 것만 기록할지 여부 (burrow.log.mode=delta). false이면 매번 모든 partition을 기록한다. */
+	private boolean isDeltaLog;
+	
+	/** delta 로그에서 기록할 lag 변화량 기준. 마지막으로 기록한 lag과의 차이가 이 값보다 커야 기록한다. */
+	private long deltaThreshold;
+	
+	/** delta 로그에서 모든 partition을 기록(keyframe)할 sample 간격 */
+	private int keyframeInterval;
+	
+	/** burrow의 컨슈머 목록으로 컨슈머를 자동 등록할지 여부 */
+	private boolean isDiscovery;
+	
+	/** 컨슈머 목록을 조회할 시간 간격 (ms) */
+	private int discoveryInterval;
+	
+	/** 컨슈머 목록 조회 요청 */
+	private HttpRequest discoveryRequest;
+	
+	/** 자동 등록할 컨슈머명 패턴. null이면 모두 등록 */
+	private Pattern discoveryInclude;
+	
+	/** 자동 등록하지 않을 컨슈머명 패턴. null이면 제외하지 않음 */
+	private Pattern discoveryExclude;
+	
+	/** 마지막으로 컨슈머 목록을 조회한 시간 */
+	private long lastDiscoveryTime;
+	
+	/** 자동 등록된 컨슈머명. 설정으로 등록된 컨슈머는 포함하지 않는다. */
+	private Set<String> discoveredNames;
+	
+	/** 실행 인자로 받은 consumer 이름 정보 */
 	private String[] consumerName;
 	
-	private Consumer[] consumer;
+	/** 컨슈머명 - Consumer 객체. 실행 중에 컨슈머를 추가/제거할 수 있다. */
+	private Map<String, Consumer> consumerMap;
+	
+	/** 제거했지만 로그 파일이 아직 닫히지 않았을 수 있는 컨슈머. 같은 이름으로 다시 추가할 때 종료를 기다린다. */
+	private Map<String, Consumer> removedConsumerMap;
+	
+	/** run()이 실행 중인지 여부. 실행 중에 추가된 컨슈머는 바로 로거를 시작한다. */
+	private boolean isRunning;
 	
 	/** BurrowCheck class의 로거 */
 	private KLogger logger;
@@ -59,15 +286,30 @@ public class BurrowCheck implements Runnable{
 	
 	/**
 	 * 생성자
-	 * @param environment 서버 환경
+	 * @param propertyPath 프로퍼티 파일의 path
+	 * @param consumerName 관제할 컨슈머 그룹명
 	 */
 	public BurrowCheck(String propertyPath, String[] consumerName)
+	{
+		this(propertyPath, consumerName, null);
+	}
+	
+	/**
+	 * 클러스터별 생성자<br>
+	 * 프로퍼티의 cluster.{clusterName}.* 값이 같은 이름의 공통 설정을 덮어쓴다. (예: cluster.dev.burrow.ip)<br>
+	 * 로거, 컨슈머 로그 파일명과 텔레그램 메세지에는 클러스터명이 붙는다.
+	 * @param propertyPath 프로퍼티 파일의 path
+	 * @param consumerName 관제할 컨슈머 그룹명
+	 * @param clusterName 클러스터명. null이면 공통 설정만 사용한다.
+	 */
+	public BurrowCheck(String propertyPath, String[] consumerName, String clusterName)
 	{
 		if(propertyPath == null || propertyPath.length() == 0 || consumerName == null)
 			throw new NullPointerException("argument가 null");
 		
 		try
 		{
+			this.clusterName = clusterName;
 			this.init(propertyPath, consumerName);
 			this.setProperty();
 			this.setConfig();
@@ -90,6 +332,9 @@ public class BurrowCheck implements Runnable{
 		this.propertyPath = propertyPath;
 		this.consumerName = consumerName;
 		this.propertyMap = new HashMap<String, String>();
+		this.consumerMap = new ConcurrentHashMap<String, Consumer>();
+		this.removedConsumerMap = new ConcurrentHashMap<String, Consumer>();
+		this.discoveredNames = new LinkedHashSet<String>();
 	}
 	
 	/**
@@ -97,11 +342,14 @@ public class BurrowCheck implements Runnable{
 	 */
 	private void setProperty() throws Exception
 	{
+		this.propertyModified = new File(this.propertyPath).lastModified();
+		
 		try(FileInputStream fis = new FileInputStream(this.propertyPath))
 		{
 			Properties p = new Properties();
 			p.load(fis);
 			
+			Map<String, String> tempMap = new HashMap<String, String>();
 			String key = null;
 			String value = null;
 			
@@ -109,8 +357,22 @@ public class BurrowCheck implements Runnable{
 			{
 				key = (String)o;
 				value = p.getProperty(key);
-				this.propertyMap.put(key, value);
+				tempMap.put(key, value);
 			}
+			
+			// 클러스터 설정으로 공통 설정을 덮어쓴다.
+			if(this.clusterName != null)
+			{
+				String prefix = CLUSTER_PREFIX + this.clusterName + ".";
+				
+				for(Object o : p.keySet())
+				{
+					key = (String)o;
+					if(key.startsWith(prefix))
+						tempMap.put(key.substring(prefix.length()), p.getProperty(key));
+				}
+			}
+			this.propertyMap = tempMap;
 		}
 		catch(Exception e)
 		{
@@ -134,10 +396,92 @@ public class BurrowCheck implements Runnable{
 		
 		// log path
 		this.logPath = this.propertyMap.getOrDefault(LOG_PATH_KEY, "./");
+		
+		// console log
+		this.isConsoleLog = "true".equalsIgnoreCase(this.propertyMap.getOrDefault(LOG_CONSOLE_KEY, "false").trim());
+		
+		// log level
+		this.logLevel = this.propertyMap.getOrDefault(LOG_LEVEL_KEY, KLogger.DEFAULT_LEVEL).trim();
+		
+		// log rolling, retention (MB, 일)
+		try
+		{
+			this.logMaxFileSize = Long.parseLong(this.propertyMap.getOrDefault(LOG_MAX_FILE_SIZE_KEY, "0").trim()) * 1024 * 1024;
+			this.logMaxAge = Integer.parseInt(this.propertyMap.getOrDefault(LOG_MAX_AGE_KEY, "0").trim());
+			this.logMaxTotalSize = Long.parseLong(this.propertyMap.getOrDefault(LOG_MAX_TOTAL_SIZE_KEY, "0").trim()) * 1024 * 1024;
+		}
+		catch(Exception e)
+		{
+			this.logMaxFileSize = 0;
+			this.logMaxAge = 0;
+			this.logMaxTotalSize = 0;
+		}
+		this.isLogCompress = "true".equalsIgnoreCase(this.propertyMap.getOrDefault(LOG_COMPRESS_KEY, "false").trim());
+		
+		// log flush. 컨슈머 로거는 LogWriterService thread 1개를 공유하므로, 장애로 여러 컨슈머가 동시에 에러를 남기면 FSYNC는 로거 수만큼 fsync를 차례로 한다.
+		// 그래서 에러 로그도 기본은 BATCH이고, 필요하면 log.error.flush.mode=FSYNC로 설정한다.
+		this.logFlushPolicy = FlushPolicy.of(this.propertyMap.get(LOG_FLUSH_MODE_KEY), FlushPolicy.BATCH);
+		this.errorLogFlushPolicy = FlushPolicy.of(this.propertyMap.get(LOG_ERROR_FLUSH_MODE_KEY), FlushPolicy.BATCH);
+		try
+		{
+			this.logFlushInterval = Long.parseLong(this.propertyMap.getOrDefault(LOG_FLUSH_INTERVAL_KEY, String.valueOf(KLogger.DEFAULT_FLUSH_INTERVAL)).trim());
+			this.errorLogFlushInterval = Long.parseLong(this.propertyMap.getOrDefault(LOG_ERROR_FLUSH_INTERVAL_KEY, String.valueOf(KLogger.DEFAULT_FLUSH_INTERVAL)).trim());
+		}
+		catch(Exception e)
+		{
+			this.logFlushInterval = KLogger.DEFAULT_FLUSH_INTERVAL;
+			this.errorLogFlushInterval = KLogger.DEFAULT_FLUSH_INTERVAL;
+		}
+		if(this.logFlushInterval <= 0)
+			this.logFlushInterval = KLogger.DEFAULT_FLUSH_INTERVAL;
+		if(this.errorLogFlushInterval <= 0)
+			this.errorLogFlushInterval = KLogger.DEFAULT_FLUSH_INTERVAL;
+		
+		// log queue overflow
+		this.logOverflowPolicy = OverflowPolicy.of(this.propertyMap.get(LOG_OVERFLOW_POLICY_KEY), OverflowPolicy.BLOCK);
+		this.logOverflowLevel = KLogger.WARN;
+		String overflowLevel = this.propertyMap.getOrDefault(LOG_OVERFLOW_LEVEL_KEY, "").trim().toUpperCase();
+		for(Map.Entry<Integer, String> entry : KLogger.levelMap.entrySet())
+		{
+			if(entry.getValue().equals(overflowLevel))
+				this.logOverflowLevel = entry.getKey();
+		}
+		try
+		{
+			this.logQueueCapacity = Integer.parseInt(this.propertyMap.getOrDefault(LOG_QUEUE_CAPACITY_KEY, String.valueOf(KLogger.DEFAULT_QUEUE_CAPACITY)).trim());
+			this.logOverflowSampleRate = Integer.parseInt(this.propertyMap.getOrDefault(LOG_OVERFLOW_SAMPLE_RATE_KEY, "10").trim());
+		}
+		catch(Exception e)
+		{
+			this.logQueueCapacity = KLogger.DEFAULT_QUEUE_CAPACITY;
+			this.logOverflowSampleRate = 10;
+		}
+		if(this.logQueueCapacity <= 0)
+			this.logQueueCapacity = KLogger.DEFAULT_QUEUE_CAPACITY;
+		if(this.logOverflowSampleRate <= 0)
+			this.logOverflowSampleRate = 10;
+		
+		// log output mode (stream, mmap). mmap 구간 크기는 MB
+		this.logMappedSegmentSize = 0;
+		if("mmap".equalsIgnoreCase(this.propertyMap.getOrDefault(LOG_OUTPUT_MODE_KEY, "stream").trim()))
+		{
+			try
+			{
+				this.logMappedSegmentSize = Integer.parseInt(this.propertyMap.getOrDefault(LOG_MMAP_SEGMENT_SIZE_KEY, "4").trim()) * 1024 * 1024;
+			}
+			catch(Exception e)
+			{
+				this.logMappedSegmentSize = MappedLogWriter.DEFAULT_SEGMENT_SIZE;
+			}
+			if(this.logMappedSegmentSize <= 0)
+				this.logMappedSegmentSize = MappedLogWriter.DEFAULT_SEGMENT_SIZE;
+		}
 				
 		// set logger for burrowcheck
-		this.logger = new KLogger("BurrowCheck", this.logPath, KLogger.INFO);
-		this.logger.setErrorLog(true, "BurrowCheck.error.log");
+		String loggerName = this.getLogName("BurrowCheck");
+		this.logger = new KLogger(loggerName, this.logPath, this.logLevel);
+		this.logger.setErrorLog(true, loggerName + ".error.log");
+		this.setLogPolicy(this.logger);
 		
 		// burrow check time
 		try
@@ -149,296 +493,986 @@ public class BurrowCheck implements Runnable{
 			this.burrowCheckTime = 30000;
 		}
 		
+		// 컨슈머별 poll 간격 (초). status가 OK가 아니거나 lag이 빠르게 늘면 min, OK가 오래 계속되면 max까지 늘린다.
+		try
+		{
+			this.minCheckTime = Long.parseLong(this.propertyMap.getOrDefault(BURROW_CHECK_TIME_MIN_KEY, "0").trim()) * 1000;
+			this.maxCheckTime = Long.parseLong(this.propertyMap.getOrDefault(BURROW_CHECK_TIME_MAX_KEY, "0").trim()) * 1000;
+			this.checkRelaxAfter = Long.parseLong(this.propertyMap.getOrDefault(BURROW_CHECK_RELAX_AFTER_KEY, "600").trim()) * 1000;
+			this.checkLagGrowth = Double.parseDouble(this.propertyMap.getOrDefault(BURROW_CHECK_LAG_GROWTH_KEY, "100").trim());
+		}
+		catch(Exception e)
+		{
+			this.minCheckTime = 0;
+			this.maxCheckTime = 0;
+			this.checkRelaxAfter = 600000;
+			this.checkLagGrowth = 100;
+		}
+		if(this.minCheckTime <= 0 || this.minCheckTime > this.burrowCheckTime)
+			this.minCheckTime = this.burrowCheckTime;
+		if(this.maxCheckTime < this.burrowCheckTime)
+			this.maxCheckTime = this.burrowCheckTime;
+		if(this.checkRelaxAfter < 0)
+			this.checkRelaxAfter = 600000;
+		this.isAdaptivePoll = this.minCheckTime < this.maxCheckTime;
+		
+		// burrow poll parallelism
+		try
+		{
+			this.pollParallelism = Integer.parseInt(this.propertyMap.get(BURROW_POLL_PARALLELISM_KEY).trim());
+		}
+		catch(Exception e)
+		{
+			this.pollParallelism = 1;
+		}
+		
+		// burrow poll timeout
+		try
+		{
+			this.pollTimeout = Integer.parseInt(this.propertyMap.get(BURROW_POLL_TIMEOUT_KEY).trim()) * 1000;
+		}
+		catch(Exception e)
+		{
+			this.pollTimeout = 10000;
+		}
+		
+		// burrow connect timeout
+		try
+		{
+			this.connectTimeout = Integer.parseInt(this.propertyMap.get(BURROW_CONNECT_TIMEOUT_KEY).trim()) * 1000;
+		}
+		catch(Exception e)
+		{
+			this.connectTimeout = 3000;
+		}
+		
+		// burrow connection pool size
+		int poolSize;
+		try
+		{
+			poolSize = Integer.parseInt(this.propertyMap.get(BURROW_POOL_SIZE_KEY).trim());
+		}
+		catch(Exception e)
+		{
+			poolSize = Math.max(this.pollParallelism, 1);
+		}
+		this.burrowClient = new BurrowClient(this.connectTimeout, this.pollTimeout, poolSize);
+		
+		// telegram dispatcher (timeout, backoff는 초)
+		int telegramQueueSize = 1000;
+		int telegramWorkers = 2;
+		int telegramConnectTimeout = 3000;
+		int telegramReadTimeout = 5000;
+		int telegramRetryMax = 3;
+		long telegramRetryBackoff = 1000;
+		try
+		{
+			telegramQueueSize = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_QUEUE_SIZE_KEY, "1000").trim());
+			telegramWorkers = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_WORKERS_KEY, "2").trim());
+			telegramConnectTimeout = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_CONNECT_TIMEOUT_KEY, "3").trim()) * 1000;
+			telegramReadTimeout = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_READ_TIMEOUT_KEY, "5").trim()) * 1000;
+			telegramRetryMax = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_RETRY_MAX_KEY, "3").trim());
+			telegramRetryBackoff = Long.parseLong(this.propertyMap.getOrDefault(TELEGRAM_RETRY_BACKOFF_KEY, "1").trim()) * 1000;
+		}
+		catch(Exception e)
+		{
+			this.logger.log(new LazyLogData(KLogger.WARN, "telegram config error. use default. ", e));
+		}
+		final int connectMillis = telegramConnectTimeout > 0 ? telegramConnectTimeout : 3000;
+		final int readMillis = telegramReadTimeout > 0 ? telegramReadTimeout : 5000;
+		TelegramClient telegramClient = new TelegramClient(this.propertyMap.get(TELEGRAM_API_URL_KEY), connectMillis, readMillis);
+		this.telegramDispatcher = new TelegramDispatcher(telegramClient, 
+				Math.max(telegramQueueSize, 1), Math.max(telegramWorkers, 1), Math.max(telegramRetryMax, 0), telegramRetryBackoff > 0 ? telegramRetryBackoff : 1000);
+		this.telegramDispatcher.setLogger(this.logger);
+		
+		// telegram digest (초). 0이면 알림마다 바로 보낸다.
+		long telegramDigestWindow = 0;
+		try
+		{
+			telegramDigestWindow = Long.parseLong(this.propertyMap.getOrDefault(TELEGRAM_DIGEST_WINDOW_KEY, "0").trim()) * 1000;
+		}
+		catch(Exception e)
+		{
+			this.logger.log(new LazyLogData(KLogger.WARN, "telegram digest config error. digest off. ", e));
+		}
+		if(telegramDigestWindow > 0)
+			this.telegramDigest = new TelegramDigest(this.telegramDispatcher, telegramDigestWindow, TelegramDigest.MAX_MESSAGE_LENGTH);
+		
+		// alert. status가 바뀔 때만 알리고, 계속되면 telegram.alert.remind(분, ','로 구분) 간격으로 다시 알린다.
+		try
+		{
+			String[] reminds = this.propertyMap.getOrDefault(TELEGRAM_ALERT_REMIND_KEY, "60").trim().split(",");
+			List<Long> intervals = new ArrayList<Long>();
+			for(String remind : reminds)
+			{
+				if(remind.trim().length() > 0 && Long.parseLong(remind.trim()) > 0)
+					intervals.add(Long.parseLong(remind.trim()) * 60 * 1000);
+			}
+			this.alertRemindIntervals = new long[intervals.size()];
+			for(int i = 0; i < intervals.size(); i++)
+				this.alertRemindIntervals[i] = intervals.get(i);
+		}
+		catch(Exception e)
+		{
+			this.alertRemindIntervals = new long[] { 60 * 60 * 1000L };
+		}
+		this.isPartitionAlert = "true".equalsIgnoreCase(this.propertyMap.getOrDefault(TELEGRAM_ALERT_PARTITION_KEY, "false").trim());
+		
+		// alert 제한 (token 수, 채워지는 시간 초)
+		int alertGlobalLimit;
+		long alertGlobalRefill;
+		try
+		{
+			this.alertGroupLimit = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_ALERT_GROUP_LIMIT_KEY, "5").trim());
+			this.alertGroupRefill = Long.parseLong(this.propertyMap.getOrDefault(TELEGRAM_ALERT_GROUP_REFILL_KEY, "60").trim()) * 1000;
+			alertGlobalLimit = Integer.parseInt(this.propertyMap.getOrDefault(TELEGRAM_ALERT_GLOBAL_LIMIT_KEY, "20").trim());
+			alertGlobalRefill = Long.parseLong(this.propertyMap.getOrDefault(TELEGRAM_ALERT_GLOBAL_REFILL_KEY, "10").trim()) * 1000;
+		}
+		catch(Exception e)
+		{
+			this.alertGroupLimit = 5;
+			this.alertGroupRefill = 60000;
+			alertGlobalLimit = 20;
+			alertGlobalRefill = 10000;
+		}
+		if(this.alertGroupLimit <= 0 || this.alertGroupRefill <= 0)
+		{
+			this.alertGroupLimit = 5;
+			this.alertGroupRefill = 60000;
+		}
+		this.alertBucket = new TokenBucket(alertGlobalLimit > 0 ? alertGlobalLimit : 20, alertGlobalRefill > 0 ? alertGlobalRefill : 10000);
+		
+		// burrow parse mode (stream, tree)
+		this.isStreamParse = !"tree".equalsIgnoreCase(this.propertyMap.getOrDefault(BURROW_PARSE_MODE_KEY, "stream").trim());
+		
+		// lag history size
+		try
+		{
+			this.historySize = Integer.parseInt(this.propertyMap.get(BURROW_HISTORY_SIZE_KEY).trim());
+		}
+		catch(Exception e)
+		{
+			this.historySize = 60;
+		}
+		
+		// lag history file
+		this.isHistoryFile = "true".equalsIgnoreCase(this.propertyMap.getOrDefault(BURROW_HISTORY_FILE_KEY, "false").trim());
+		this.historyPath = this.propertyMap.getOrDefault(BURROW_HISTORY_PATH_KEY, this.logPath);
+		this.isRawLog = !"false".equalsIgnoreCase(this.propertyMap.getOrDefault(BURROW_RAW_LOG_KEY, "true").trim());
+		
+		// log mode (full, delta)
+		this.isDeltaLog = "delta".equalsIgnoreCase(this.propertyMap.getOrDefault(BURROW_LOG_MODE_KEY, "full").trim());
+		try
+		{
+			this.deltaThreshold = Math.max(Long.parseLong(this.propertyMap.get(BURROW_LOG_DELTA_THRESHOLD_KEY).trim()), 0L);
+		}
+		catch(Exception e)
+		{
+			this.deltaThreshold = 0;
+		}
+		try
+		{
+			this.keyframeInterval = Math.max(Integer.parseInt(this.propertyMap.get(BURROW_LOG_KEYFRAME_INTERVAL_KEY).trim()), 1);
+		}
+		catch(Exception e)
+		{
+			this.keyframeInterval = 60;
+		}
+		
+		// consumer discovery
+		this.isDiscovery = "true".equalsIgnoreCase(this.propertyMap.getOrDefault(BURROW_DISCOVERY_ENABLE_KEY, "false").trim());
+		if(this.isDiscovery)
+		{
+			try
+			{
+				this.discoveryInterval = Integer.parseInt(this.propertyMap.get(BURROW_DISCOVERY_INTERVAL_KEY).trim()) * 1000;
+			}
+			catch(Exception e)
+			{
+				this.discoveryInterval = 300000;
+			}
+			
+			String include = this.propertyMap.get(BURROW_DISCOVERY_INCLUDE_KEY);
+			String exclude = this.propertyMap.get(BURROW_DISCOVERY_EXCLUDE_KEY);
+			this.discoveryInclude = include == null || include.trim().length() == 0 ? null : Pattern.compile(include.trim());
+			this.discoveryExclude = exclude == null || exclude.trim().length() == 0 ? null : Pattern.compile(exclude.trim());
+			
+			// burrow.call.url은 컨슈머 목록 url 뒤에 '/'가 붙은 형태 (예: /v3/kafka/local/consumer/)
+			String callUrl = this.propertyMap.get(BURROW_CALL_URL_KEY).trim();
+			while(callUrl.endsWith("/"))
+				callUrl = callUrl.substring(0, callUrl.length() - 1);
+			
+			this.discoveryRequest = this.burrowClient.newRequest(new StringBuilder("http://").append(this.propertyMap.get(BURROW_IP_KEY)).append(":")
+					.append(this.propertyMap.get(BURROW_PORT_NUM_KEY)).append(callUrl).toString());
+		}
+		
+		if(this.pollParallelism > 1)
+		{
+			AtomicInteger threadNum = new AtomicInteger();
+			this.pollExecutor = Executors.newFixedThreadPool(this.pollParallelism, r -> {
+				Thread thread = new Thread(r, "burrow-poll-" + threadNum.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
 	}
 	
 	/**
 	 * Consumer 객체를 초기화하는 메소드 <br>
-	 * 입력된 객체에 에러가 있을 경우, this.Consumer, this.consumerName 에서 해당 객체를 제외한다.
+	 * 실행 인자로 받은 컨슈머와 프로퍼티의 burrow.consumer.list에 있는 컨슈머를 등록한다.<br>
+	 * 입력된 객체에 에러가 있을 경우, 해당 컨슈머는 등록되지 않는다.
 	 */
 	private void setConsumers()
 	{
-		this.consumer = new Consumer[this.consumerName.length];
-		int errorCount = 0;
+		for(String name : this.getConfiguredConsumerNames())
+			this.addConsumer(name);
+	}
+	
+	/**
+	 * 관제할 컨슈머명을 리턴하는 메소드<br>
+	 * 실행 인자로 받은 컨슈머명과 burrow.consumer.list(';'로 구분)의 컨슈머명을 합친다.
+	 * @return 컨슈머명 set
+	 */
+	private LinkedHashSet<String> getConfiguredConsumerNames()
+	{
+		LinkedHashSet<String> names = new LinkedHashSet<String>();
 		
-		for(int i = 0; i < this.consumerName.length; i++)
+		for(String name : this.consumerName)
 		{
-			try
+			if(name != null && name.length() > 0)
+				names.add(name);
+		}
+		
+		String list = this.propertyMap.get(BURROW_CONSUMER_LIST_KEY);
+		if(list != null)
+		{
+			for(String name : list.split(";"))
 			{
-				this.consumer[i] = new Consumer(this.consumerName[i], this.propertyMap);
+				if(name.trim().length() > 0)
+					names.add(name.trim());
 			}
-			catch(Exception e)
+		}
+		return names;
+	}
+	
+	/**
+	 * 컨슈머를 추가하는 메소드<br>
+	 * 컨슈머별 로거와 텔레그램 설정은 현재 propertyMap에서 읽는다. 실행 중이라면 컨슈머 로거를 바로 시작하고, 다음 주기부터 poll한다.<br>
+	 * 같은 이름으로 제거된 컨슈머가 아직 로그 파일을 쓰고 있으면, 같은 파일을 두 번 열지 않도록 종료될 때까지 기다린다.<br>
+	 * 다른 컨슈머의 poll은 멈추지 않는다.
+	 * @param consumerName 컨슈머명
+	 * @return 추가되었으면 true, 이미 있거나 생성에 실패하면 false
+	 */
+	public synchronized boolean addConsumer(String consumerName)
+	{
+		if(consumerName == null || consumerName.length() == 0 || this.consumerMap.containsKey(consumerName))
+			return false;
+		
+		Consumer removed = this.removedConsumerMap.get(consumerName);
+		if(removed != null)
+		{
+			if(!this.awaitStopped(removed))
+			{
+				this.logger.log(new LazyLogData(KLogger.WARN, "addConsumer() fail. previous consumer is still stopping. consumerName :", consumerName));
+				return false;
+			}
+			this.removedConsumerMap.remove(consumerName);
+		}
+		
+		try
+		{
+			Consumer consumer = new Consumer(consumerName, this.propertyMap);
+			
+			if(this.isRunning)
+				consumer.startLogger();
+			
+			this.consumerMap.put(consumerName, consumer);
+			this.logger.log(new LazyLogData(KLogger.INFO, "addConsumer() success. consumerName :", consumerName));
+			return true;
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+			this.logger.log(new LazyLogData(KLogger.ERROR, "addConsumer() fail. consumerName : ", consumerName, e));
+			return false;
+		}
+	}
+	
+	/**
+	 * 컨슈머를 제거하는 메소드<br>
+	 * 다음 주기부터 poll하지 않으며, 컨슈머 로거를 종료한다. 진행 중인 call이 있으면 call이 끝난 뒤에 종료한다.
+	 * @param consumerName 컨슈머명
+	 * @return 제거되었으면 true, 없으면 false
+	 */
+	public synchronized boolean removeConsumer(String consumerName)
+	{
+		Consumer consumer = consumerName == null ? null : this.consumerMap.remove(consumerName);
+		
+		if(consumer == null)
+			return false;
+		
+		if(this.isRunning)
+		{
+			this.removedConsumerMap.values().removeIf(Consumer::isStopped);
+			this.removedConsumerMap.put(consumerName, consumer);
+			consumer.remove();
+		}
+		
+		this.logger.log(new LazyLogData(KLogger.INFO, "removeConsumer() success. consumerName :", consumerName));
+		return true;
+	}
+	
+	/**
+	 * 제거된 컨슈머의 로거가 종료되고 로그 파일이 닫힐 때까지 기다리는 메소드<br>
+	 * 진행 중인 call은 pollTimeout + connectTimeout 안에 끝나므로, 그 시간에 CONSUMER_STOP_WAIT를 더한 만큼만 기다린다.
+	 * @param consumer 제거된 컨슈머
+	 * @return 종료되었으면 true, 시간 안에 종료되지 않았거나 interrupt되면 false
+	 */
+	private boolean awaitStopped(Consumer consumer)
+	{
+		long deadline = System.currentTimeMillis() + this.pollTimeout + this.connectTimeout + CONSUMER_STOP_WAIT;
+		
+		try
+		{
+			while(!consumer.isStopped())
 			{
-				e.printStackTrace();
-				this.consumer[i] = null;
-				this.consumerName[i] = null;
-				errorCount++;
+				if(System.currentTimeMillis() >= deadline)
+					return false;
+				Thread.sleep(10);
 			}
+			return true;
 		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	/**
+	 * 프로퍼티 파일이 바뀌었으면 다시 읽고, 컨슈머 목록을 맞추는 메소드<br>
+	 * burrow.consumer.list에서 빠진 컨슈머는 제거하고, 새로 생긴 컨슈머는 추가한다. 그 외 설정은 다시 적용하지 않는다.
+	 */
+	private void reloadConsumers()
+	{
+		if(new File(this.propertyPath).lastModified() == this.propertyModified)
+			return;
 		
-		// 에러 발생시, Consumer[] 배열에서 에러 발생한 Consumer는 제거. consumerName[] 배엘여서 에러발생한 consumerName 제거.
-		if(errorCount > 0)
+		try
+		{
+			this.setProperty();
+			this.logger.log(new LazyLogData(KLogger.INFO, "property file reloaded. propertyPath :", this.propertyPath));
+		}
+		catch(Exception e)
 		{
-			Consumer[] tempConsumer = new Consumer[this.consumerName.length - errorCount];
-			String[] tempConsumerName = new String[this.consumerName.length - errorCount];
-			int arrNum = 0;
+			this.logger.log(new LazyLogData(KLogger.ERROR, "reloadConsumers() fail. ", e));
+			return;
+		}
+		
+		LinkedHashSet<String> names = this.getConfiguredConsumerNames();
+		
+		for(String name : this.consumerMap.keySet())
+		{
+			if(!names.contains(name) && !this.discoveredNames.contains(name))
+				this.removeConsumer(name);
+		}
+		
+		for(String name : names)
+		{
+			// 자동 등록되었던 컨슈머가 설정에 추가되면, 설정으로 등록된 컨슈머로 취급한다.
+			this.discoveredNames.remove(name);
+			this.addConsumer(name);
+		}
+	}
+	
+	/**
+	 * burrow의 컨슈머 목록을 조회하여 컨슈머를 자동으로 등록/제거하는 메소드<br>
+	 * discoveryInterval마다 실행되며, 목록에 새로 생긴 컨슈머만 추가하고 목록에서 사라진 자동 등록 컨슈머만 제거한다.<br>
+	 * 설정(실행 인자, burrow.consumer.list)으로 등록된 컨슈머는 제거하지 않는다.
+	 */
+	private void discoverConsumers()
+	{
+		if(!this.isDiscovery || System.currentTimeMillis() - this.lastDiscoveryTime < this.discoveryInterval)
+			return;
+		
+		this.lastDiscoveryTime = System.currentTimeMillis();
+		Set<String> names = new LinkedHashSet<String>();
+		
+		try
+		{
+			byte[] body = this.burrowClient.send(this.discoveryRequest);
+			JSONObject json = (JSONObject) new JSONParser().parse(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+			
+			if(Boolean.TRUE.equals(json.get("error")))
+				throw new Exception("Burrow ERROR! errorMsg : " + json.get("message"));
 			
-			for(int i = 0; i < this.consumerName.length; i++)
+			JSONArray consumers = (JSONArray) json.get("consumers");
+			for(int i = 0; consumers != null && i < consumers.size(); i++)
 			{
-				if(this.consumer[i] != null)
-				{
-					tempConsumer[arrNum] = this.consumer[i];
-					tempConsumerName[arrNum] = this.consumerName[i];
-					arrNum++;
-				}
+				String name = (String) consumers.get(i);
+				
+				if(name == null || name.length() == 0)
+					continue;
+				if(this.discoveryInclude != null && !this.discoveryInclude.matcher(name).matches())
+					continue;
+				if(this.discoveryExclude != null && this.discoveryExclude.matcher(name).matches())
+					continue;
+				names.add(name);
+			}
+		}
+		catch(Exception e)
+		{
+			this.logger.log(new LazyLogData(KLogger.ERROR, "discoverConsumers() fail. ", e));
+			return;
+		}
+		
+		int removed = 0;
+		int added = 0;
+		
+		// 목록에서 사라진 컨슈머 제거
+		for(String name : new ArrayList<String>(this.discoveredNames))
+		{
+			if(!names.contains(name))
+			{
+				this.discoveredNames.remove(name);
+				if(this.removeConsumer(name))
+					removed++;
 			}
-			this.consumer = tempConsumer;
-			this.consumerName = tempConsumerName;
 		}
+		
+		// 새로 생긴 컨슈머 추가
+		for(String name : names)
+		{
+			if(!this.consumerMap.containsKey(name) && this.addConsumer(name))
+			{
+				this.discoveredNames.add(name);
+				added++;
+			}
+		}
+		
+		if(added > 0 || removed > 0)
+			this.logger.log(new LazyLogData(KLogger.INFO, "discoverConsumers() added :", added, ", removed :", removed, ", total :", this.consumerMap.size()));
 	}
 	
 	/**
-	 * burrow api를 call하는 메소드
+	 * burrow api를 call하는 메소드<br>
+	 * pollExecutor가 있으면 컨슈머별로 병렬 call하고, 없으면 순차적으로 call한다.
 	 */
 	private void callAPI()
 	{
 		try
 		{
-			for(int i = 0; i < this.consumerName.length; i++)
-				this.callAPI(this.consumerName[i]);
+			if(this.pollExecutor == null)
+			{
+				for(Consumer consumer : this.consumerMap.values())
+				{
+					if(Thread.currentThread().isInterrupted())
+						return;
+					if(!consumer.getPollSchedule().isDue(System.currentTimeMillis()))
+						continue;
+					
+					// 제거 중인 컨슈머는 건너뛴다. call 중에 제거되면 endPoll()에서 로거를 종료한다.
+					if(!consumer.startPoll())
+						continue;
+					
+					consumer.getPollSchedule().markPolled(System.currentTimeMillis());
+					try
+					{
+						this.callAPI(consumer);
+					}
+					finally
+					{
+						consumer.endPoll();
+					}
+				}
+			}
+			else
+			{
+				this.callAPIParallel();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// 종료 요청. run()의 loop가 끝나도록 interrupt 상태를 되돌린다.
+			Thread.currentThread().interrupt();
 		}
 		catch(Exception e)
 		{
-			this.logger.log(new LogData(KLogger.ERROR, "callAPI() fail. ", e));
+			this.logger.log(new LazyLogData(KLogger.ERROR, "callAPI() fail. ", e));
+		}
+	}
+	
+	/**
+	 * 컨슈머별 burrow api call을 pollExecutor에 제출하고, 모두 끝날 때까지 기다리는 메소드<br>
+	 * 컨슈머 1개의 call은 pollTimeout 안에 끝나야 하므로, 전체 대기 시간은 (pollParallelism 단위의 회차 수 * pollTimeout)으로 제한한다.<br>
+	 * 제한 시간이 지나도 끝나지 않은 call은 취소한다. 시작하기 전에 취소된 call은 실행되지 않으므로, 여기서 endPoll()을 호출해 다음 주기에 다시 call한다.
+	 */
+	private void callAPIParallel() throws InterruptedException
+	{
+		List<Future<?>> futures = new ArrayList<Future<?>>(this.consumerMap.size());
+		List<Consumer> consumers = new ArrayList<Consumer>(this.consumerMap.size());
+		List<AtomicBoolean> started = new ArrayList<AtomicBoolean>(this.consumerMap.size());
+		
+		long now = System.currentTimeMillis();
+		for(Consumer consumer : this.consumerMap.values())
+		{
+			String name = consumer.getConsumerName();
+			
+			// poll 간격이 지나지 않은 컨슈머는 건너뛴다.
+			if(!consumer.getPollSchedule().isDue(now))
+				continue;
+			
+			// 이전 주기의 call이 아직 끝나지 않은 컨슈머는 건너뛴다.
+			if(!consumer.startPoll())
+			{
+				this.logger.log(new LazyLogData(KLogger.WARN, "previous call is still running. skip consumerName :", name));
+				continue;
+			}
+			
+			consumer.getPollSchedule().markPolled(now);
+			AtomicBoolean isStarted = new AtomicBoolean(false);
+			futures.add(this.pollExecutor.submit(() -> {
+				// 제한 시간이 지나서 먼저 취소 처리되었으면 call하지 않는다.
+				if(!isStarted.compareAndSet(false, true))
+					return null;
+				
+				try
+				{
+					this.callAPI(consumer);
+				}
+				finally
+				{
+					consumer.endPoll();
+				}
+				return null;
+			}));
+			consumers.add(consumer);
+			started.add(isStarted);
+		}
+		
+		int rounds = (futures.size() + this.pollParallelism - 1) / this.pollParallelism;
+		long deadline = System.currentTimeMillis() + (long) rounds * (this.pollTimeout + this.connectTimeout);
+		
+		for(int i = 0; i < futures.size(); i++)
+		{
+			try
+			{
+				futures.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			}
+			catch(TimeoutException e)
+			{
+				futures.get(i).cancel(true);
+				
+				// 시작하지 못한 call은 finally가 실행되지 않으므로 여기서 끝낸다.
+				if(started.get(i).compareAndSet(false, true))
+				{
+					consumers.get(i).endPoll();
+					this.logger.log(new LazyLogData(KLogger.WARN, "callAPI not started before timeout. consumerName :", consumers.get(i).getConsumerName()));
+				}
+				else
+				{
+					this.logger.log(new LazyLogData(KLogger.WARN, "callAPI timeout. consumerName :", consumers.get(i).getConsumerName()));
+				}
+			}
+			catch(InterruptedException e)
+			{
+				throw e;
+			}
+			catch(Exception e)
+			{
+				this.logger.log(new LazyLogData(KLogger.ERROR, "callAPI(consumerName) fail. consumerName : ", consumers.get(i).getConsumerName(), e));
+			}
 		}
 	}
 	
 	/**
 	 * 컨슈머별로 burrow api를 call하는 메소드
-	 * @param consumerName 컨슈머명
+	 * @param consumer 컨슈머
 	 */
-	private void callAPI(String consumerName) throws Exception
+	private void callAPI(Consumer consumer) throws Exception
 	{
+		String consumerName = consumer.getConsumerName();
+		
 		try
 		{
-			HttpURLConnection connection = this.getRequest(consumerName);
-			JSONObject resultJSON = this.getResponse(connection, consumerName);
+			HttpRequest request = this.getRequest(consumer);
+			LagResponse response = this.getResponse(request, consumer);
 			
-			if(resultJSON != null)
+			if(response != null)
 			{
-				this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.INFO, resultJSON.toJSONString()));
-				this.parseJson(resultJSON, consumerName);
+				this.parseJson(response, consumer);
 			}
-			else
+			else if(!Thread.currentThread().isInterrupted())
 			{
 				throw new Exception();
 			}
 		}
 		catch(Exception e)
 		{
-			this.logger.log(new LogData(KLogger.ERROR, "callAPI(consumerName) fail. consumerName : ", consumerName, e));
-			this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.ERROR, "callAPI(consumerName) fail. consumerName : ", consumerName, e));
+			this.logger.log(new LazyLogData(KLogger.ERROR, "callAPI(consumerName) fail. consumerName : ", consumerName, e));
+			consumer.getLogger().log(new LazyLogData(KLogger.ERROR, "callAPI(consumerName) fail. consumerName : ", consumerName, e));
+		}
+	}
+	
+	/**
+	 * burrow api를 call하는 request를 리턴하는 메소드<br>
+	 * 예외가 발생할 경우, null을 리턴한다.
+	 * @param consumer 컨슈머
+	 * @return HttpRequest 요청
+	 */
+	private HttpRequest getRequest(Consumer consumer)
+	{
+		String consumerName = consumer.getConsumerName();
+		
+		try
+		{
+			HttpRequest request = consumer.getRequest();
+			if(this.logger.isEnabled(KLogger.INFO))
+				this.logger.log(new LazyLogData(KLogger.INFO, "getRequest() success. consumerName :", consumerName));
+			return request;
+		}
+		catch(Exception e)
+		{
+			this.logger.log(new LazyLogData(KLogger.ERROR, "getRequest() fail. consumerName : ", consumerName, e));
+			consumer.getLogger().log(new LazyLogData(KLogger.ERROR, "getRequest() fail. consumerName : ", consumerName, e));
+			consumer.alert(FAIL_STATUS, "getRequest() fail.");
+			return null;
+		}
+	}
+	
+	/**
+	 * 공유 burrowClient로 request를 보내고, response를 받아와 컨슈머의 LagResponse에 담아 리턴하는 메소드<br>
+	 * 받아온 response는 isRawLog이면 컨슈머 로그에 그대로 기록한다.<br>
+	 * request가 null일 경우, null을 리턴한다.
+	 * @param request 요청
+	 * @param consumer 컨슈머
+	 * @return LagResponse 결과
+	 */
+	private LagResponse getResponse(HttpRequest request, Consumer consumer) 
+	{
+		if(request == null)
+			return null;
+		
+		String consumerName = consumer.getConsumerName();
+		
+		try
+		{
+			byte[] body = this.burrowClient.send(request);
+			LagResponse response = consumer.getLagResponse();
+			
+			if(this.isStreamParse)
+				consumer.getParser().parse(body, response);
+			else
+				this.readJson((JSONObject) new JSONParser().parse(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)), response);
+			
+			if(this.logger.isEnabled(KLogger.INFO))
+				this.logger.log(new LazyLogData(KLogger.INFO, "getResponse() success. consumerName :", consumerName));
+			if(this.isRawLog && consumer.getLogger().isEnabled(KLogger.INFO))
+				consumer.getLogger().log(new LazyLogData(KLogger.INFO, new String(body, StandardCharsets.UTF_8)));
+			return response;
+		}
+		catch(InterruptedException e)
+		{
+			// 종료 요청이나 timeout으로 취소된 call. 실패 알림은 보내지 않고 interrupt 상태를 되돌린다.
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch(Exception e)
+		{
+			this.logger.log(new LazyLogData(KLogger.ERROR, "getResponse() fail. consumerName : ", consumerName, e));
+			consumer.getLogger().log(new LazyLogData(KLogger.ERROR, "getResponse() fail. consumerName : ", consumerName, e));
+			consumer.alert(FAIL_STATUS, "getResponse() fail.");
+			return null;
 		}
 	}
 	
 	/**
-	 * burrow api를 call하는 request를 리턴하는 메소드<br>
-	 * 예외가 발생할 경우, null을 리턴한다.
-	 * @param consumerName 컨슈머명
-	 * @return HttpURLConnection 커넥션
+	 * 마지막 알림 이후 status가 바뀐 partition을 모아서 알림 1건으로 보내는 메소드
+	 * @param consumer 컨슈머
+	 * @param partitionStore 컨슈머의 PartitionStore
 	 */
-	private HttpURLConnection getRequest(String consumerName)
+	private void alertPartitions(Consumer consumer, PartitionStore partitionStore)
 	{
-		try
-		{
-			URL url = new URL(this.getConsumerByName(consumerName).getUrl());
-			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-			connection.setConnectTimeout(3000);
-			connection.setUseCaches(false);
-			connection.setRequestMethod("GET");
-			this.logger.log(new LogData(KLogger.INFO, "getRequest() success. consumerName :", consumerName));
-			return connection;
-		}
-		catch(Exception e)
+		StringBuilder changed = null;
+		boolean isWarnOnly = true;
+		
+		for(PartitionInfo partitionInfo : partitionStore)
 		{
-			this.logger.log(new LogData(KLogger.ERROR, "getRequest() fail. consumerName : ", consumerName, e));
-			this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.ERROR, "getRequest() fail. consumerName : ", consumerName, e));
-			this.getConsumerByName(consumerName).sendTelegramMsg("ERROR", "getRequest() fail.");
-			return null;
+			if(!partitionInfo.updateAlertStatus())
+				continue;
+			
+			if(changed == null)
+				changed = new StringBuilder("partition status changed");
+			
+			String status = partitionInfo.getStatus() == null ? "OK" : partitionInfo.getStatus();
+			changed.append(", ").append(partitionInfo.getName()).append(" : ").append(status);
+			if(!"OK".equals(status) && !"WARN".equals(status))
+				isWarnOnly = false;
 		}
+		
+		if(changed != null)
+			consumer.sendLimitedAlert(isWarnOnly ? "WARN" : "ERROR", changed.toString(), System.currentTimeMillis(), true);
 	}
 	
 	/**
-	 * connection으로 부터, response를 받아와 json으로 리턴하는 메소드<br>
-	 * connection이 null일 경우, null을 리턴한다.
-	 * @param connection 커넥션
-	 * @param consumerName 컨슈머명
-	 * @return JSONObject 결과
+	 * json-simple로 파싱한 burrow 응답에서 필요한 값을 LagResponse에 담는 메소드
+	 * @param json burrow api를 콜한 결과값
+	 * @param response 값을 담을 LagResponse
 	 */
-	private JSONObject getResponse(HttpURLConnection connection, String consumerName) 
+	private void readJson(JSONObject json, LagResponse response)
 	{
-		if(connection == null)
-			return null;
+		response.reset();
+		response.setError(Boolean.TRUE.equals(json.get("error")));
+		response.setMessage((String) json.get("message"));
 		
-		StringBuffer result = new StringBuffer();
-		JSONParser parser = new JSONParser();
+		JSONObject statusJson = (JSONObject) json.get("status");
+		if(statusJson == null)
+			return;
 		
-		try
-		{
-			BufferedReader bf = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-			String inputLine = null;
+		response.setStatus((String) statusJson.get("status"));
+		response.setCluster((String) statusJson.get("cluster"));
+		response.setGroup((String) statusJson.get("group"));
 		
-			while((inputLine = bf.readLine()) != null)
-			{
-				result.append(inputLine);
-			}
-			bf.close();
-			
-			this.logger.log(new LogData(KLogger.INFO, "getResponse() success. consumerName :", consumerName));
-			return (JSONObject) parser.parse(result.toString());
-		}
-		catch(Exception e)
+		Long totalLag = (Long) statusJson.get("totallag");
+		response.setTotalLag(totalLag == null ? -9L : totalLag);
+		
+		JSONArray partitions = (JSONArray) statusJson.get("partitions");
+		JSONObject tempPartition = null;
+		Long partition = null;
+		Long currentLag = null;
+		
+		for(int i = 0; partitions != null && i < partitions.size(); i++)
 		{
-			this.logger.log(new LogData(KLogger.ERROR, "getResponse() fail. consumerName : ", consumerName, e));
-			this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.ERROR, "getResponse() fail. consumerName : ", consumerName, e));
-			this.getConsumerByName(consumerName).sendTelegramMsg("ERROR", "getResponse() fail.");
-			return null;
+			tempPartition = (JSONObject) partitions.get(i);
+			partition = (Long) tempPartition.get("partition");
+			currentLag = (Long) tempPartition.get("current_lag");
+			response.addPartition((String) tempPartition.get("topic"), partition == null ? -9L : partition, currentLag == null ? -9L : currentLag, 
+					(String) tempPartition.get("status"));
 		}
 	}
 	
 	/**
-	 * json값을 파싱하여 로그 기록, 텔레그램 전송하는 메소드
-	 * @param json burrow api를 콜한 결과값
-	 * @param consumerName 컨슈머명
+	 * burrow 응답값으로 로그 기록, 텔레그램 전송하는 메소드<br>
+	 * delta 로그이면 마지막으로 기록한 뒤 lag(deltaThreshold 초과)이나 status가 바뀐 partition만 기록한다.<br>
+	 * 컨슈머 status가 바뀌었거나, partition이 추가/제거되었거나, keyframeInterval번째 sample이면 모든 partition을 기록(keyframe)하므로
+	 * 마지막 keyframe과 이후 delta로 모든 partition의 lag을 복원할 수 있다.
+	 * @param response burrow api를 콜한 결과값
+	 * @param consumer 컨슈머
 	 */
-	private void parseJson(JSONObject json, String consumerName)
+	private void parseJson(LagResponse response, Consumer consumer)
 	{
+		String consumerName = consumer.getConsumerName();
 		StringBuilder result = null;
 		try
 		{
-			Boolean error = (Boolean) json.get("error");
-			String errmsg = null;
-			
 			// burrow error
-			if(error)
+			if(response.isError())
 			{
-				errmsg = (String) json.get("message");
-				this.logger.log(new LogData(KLogger.ERROR, "Burrow ERROR! consumerName : ", consumerName, ", errorMsg : ", errmsg, ", resultJson : ", json));
-				this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.ERROR, "Burrow ERROR! errorMsg :", errmsg, ", resultJson :", json));
-				this.getConsumerByName(consumerName).sendTelegramMsg("ERROR", 
-						new StringBuilder("Burrow ERROR! errorMsg : ").append(errmsg).append(", resultJson : ").append(json).toString());
+				String errmsg = response.getMessage();
+				this.logger.log(new LazyLogData(KLogger.ERROR, "Burrow ERROR! consumerName : ", consumerName, ", errorMsg : ", errmsg));
+				consumer.getLogger().log(new LazyLogData(KLogger.ERROR, "Burrow ERROR! errorMsg :", errmsg));
+				consumer.alert(FAIL_STATUS, new StringBuilder("Burrow ERROR! errorMsg : ").append(errmsg).toString());
+				return;
 			}
 			
 			// consumer error
-			JSONObject statusJson = (JSONObject) json.get("status");
-			String status = (String) statusJson.get("status");
-			String cluster = (String) statusJson.get("cluster");
-			String group = (String) statusJson.get("group");
-			Long totalLag = (Long) statusJson.get("totallag");
+			String status = response.getStatus();
+			String cluster = response.getCluster();
+			String group = response.getGroup();
+			long totalLag = response.getTotalLag();
 
-			// consumer lag check
-			JSONArray partitions = (JSONArray) statusJson.get("partitions");
-			JSONObject tempPartition = null;
-			String topic = null;
-			Long partition = -9L;
-			Long currentLag = -9L;
-			
-			for(int i = 0; i < partitions.size(); i++)
-			{
-				tempPartition = (JSONObject) partitions.get(i);
-				topic = (String) tempPartition.get("topic");
-				partition = (Long) tempPartition.get("partition");
-				currentLag = (Long) tempPartition.get("current_lag");
-				
-				// 처음 parseJson이 호출될때 실행됨.
-				if(this.getConsumerByName(consumerName).getPartionList().size() < partitions.size())
-				{	
-					PartitionInfo partitionInfo = new PartitionInfo(topic, partition);
-					this.getConsumerByName(consumerName).getPartionList().add(partitionInfo);
-				}
-				
-				// lag 변경
-				for(PartitionInfo partitionInfo : this.getConsumerByName(consumerName).getPartionList())
+			// consumer lag check. 응답에 없는 partition은 endSample()에서 제거된다.
+			PartitionStore partitionStore = consumer.getPartitionStore();
+			int partitionCount = response.getPartitionCount();
+			
+			// 변경은 getLagSeries()의 조회와 겹치지 않도록 lock을 잡고 한다. 아래의 순회는 이 poll thread만 변경하므로 lock 없이 한다.
+			long sampleTime = System.currentTimeMillis();
+			synchronized(partitionStore)
+			{
+				partitionStore.beginSample(sampleTime);
+				for(int i = 0; i < partitionCount; i++)
 				{
-					if(partitionInfo.getTopicName().equals(topic) && partitionInfo.getPartition() == partition)
-					{
-						partitionInfo.setLag(currentLag);
-						break;
-					}
+					partitionStore.update(response.getTopic(i), response.getPartition(i), response.getLag(i), response.getPartitionStatus(i));
 				}
+				partitionStore.endSample();
 			}
 			
+			if(consumer.getTotalLagSeries() != null)
+				consumer.getTotalLagSeries().add(sampleTime, totalLag);
+			
+			if(this.isAdaptivePoll)
+				consumer.updatePollSchedule(status, sampleTime);
+			
+			if(consumer.getHistoryWriter() != null)
+				this.writeHistory(response, consumer, sampleTime);
+			
+			if(this.isPartitionAlert && consumer.isUseTelegram())
+				this.alertPartitions(consumer, partitionStore);
+			
+			// OK, STALL은 INFO 로그만 남기므로, INFO가 꺼져 있으면 메세지를 만들지 않는다.
+			boolean isOk = AlertState.isNormal(status);
+			
+			// 비정상에서 정상이 되었으면 회복 알림을 보낸다.
+			if(isOk && consumer.isUseTelegram())
+				consumer.alert(status, new StringBuilder("status : ").append(status).append(", totalLag : ").append(totalLag).toString());
+			
+			if(isOk && !this.logger.isEnabled(KLogger.INFO) && !consumer.getLogger().isEnabled(KLogger.INFO))
+				return;
+			
 			result = new StringBuilder("cluster : ").append(cluster).append(", consumer : ").append(group).append(", status : ")
 					.append(status).append(", totalLag : ").append(totalLag);
 			
-			for(int i = 0; i < this.getConsumerByName(consumerName).getPartionList().size(); i++)
+			boolean isKeyframe = !this.isDeltaLog || consumer.nextKeyframe(status, partitionStore.isChanged());
+			int logged = 0;
+			
+			for(PartitionInfo partitionInfo : partitionStore)
+			{
+				if(isKeyframe || partitionInfo.isChangedSinceLogged(this.deltaThreshold))
+				{
+					partitionInfo.appendInfo(result.append(", "));
+					partitionInfo.markLogged();
+					logged++;
+				}
+			}
+			
+			if(this.isDeltaLog)
 			{
-				result.append(", ").append(this.getConsumerByName(consumerName).getPartionList().get(i).getInfo());
+				result.append(isKeyframe ? ", [full " : ", [delta ").append(logged).append("/").append(partitionStore.size()).append("]");
 			}
 			
-			if("OK".equals(status) || "STALL".equals(status))
+			String msg = result.toString();
+			if(isOk)
 			{
-				this.logger.log(new LogData(KLogger.INFO, result.toString()));
-				this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.INFO, result.toString()));
+				this.logger.log(new LazyLogData(KLogger.INFO, msg));
+				consumer.getLogger().log(new LazyLogData(KLogger.INFO, msg));
 			}
 			else if("WARN".equals(status))
 			{
-				this.logger.log(new LogData(KLogger.WARN, result.toString()));
-				this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.WARN, result.toString()));
-				this.getConsumerByName(consumerName).sendTelegramMsg("WARN", result.toString());
+				this.logger.log(new LazyLogData(KLogger.WARN, msg));
+				consumer.getLogger().log(new LazyLogData(KLogger.WARN, msg));
+				consumer.alert(status, msg);
 			}
 			else
 			{
-				this.logger.log(new LogData(KLogger.ERROR, result.toString()));
-				this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.ERROR, result.toString()));
-				this.getConsumerByName(consumerName).sendTelegramMsg("ERROR", result.toString());
+				this.logger.log(new LazyLogData(KLogger.ERROR, msg));
+				consumer.getLogger().log(new LazyLogData(KLogger.ERROR, msg));
+				consumer.alert(status, msg);
 			}
 		}
 		catch(Exception e)
 		{
 			e.printStackTrace();
-			this.logger.log(new LogData(KLogger.ERROR, "parseJson() fail", e));
-			this.getConsumerByName(consumerName).getLogger().log(new LogData(KLogger.ERROR, "parseJson() fail", e));
-			this.getConsumerByName(consumerName).sendTelegramMsg("ERROR", "parseJSON() fail.");
+			this.logger.log(new LazyLogData(KLogger.ERROR, "parseJson() fail", e));
+			consumer.getLogger().log(new LazyLogData(KLogger.ERROR, "parseJson() fail", e));
+			consumer.alert(FAIL_STATUS, "parseJSON() fail.");
+		}
+	}
+	
+	/**
+	 * burrow 응답값을 컨슈머의 lag history 파일에 기록하는 메소드<br>
+	 * 기록에 실패해도 관제는 계속하므로, 로그만 남기고 텔레그램은 보내지 않는다.
+	 * @param response burrow api를 콜한 결과값
+	 * @param consumer 컨슈머
+	 * @param sampleTime sample 시간 (epoch ms)
+	 */
+	private void writeHistory(LagResponse response, Consumer consumer, long sampleTime)
+	{
+		LagHistoryWriter historyWriter = consumer.getHistoryWriter();
+		
+		try
+		{
+			historyWriter.beginSample(sampleTime, response.getStatus(), response.getTotalLag());
+			for(int i = 0; i < response.getPartitionCount(); i++)
+			{
+				historyWriter.addPartition(response.getTopic(i), response.getPartition(i), response.getLag(i));
+			}
+			historyWriter.endSample();
 		}
+		catch(Exception e)
+		{
+			this.logger.log(new LazyLogData(KLogger.ERROR, "writeHistory() fail. consumerName : ", consumer.getConsumerName(), e));
+			consumer.getLogger().log(new LazyLogData(KLogger.ERROR, "writeHistory() fail. ", e));
+		}
+	}
+	
+	/**
+	 * 컨슈머별 burrow api call에 사용하는 executor를 리턴하는 메소드 (테스트용)
+	 * @return pollExecutor. burrow.poll.parallelism이 1 이하이면 null
+	 */
+	ExecutorService getPollExecutor()
+	{
+		return this.pollExecutor;
+	}
+	
+	/**
+	 * 가장 먼저 poll할 컨슈머의 poll 시간까지 남은 시간을 리턴하는 메소드 (adaptive poll)
+	 * @return 기다릴 시간 (ms). MIN_POLL_DELAY 이상, minCheckTime 이하
+	 */
+	private long getPollDelay()
+	{
+		long next = Long.MAX_VALUE;
+		for(Consumer consumer : this.consumerMap.values())
+			next = Math.min(next, consumer.getPollSchedule().getNextPollMillis());
+		
+		long delay = next == Long.MAX_VALUE ? this.minCheckTime : next - System.currentTimeMillis();
+		return Math.max(MIN_POLL_DELAY, Math.min(delay, this.minCheckTime));
 	}
 	
 	public void run()
 	{
-		Thread burrowLoggerThread = null;
-		Thread[] consumerLoggerThread = null;
-
 		try
 		{
-			// burrowCheck logger
-			burrowLoggerThread = new Thread(this.logger);
-			burrowLoggerThread.start();
-			this.logger.log(new LogData(KLogger.INFO, "[[BurrowCheck run]]"));
+			// burrowCheck logger. 모든 로거는 공유 LogWriterService thread 1개로 기록한다.
+			this.logger.startShared();
+			this.logger.log(new LazyLogData(KLogger.INFO, "[[BurrowCheck run]]"));
 		
 			// consumer logger
-			consumerLoggerThread = new Thread[this.consumer.length];
-			for(int i = 0; i < this.consumer.length; i++)
+			synchronized(this)
 			{
-				consumerLoggerThread[i] = new Thread(this.consumer[i].getLogger());
-				consumerLoggerThread[i].start();
-				this.consumer[i].getLogger().log(new LogData(KLogger.INFO, this.consumerName[i], "run"));
+				for(Consumer consumer : this.consumerMap.values())
+					consumer.startLogger();
+				this.isRunning = true;
 			}
 			
 			// call burrow http api
 			while(!Thread.currentThread().isInterrupted())
 			{
+				this.reloadConsumers();
+				this.discoverConsumers();
 				this.callAPI();
-				Thread.sleep(this.burrowCheckTime);
+				Thread.sleep(this.isAdaptivePoll ? this.getPollDelay() : this.burrowCheckTime);
 			}
 		}
+		catch(InterruptedException e)
+		{
+			this.logger.log(new LazyLogData(KLogger.INFO, "[[BurrowCheck stop]]"));
+		}
 		catch(Exception e)
 		{
-			this.logger.log(new LogData(KLogger.ERROR, "burrowCheck die. ", e));
+			this.logger.log(new LazyLogData(KLogger.ERROR, "burrowCheck die. ", e));
 			e.printStackTrace(System.out);
 		}
 		finally
 		{
-			for(int i = 0; i < this.consumer.length; i++)
-				this.consumer[i].getLogger().terminate();
+			if(this.pollExecutor != null)
+				this.pollExecutor.shutdownNow();
+			
+			if(this.burrowClient != null)
+				this.burrowClient.close();
+			
+			// digest에 남은 알림을 dispatcher에 넣은 뒤 dispatcher를 종료한다.
+			if(this.telegramDigest != null)
+				this.telegramDigest.shutdown();
+			
+			if(this.telegramDispatcher != null)
+				this.telegramDispatcher.shutdown();
+			
+			synchronized(this)
+			{
+				this.isRunning = false;
+				for(Consumer consumer : this.consumerMap.values())
+					consumer.remove();
+			}
 
 			this.logger.terminate();
 		}
@@ -446,19 +1480,111 @@ public class BurrowCheck implements Runnable{
 	}
 	
 	/**
-	 * consumerName에 따라 해당하는 Consumer 객체를 리턴받는 메소드<br>
-	 * null이 리턴될 경우, 해당 컨슈머가 제대로 생성되지 않았음을 나타낸다.
+	 * 프로퍼티 파일의 burrow.clusters(';'로 구분)에 설정된 클러스터명을 리턴하는 메소드<br>
+	 * 설정이 없으면 빈 배열을 리턴한다.
+	 * @param propertyPath 프로퍼티 파일의 path
+	 * @return 클러스터명 배열
+	 * @throws Exception 프로퍼티 파일을 읽지 못했을 때 발생
+	 */
+	public static String[] getClusterNames(String propertyPath) throws Exception
+	{
+		try(FileInputStream fis = new FileInputStream(propertyPath))
+		{
+			Properties p = new Properties();
+			p.load(fis);
+			
+			String clusters = p.getProperty(BURROW_CLUSTERS_KEY);
+			if(clusters == null || clusters.trim().length() == 0)
+				return new String[0];
+			
+			LinkedHashSet<String> names = new LinkedHashSet<String>();
+			for(String name : clusters.split(";"))
+			{
+				if(name.trim().length() > 0)
+					names.add(name.trim());
+			}
+			return names.toArray(new String[names.size()]);
+		}
+	}
+	
+	/**
+	 * 클러스터명을 붙인 로그 이름을 리턴하는 메소드<br>
+	 * 클러스터가 없으면 name을 그대로 리턴한다.
+	 * @param name 이름
+	 * @return 로그 이름 (clusterName.name)
+	 */
+	private String getLogName(String name)
+	{
+		return this.clusterName == null ? name : new StringBuilder(this.clusterName).append(".").append(name).toString();
+	}
+
+	/**
+	 * 프로퍼티의 콘솔 출력, 출력 방식, rolling, 보관, flush, queue 정책을 로거에 설정하는 메소드
+	 * @param logger 로거
+	 */
+	private void setLogPolicy(KLogger logger)
+	{
+		logger.setConsole(this.isConsoleLog);
+		logger.setRollingPolicy(this.logMaxFileSize, this.logMaxAge, this.logMaxTotalSize, this.isLogCompress);
+		logger.setFlushPolicy(this.logFlushPolicy, this.logFlushInterval);
+		logger.setErrorFlushPolicy(this.errorLogFlushPolicy, this.errorLogFlushInterval);
+		logger.setQueueCapacity(this.logQueueCapacity);
+		logger.setOverflowPolicy(this.logOverflowPolicy);
+		logger.setOverflowDropLevel(this.logOverflowLevel);
+		logger.setOverflowSampleRate(this.logOverflowSampleRate);
+		logger.setMappedOutput(this.logMappedSegmentSize);
+	}
+
+	/**
+	 * 컨슈머 그룹 전체 lag의 최근 기록을 리턴하는 메소드
 	 * @param consumerName 컨슈머명
-	 * @return Consumer 컨슈머 객체
+	 * @return LagSeries 기록. 컨슈머가 없거나 기록하지 않으면 null
+	 */
+	public LagSeries getTotalLagSeries(String consumerName)
+	{
+		Consumer consumer = this.getConsumerByName(consumerName);
+		return consumer == null ? null : consumer.getTotalLagSeries();
+	}
+	
+	/**
+	 * partition lag의 최근 기록을 리턴하는 메소드<br>
+	 * poll thread에서 partition이 추가/제거될 수 있으므로, PartitionStore로 synchronized하고 찾은 뒤 받은 LagSeries만 조회에 사용한다.
+	 * @param consumerName 컨슈머명
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @return LagSeries 기록. 컨슈머나 partition이 없거나 기록하지 않으면 null
 	 */
-	private Consumer getConsumerByName(String consumerName)
+	public LagSeries getLagSeries(String consumerName, String topic, long partition)
 	{
-		for(int i = 0; i < this.consumer.length; i++)
+		Consumer consumer = this.getConsumerByName(consumerName);
+		if(consumer == null)
+			return null;
+		
+		synchronized(consumer.getPartitionStore())
 		{
-			if(this.consumer[i].getConsumerName().equals(consumerName))
-				return this.consumer[i];
+			PartitionInfo partitionInfo = consumer.getPartitionStore().get(topic, partition);
+			return partitionInfo == null ? null : partitionInfo.getLagSeries();
 		}
-		return null;
+	}
+	
+	/**
+	 * 관제하는 클러스터명을 리턴하는 메소드
+	 * @return clusterName 클러스터명. 없으면 null
+	 */
+	public String getClusterName()
+	{
+		return this.clusterName;
+	}
+	
+	/**
+	 * consumerName에 따라 해당하는 Consumer 객체를 리턴받는 메소드<br>
+	 * null이 리턴될 경우, 해당 컨슈머가 등록되지 않았음을 나타낸다.
+	 * @param consumerName 컨슈머명
+	 * @return Consumer 컨슈머 객체
+	 */
+	protected Consumer getConsumerByName(String consumerName)
+	{
+		return this.consumerMap.get(consumerName);
 	}
 	
 	class Consumer {
@@ -474,6 +1600,9 @@ public class BurrowCheck implements Runnable{
 		/** 호출할 burrow http api */
 		private String consumerUrl;
 		
+		/** consumerUrl로 만든 burrow 요청. 불변이므로 재사용한다. */
+		private HttpRequest request;
+		
 		/** telegram bot use yn*/
 		private boolean isUseTelegram;
 		
@@ -483,8 +1612,51 @@ public class BurrowCheck implements Runnable{
 		/** telegram chatId */
 		private String[] telegramChatId;
 		
-		/** partition별 lag을 기록하는 list*/
-		private List<PartitionInfo> partitionList;
+		/** 알림 상태. status가 바뀔 때만 알린다. */
+		private AlertState alertState;
+		
+		/** 컨슈머별 알림 제한 */
+		private TokenBucket alertBucket;
+		
+		/** 제한 때문에 보내지 못한 알림 수. 다음 알림에 붙여서 보낸다. */
+		private int suppressedCount;
+		
+		/** partition별 lag을 기록하는 store */
+		private PartitionStore partitionStore;
+		
+		/** 컨슈머 그룹 전체 lag의 최근 기록. historySize가 0이면 null */
+		private LagSeries totalLagSeries;
+		
+		/** burrow 응답값을 담는 객체. poll마다 재사용한다. */
+		private LagResponse lagResponse;
+		
+		/** burrow 응답 파서 */
+		private BurrowLagParser parser;
+		
+		/** lag history 파일 writer. isHistoryFile이 false이면 null */
+		private LagHistoryWriter historyWriter;
+		
+		/** 마지막 keyframe 이후의 sample 수 (delta 로그) */
+		private int samplesSinceKeyframe;
+		
+		/** 마지막 sample의 컨슈머 status (delta 로그) */
+		private String lastStatus;
+		
+		/** burrow api를 call하는 중인지 여부. 로거를 종료한 뒤에는 계속 true로 둔다. */
+		private final AtomicBoolean isPolling = new AtomicBoolean(false);
+		
+		/** 제거된 컨슈머인지 여부 */
+		private volatile boolean isRemoved;
+		
+		/** stopLogger()를 호출했는지 여부 */
+		private volatile boolean isStopped;
+		
+		/** 컨슈머별 poll 간격 */
+		private PollSchedule pollSchedule;
+		
+		/** lag 증가를 확인할 때 사용하는 sample 배열. poll thread에서만 사용한다. */
+		private long[] growthTimes;
+		private long[] growthLags;
 		
 		/**
 		 * Consumer 생성자<br>
@@ -496,7 +1668,14 @@ public class BurrowCheck implements Runnable{
 		Consumer(String consumerName, Map<String, String> map) throws Exception
 		{
 			this.consumerName = consumerName;
-			this.partitionList = new LinkedList<PartitionInfo>();
+			this.partitionStore = new PartitionStore(BurrowCheck.this.historySize);
+			this.totalLagSeries = BurrowCheck.this.historySize > 0 ? new LagSeries(BurrowCheck.this.historySize) : null;
+			this.lagResponse = new LagResponse();
+			this.parser = new BurrowLagParser();
+			this.pollSchedule = new PollSchedule(BurrowCheck.this.minCheckTime, BurrowCheck.this.burrowCheckTime, 
+					BurrowCheck.this.maxCheckTime, BurrowCheck.this.checkRelaxAfter);
+			this.growthTimes = new long[LAG_GROWTH_SAMPLES];
+			this.growthLags = new long[LAG_GROWTH_SAMPLES];
 			this.setConfig(map);
 		}
 		
@@ -517,21 +1696,33 @@ public class BurrowCheck implements Runnable{
 				this.logPath = map.getOrDefault(BurrowCheck.LOG_PATH_KEY, "./");
 				
 				// set logger for consumer
-				this.consumerLogger = new KLogger(this.consumerName, this.logPath, KLogger.INFO);
-				this.consumerLogger.setErrorLog(true, this.consumerName + ".error.log");
+				String loggerName = BurrowCheck.this.getLogName(this.consumerName);
+				this.consumerLogger = new KLogger(loggerName, this.logPath, BurrowCheck.this.logLevel);
+				this.consumerLogger.setErrorLog(true, loggerName + ".error.log");
+				BurrowCheck.this.setLogPolicy(this.consumerLogger);
+				
+				// lag history file
+				if(BurrowCheck.this.isHistoryFile)
+					this.historyWriter = new LagHistoryWriter(BurrowCheck.this.historyPath, loggerName);
 				
 				// burrow url
 				consumerUrl = new StringBuilder("http://").append(map.get(BURROW_IP_KEY)).append(":")
 						.append(map.get(BURROW_PORT_NUM_KEY)).append(map.get(BURROW_CALL_URL_KEY)).append(this.consumerName).append("/lag").toString();
+				this.request = BurrowCheck.this.burrowClient.newRequest(consumerUrl);
 				
 				// telegram configs
 				try
 				{
 					this.telegramToken = map.get(TELEGRAM_TOKEN).trim();
-					this.telegramChatId = map.get(new StringBuilder(this.consumerName.toUpperCase()).append(".").append(TELEGRAM_CHAT_ID).toString()).trim().split(";");
+					// 컨슈머별 chat id가 없으면 공통 chat id(telegram.chat.id)를 사용한다.
+					this.telegramChatId = map.getOrDefault(new StringBuilder(this.consumerName.toUpperCase()).append(".").append(TELEGRAM_CHAT_ID).toString(), 
+							map.get(TELEGRAM_CHAT_ID)).trim().split(";");
 				
 					if(this.telegramToken != null && this.telegramChatId != null)
 						this.isUseTelegram = true;
+					
+					this.alertState = new AlertState(BurrowCheck.this.alertRemindIntervals);
+					this.alertBucket = new TokenBucket(BurrowCheck.this.alertGroupLimit, BurrowCheck.this.alertGroupRefill);
 				}
 				catch(Exception e)
 				{
@@ -544,9 +1735,79 @@ public class BurrowCheck implements Runnable{
 			}
 		}
 		
+		/**
+		 * 이번 status로 보낼 알림이 있으면 텔레그램 메세지를 보내고, 보냈을 때만 알림 상태를 바꾸는 메소드<br>
+		 * 정상에서 비정상이 되었거나 비정상 status가 바뀌면 알리고, 같은 비정상 status가 계속되면 remind 간격마다, 정상이 되면 회복을 알린다.<br>
+		 * 알림 제한에 걸려 보내지 못한 알림은 상태를 바꾸지 않으므로, 다음 poll에서 다시 보낸다.
+		 * @param status 컨슈머 status. 요청, 응답 처리 실패는 FAIL_STATUS
+		 * @param msg 메세지
+		 */
+		protected void alert(String status, String msg)
+		{
+			if(!this.isUseTelegram)
+				return;
+			
+			long now = System.currentTimeMillis();
+			int result = this.alertState.check(status, now);
+			boolean isSent = false;
+			
+			if(result == AlertState.ALERT)
+			{
+				isSent = this.sendLimitedAlert("WARN".equals(status) ? "WARN" : "ERROR", msg, now, false);
+			}
+			else if(result == AlertState.REMIND)
+			{
+				long minutes = (now - this.alertState.getSince()) / 60000;
+				isSent = this.sendLimitedAlert("WARN".equals(status) ? "WARN" : "ERROR", new StringBuilder("[REMIND] ").append(status).append(" for ")
+						.append(minutes).append(" min. ").append(msg).toString(), now, false);
+			}
+			else if(result == AlertState.RECOVER)
+			{
+				isSent = this.sendLimitedAlert("RECOVER", msg, now, false);
+			}
+			
+			if(isSent)
+				this.alertState.update(status, now);
+		}
+		
+		/**
+		 * 컨슈머별, 전체 알림 제한(TokenBucket)을 확인하고 텔레그램 메세지를 보내는 메소드<br>
+		 * 두 제한에 모두 token이 있을 때만 둘 다 사용하고 보낸다. 한쪽이라도 걸리면 어느 token도 사용하지 않는다.<br>
+		 * 다시 보내지 않는 알림(isCounted)은 제한에 걸리면 수를 세었다가, 다음에 보내는 메세지에 붙인다.
+		 * @param logLevel 로그 레벨
+		 * @param msg 메세지
+		 * @param now 현재 시간 (epoch ms)
+		 * @param isCounted 제한에 걸렸을 때 버린 알림으로 셀지 여부. 다음 poll에서 다시 보내는 알림은 false
+		 * @return 보냈으면 true
+		 */
+		protected synchronized boolean sendLimitedAlert(String logLevel, String msg, long now, boolean isCounted)
+		{
+			if(!TokenBucket.tryAcquire(this.alertBucket, BurrowCheck.this.alertBucket, now))
+			{
+				if(isCounted)
+				{
+					this.suppressedCount++;
+					this.consumerLogger.log(new LazyLogData(KLogger.WARN, "telegram alert suppressed by rate limit. level :", logLevel));
+				}
+				else
+					this.consumerLogger.log(new LazyLogData(KLogger.INFO, "telegram alert delayed by rate limit. level :", logLevel));
+				return false;
+			}
+			
+			if(this.suppressedCount > 0)
+			{
+				msg = new StringBuilder(msg).append(" (suppressed alerts : ").append(this.suppressedCount).append(")").toString();
+				this.suppressedCount = 0;
+			}
+			this.sendTelegramMsg(logLevel, msg);
+			return true;
+		}
+		
 		/**
 		 * 유저별 텔레그램 메세지를 전송하는 메소드.<br>
-		 * 컨슈머에 등록된 유저들에게 텔레그램 메세지를 보냄.
+		 * 컨슈머에 등록된 유저들에게 보낼 텔레그램 메세지를 TelegramDispatcher의 queue에 넣는다. 전송은 기다리지 않는다.<br>
+		 * telegram.digest.window가 설정되어 있으면 TelegramDigest에 모았다가 window마다 chat id별로 합쳐서 보낸다.<br>
+		 * ERROR 메세지는 WARN 메세지보다 먼저 보낸다.
 		 * @param logLevel 로그 레벨
 		 * @param msg 메세지
 		 */
@@ -554,14 +1815,134 @@ public class BurrowCheck implements Runnable{
 		{
 			if(this.isUseTelegram)
 			{
-				Telegram telegram = null;
+				String text = new StringBuilder("[").append(BurrowCheck.this.getLogName(this.consumerName))
+						.append("] [").append(logLevel).append("] ").append(msg).toString();
+				int priority = "ERROR".equals(logLevel) ? TelegramDispatcher.PRIORITY_ERROR : TelegramDispatcher.PRIORITY_WARN;
+				
 				for(int i = 0; i < this.telegramChatId.length; i++)
 				{
-					telegram = new Telegram(this.telegramToken, this.telegramChatId[i], new StringBuilder("[").append(this.consumerName)
-							.append("] [").append(logLevel).append("] ").append(msg).toString());
-					telegram.sendMessage();
+					if(BurrowCheck.this.telegramDigest != null)
+						BurrowCheck.this.telegramDigest.add(this.telegramToken, this.telegramChatId[i], text, priority);
+					else if(!BurrowCheck.this.telegramDispatcher.send(this.telegramToken, this.telegramChatId[i], text, priority))
+						this.consumerLogger.log(new LazyLogData(KLogger.WARN, "telegram queue full. message dropped. chatId :", this.telegramChatId[i]));
+				}
+			}
+		}
+		
+		/**
+		 * 컨슈머 로거를 공유 LogWriterService에 등록하는 메소드
+		 */
+		protected void startLogger()
+		{
+			this.consumerLogger.startShared();
+			this.consumerLogger.log(new LazyLogData(KLogger.INFO, this.consumerName, "run"));
+		}
+		
+		/**
+		 * 컨슈머 로거를 종료하는 메소드<br>
+		 * lag history 파일도 닫는다.
+		 */
+		protected void stopLogger()
+		{
+			if(this.historyWriter != null)
+			{
+				try
+				{
+					this.historyWriter.close();
+				}
+				catch(Exception e)
+				{
+					this.consumerLogger.log(new LazyLogData(KLogger.ERROR, "historyWriter close fail. ", e));
 				}
 			}
+			this.consumerLogger.terminate();
+			this.isStopped = true;
+		}
+		
+		/**
+		 * 컨슈머를 제거된 상태로 표시하고, 진행 중인 call이 없으면 로거를 종료하는 메소드<br>
+		 * call 중이라면 call이 끝날 때 endPoll()에서 종료한다. 로거를 종료한 뒤에는 startPoll()이 항상 false를 리턴한다.
+		 */
+		protected void remove()
+		{
+			this.isRemoved = true;
+			if(this.isPolling.compareAndSet(false, true))
+				this.stopLogger();
+		}
+		
+		/**
+		 * 로거를 종료했고 로그 파일까지 닫혔는지 리턴하는 메소드
+		 * @return 종료 여부
+		 */
+		protected boolean isStopped()
+		{
+			return this.isStopped && this.consumerLogger.isClosed();
+		}
+		
+		/**
+		 * 이번 sample을 keyframe(모든 partition 기록)으로 기록할지 리턴하는 메소드<br>
+		 * 첫 sample, 컨슈머 status가 바뀐 경우, partition이 추가/제거된 경우, keyframeInterval번째 sample이면 true를 리턴한다.
+		 * @param status 이번 sample의 컨슈머 status
+		 * @param isPartitionChanged partition 추가/제거 여부
+		 * @return keyframe 여부
+		 */
+		protected boolean nextKeyframe(String status, boolean isPartitionChanged)
+		{
+			boolean isStatusChanged = status == null ? this.lastStatus != null : !status.equals(this.lastStatus);
+			boolean isKeyframe = this.samplesSinceKeyframe == 0 || isStatusChanged || isPartitionChanged 
+					|| this.samplesSinceKeyframe >= BurrowCheck.this.keyframeInterval;
+			
+			this.lastStatus = status;
+			this.samplesSinceKeyframe = isKeyframe ? 1 : this.samplesSinceKeyframe + 1;
+			return isKeyframe;
+		}
+		
+		/**
+		 * burrow api call 시작을 표시하는 메소드<br>
+		 * 이미 call 중이라면 false를 리턴한다.
+		 * @return 시작 가능 여부
+		 */
+		protected boolean startPoll()
+		{
+			return this.isPolling.compareAndSet(false, true);
+		}
+		
+		/**
+		 * burrow api call 종료를 표시하는 메소드<br>
+		 * call 중에 remove()되었으면 로거를 종료한다.
+		 */
+		protected void endPoll()
+		{
+			this.isPolling.set(false);
+			
+			// remove()와 동시에 호출되어도 isPolling을 다시 잡은 쪽만 종료하므로 한 번만 종료한다.
+			if(this.isRemoved && this.isPolling.compareAndSet(false, true))
+				this.stopLogger();
+		}
+		
+		/**
+		 * 컨슈머 poll 간격을 리턴하는 메소드
+		 * @return pollSchedule
+		 */
+		protected PollSchedule getPollSchedule()
+		{
+			return this.pollSchedule;
+		}
+		
+		/**
+		 * 이번 status와 최근 lag 추이로 다음 poll 간격을 정하는 메소드. 간격이 바뀌면 로그를 남긴다.
+		 * @param status 컨슈머 status
+		 * @param now sample 시간 (epoch ms)
+		 */
+		protected void updatePollSchedule(String status, long now)
+		{
+			boolean isLagGrowing = PollSchedule.isLagGrowing(this.totalLagSeries, LAG_GROWTH_SAMPLES, BurrowCheck.this.checkLagGrowth, 
+					this.growthTimes, this.growthLags);
+			long before = this.pollSchedule.getInterval();
+			long after = this.pollSchedule.update(status, isLagGrowing, now);
+			
+			if(before != after)
+				this.consumerLogger.log(new LazyLogData(KLogger.INFO, "poll interval changed.", before, "ms ->", after, "ms, status :", status, ", lagGrowing :", isLagGrowing));
 		}
 		
 		/**
@@ -588,6 +1969,14 @@ public class BurrowCheck implements Runnable{
 		{
 			return this.consumerUrl;
 		}
+		/**
+		 * burrow api 요청을 리턴하는 메소드
+		 * @return request burrow api 요청
+		 */
+		protected HttpRequest getRequest()
+		{
+			return this.request;
+		}
 		/**
 		 * Telegram bot의 사용유무를 리턴하는 메소드
 		 * @return isUseTelegram 텔레그램 사용여부
@@ -598,12 +1987,48 @@ public class BurrowCheck implements Runnable{
 		}
 		
 		/**
-		 * partitionList를 리턴하는 메소드
-		 * @return partitionList 구독하는 토픽들이 담긴 리스트
+		 * 컨슈머 그룹 전체 lag의 최근 기록을 리턴하는 메소드
+		 * @return totalLagSeries 기록. 기록하지 않으면 null
+		 */
+		protected LagSeries getTotalLagSeries()
+		{
+			return this.totalLagSeries;
+		}
+		
+		/**
+		 * burrow 응답값을 담는 LagResponse를 리턴하는 메소드
+		 * @return lagResponse 응답값
+		 */
+		protected LagResponse getLagResponse()
+		{
+			return this.lagResponse;
+		}
+		
+		/**
+		 * burrow 응답 파서를 리턴하는 메소드
+		 * @return parser 파서
+		 */
+		protected BurrowLagParser getParser()
+		{
+			return this.parser;
+		}
+		
+		/**
+		 * lag history 파일 writer를 리턴하는 메소드
+		 * @return historyWriter writer. 기록하지 않으면 null
+		 */
+		protected LagHistoryWriter getHistoryWriter()
+		{
+			return this.historyWriter;
+		}
+		
+		/**
+		 * partitionStore를 리턴하는 메소드
+		 * @return partitionStore 구독하는 토픽들의 partition이 담긴 store
 		 */
-		protected List<PartitionInfo> getPartionList()
+		protected PartitionStore getPartitionStore()
 		{
-			return this.partitionList;
+			return this.partitionStore;
 		}
 	}
 }
\ No newline at end of file
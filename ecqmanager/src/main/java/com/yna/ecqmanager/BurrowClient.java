@@ -0,0 +1,136 @@
+package com.yna.ecqmanager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * burrow http api를 call하는 클래스<br>
+ * 하나의 HttpClient를 모든 Consumer가 공유하여, keep-alive 커넥션을 재사용한다.<br>
+ * 응답을 기다리는 요청 수는 poolSize로 제한한다. timeout이나 interrupt로 기다림을 멈춘 요청은 cancel하고 permit을 돌려준다.<br>
+ * Java 11의 HttpClient는 cancel(true)로 진행 중인 exchange를 중단하지 않는다. 포기한 요청의 커넥션은 HttpClient가 요청 timeout(readTimeout)으로 끝낼 때까지 남아 있으므로,
+ * 커넥션 수는 그 동안 poolSize를 넘을 수 있다.
+ */
+public class BurrowClient {
+
+	/** 공유 HttpClient */
+	private HttpClient httpClient;
+
+	/** HttpClient가 사용하는 executor */
+	private ExecutorService executor;
+
+	/** 동시 요청 수를 제한하는 semaphore */
+	private Semaphore permits;
+
+	/** 요청 1건의 응답을 기다리는 시간 (ms) */
+	private int readTimeout;
+
+	/**
+	 * BurrowClient 생성자
+	 * @param connectTimeout connect timeout (ms)
+	 * @param readTimeout 응답 timeout (ms). 응답 body를 다 받을 때까지의 시간이다.
+	 * @param poolSize 동시 요청 (커넥션) 수 제한
+	 */
+	public BurrowClient(int connectTimeout, int readTimeout, int poolSize)
+	{
+		if(connectTimeout <= 0 || readTimeout <= 0 || poolSize <= 0)
+			throw new IllegalArgumentException();
+
+		AtomicInteger threadNum = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(poolSize, r -> {
+			Thread thread = new Thread(r, "burrow-http-" + threadNum.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofMillis(connectTimeout))
+				.executor(this.executor)
+				.build();
+		this.permits = new Semaphore(poolSize, true);
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * url로 GET 요청을 만드는 메소드<br>
+	 * HttpRequest는 불변이므로 컨슈머별로 한 번 만들어 재사용한다.
+	 * @param url 호출할 url
+	 * @return HttpRequest 요청
+	 */
+	public HttpRequest newRequest(String url)
+	{
+		return HttpRequest.newBuilder(URI.create(url))
+				.timeout(Duration.ofMillis(this.readTimeout))
+				.GET()
+				.build();
+	}
+
+	/**
+	 * 요청을 보내고 응답 body를 리턴하는 메소드<br>
+	 * readTimeout 안에 body까지 다 받지 못하면 요청을 cancel하고 TimeoutException이 발생한다. interrupt되어도 요청을 cancel한다.<br>
+	 * 요청이 실패하면 ExecutionException이 아닌 원래 예외(ConnectException, HttpTimeoutException 등)가 발생한다.
+	 * @param request 요청
+	 * @return byte[] 응답 body
+	 * @throws Exception 요청 실패, timeout, 200이 아닌 응답일 때 발생
+	 * @throws InterruptedException 응답을 기다리는 중에 interrupt되었을 때 발생
+	 */
+	public byte[] send(HttpRequest request) throws Exception
+	{
+		long deadline = System.currentTimeMillis() + this.readTimeout;
+
+		if(!this.permits.tryAcquire(this.readTimeout, TimeUnit.MILLISECONDS))
+			throw new TimeoutException("no free connection. url : " + request.uri());
+
+		try
+		{
+			CompletableFuture<HttpResponse<byte[]>> future = this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+			HttpResponse<byte[]> response = null;
+
+			try
+			{
+				response = future.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			}
+			catch(TimeoutException e)
+			{
+				future.cancel(true);
+				throw new TimeoutException("response timeout. url : " + request.uri());
+			}
+			catch(InterruptedException e)
+			{
+				future.cancel(true);
+				throw e;
+			}
+			catch(ExecutionException e)
+			{
+				throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			}
+
+			if(response.statusCode() != 200)
+				throw new Exception("http status : " + response.statusCode() + ", url : " + request.uri());
+
+			return response.body();
+		}
+		finally
+		{
+			this.permits.release();
+		}
+	}
+
+	/**
+	 * HttpClient가 사용하는 thread를 정리하는 메소드
+	 */
+	public void close()
+	{
+		this.executor.shutdownNow();
+	}
+}
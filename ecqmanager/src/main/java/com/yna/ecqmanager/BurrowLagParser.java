@@ -0,0 +1,573 @@
+package com.yna.ecqmanager;
+
+import org.json.simple.parser.ParseException;
+
+/**
+ * burrow /lag 응답 body를 한 번만 읽으면서, 필요한 값만 LagResponse에 담는 파서<br>
+ * json 객체 트리를 만들지 않고, partition, current_lag 같은 숫자는 boxing 없이 long으로 읽는다.<br>
+ * topic명 같은 문자열은 직전 응답의 값과 같으면 기존 String을 재사용한다.<br>
+ * thread-safe하지 않으므로 컨슈머별로 1개씩 사용한다.
+ */
+public class BurrowLagParser {
+
+	/** 값이 없을 때 사용하는 기본값. (기존 parseJson과 동일) */
+	private static final long NO_VALUE = -9L;
+
+	/** 파싱 중인 body */
+	private byte[] buf;
+
+	/** 현재 읽는 위치 */
+	private int pos;
+
+	/** body의 끝 */
+	private int end;
+
+	/** 문자열을 디코딩할 때 사용하는 버퍼 */
+	private char[] chars;
+
+	/** chars에 담긴 문자 수 */
+	private int charLen;
+
+	/** 값을 담을 LagResponse */
+	private LagResponse out;
+
+	/** 직전 응답의 값. 같은 값이면 String을 재사용한다. */
+	private String prevStatus;
+	private String prevCluster;
+	private String prevGroup;
+
+	/**
+	 * BurrowLagParser 생성자
+	 */
+	public BurrowLagParser()
+	{
+		this.chars = new char[64];
+	}
+
+	/**
+	 * burrow /lag 응답 body를 파싱하여 out에 담는 메소드
+	 * @param body 응답 body (UTF-8)
+	 * @param out 값을 담을 LagResponse
+	 * @throws ParseException json 형식이 아닐 때 발생
+	 */
+	public void parse(byte[] body, LagResponse out) throws ParseException
+	{
+		if(body == null || out == null)
+			throw new NullPointerException();
+
+		this.buf = body;
+		this.pos = 0;
+		this.end = body.length;
+		this.out = out;
+		this.prevStatus = out.getStatus();
+		this.prevCluster = out.getCluster();
+		this.prevGroup = out.getGroup();
+		out.reset();
+
+		try
+		{
+			this.expect('{');
+			if(this.nextIsEnd('}'))
+				return;
+
+			do
+			{
+				this.readKey();
+
+				if(this.keyEquals("error"))
+					out.setError(this.readBoolean());
+				else if(this.keyEquals("message"))
+					out.setMessage(this.readString(null, null));
+				else if(this.keyEquals("status") && this.peek() == '{')
+					this.parseStatus();
+				else
+					this.skipValue();
+			}
+			while(this.nextMember('}'));
+		}
+		finally
+		{
+			this.buf = null;
+			this.out = null;
+		}
+	}
+
+	/**
+	 * "status" 객체를 파싱하는 메소드
+	 */
+	private void parseStatus() throws ParseException
+	{
+		this.expect('{');
+		if(this.nextIsEnd('}'))
+			return;
+
+		do
+		{
+			this.readKey();
+
+			if(this.keyEquals("status"))
+				this.out.setStatus(this.readString(this.prevStatus, null));
+			else if(this.keyEquals("cluster"))
+				this.out.setCluster(this.readString(this.prevCluster, null));
+			else if(this.keyEquals("group"))
+				this.out.setGroup(this.readString(this.prevGroup, null));
+			else if(this.keyEquals("totallag"))
+				this.out.setTotalLag(this.readLong());
+			else if(this.keyEquals("partitions") && this.peek() == '[')
+				this.parsePartitions();
+			else
+				this.skipValue();
+		}
+		while(this.nextMember('}'));
+	}
+
+	/**
+	 * "partitions" 배열을 파싱하는 메소드
+	 */
+	private void parsePartitions() throws ParseException
+	{
+		this.expect('[');
+		if(this.nextIsEnd(']'))
+			return;
+
+		do
+		{
+			String topic = null;
+			long partition = NO_VALUE;
+			long lag = NO_VALUE;
+			String status = null;
+			int index = this.out.getPartitionCount();
+
+			this.expect('{');
+			if(!this.nextIsEnd('}'))
+			{
+				do
+				{
+					this.readKey();
+
+					if(this.keyEquals("topic"))
+						topic = this.readString(index > 0 ? this.out.getTopic(index - 1) : null, this.out.getPreviousTopic(index));
+					else if(this.keyEquals("partition"))
+						partition = this.readLong();
+					else if(this.keyEquals("current_lag"))
+						lag = this.readLong();
+					else if(this.keyEquals("status"))
+						status = this.readString(index > 0 ? this.out.getPartitionStatus(index - 1) : null, this.out.getPreviousPartitionStatus(index));
+					else
+						this.skipValue();
+				}
+				while(this.nextMember('}'));
+			}
+
+			this.out.addPartition(topic, partition, lag, status);
+		}
+		while(this.nextMember(']'));
+	}
+
+	/**
+	 * 공백을 건너뛰고 다음 byte를 리턴하는 메소드 (위치는 이동하지 않는다.)
+	 * @return 다음 byte
+	 */
+	private byte peek() throws ParseException
+	{
+		while(this.pos < this.end)
+		{
+			byte b = this.buf[this.pos];
+			if(b != ' ' && b != '\n' && b != '\r' && b != '\t')
+				return b;
+			this.pos++;
+		}
+		throw this.error();
+	}
+
+	/**
+	 * 다음 byte가 c인지 확인하고 건너뛰는 메소드
+	 * @param c 기대하는 문자
+	 */
+	private void expect(char c) throws ParseException
+	{
+		if(this.peek() != c)
+			throw this.error();
+		this.pos++;
+	}
+
+	/**
+	 * 객체/배열이 바로 닫히는지 확인하는 메소드. 닫히면 건너뛴다.
+	 * @param close 닫는 문자
+	 * @return 비어있는 객체/배열이면 true
+	 */
+	private boolean nextIsEnd(char close) throws ParseException
+	{
+		if(this.peek() == close)
+		{
+			this.pos++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 다음 멤버가 있는지 확인하는 메소드<br>
+	 * ','이면 true, 닫는 문자이면 false를 리턴한다.
+	 * @param close 닫는 문자
+	 * @return 다음 멤버가 있으면 true
+	 */
+	private boolean nextMember(char close) throws ParseException
+	{
+		byte b = this.peek();
+		this.pos++;
+
+		if(b == ',')
+			return true;
+		if(b == close)
+			return false;
+		throw this.error();
+	}
+
+	/**
+	 * 객체의 key를 chars에 읽고, ':'까지 건너뛰는 메소드
+	 */
+	private void readKey() throws ParseException
+	{
+		this.readChars();
+		this.expect(':');
+	}
+
+	/**
+	 * 직전에 읽은 key가 name과 같은지 확인하는 메소드
+	 * @param name key
+	 * @return 같으면 true
+	 */
+	private boolean keyEquals(String name)
+	{
+		return this.charsEqual(name);
+	}
+
+	/**
+	 * chars에 담긴 문자열이 value와 같은지 확인하는 메소드
+	 * @param value 비교할 문자열
+	 * @return 같으면 true
+	 */
+	private boolean charsEqual(String value)
+	{
+		if(value == null || value.length() != this.charLen)
+			return false;
+
+		for(int i = 0; i < this.charLen; i++)
+		{
+			if(value.charAt(i) != this.chars[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 문자열 값을 읽는 메소드<br>
+	 * 읽은 값이 candidate1이나 candidate2와 같으면 새 String을 만들지 않고 후보를 리턴한다.
+	 * @param candidate1 재사용할 후보 문자열
+	 * @param candidate2 재사용할 후보 문자열
+	 * @return 문자열. 값이 null이면 null
+	 */
+	private String readString(String candidate1, String candidate2) throws ParseException
+	{
+		if(this.peek() == 'n')
+		{
+			this.skipLiteral("null");
+			return null;
+		}
+
+		this.readChars();
+
+		if(this.charsEqual(candidate1))
+			return candidate1;
+		if(this.charsEqual(candidate2))
+			return candidate2;
+		return new String(this.chars, 0, this.charLen);
+	}
+
+	/**
+	 * json 문자열을 디코딩하여 chars에 담는 메소드
+	 */
+	private void readChars() throws ParseException
+	{
+		this.expect('"');
+		this.charLen = 0;
+
+		while(this.pos < this.end)
+		{
+			int b = this.buf[this.pos++];
+
+			if(b == '"')
+				return;
+
+			if(b == '\\')
+			{
+				if(this.pos >= this.end)
+					break;
+
+				byte escape = this.buf[this.pos++];
+				switch(escape)
+				{
+					case 'b': this.appendChar('\b'); break;
+					case 'f': this.appendChar('\f'); break;
+					case 'n': this.appendChar('\n'); break;
+					case 'r': this.appendChar('\r'); break;
+					case 't': this.appendChar('\t'); break;
+					case 'u': this.appendChar(this.readHex()); break;
+					default: this.appendChar((char) escape); break;
+				}
+			}
+			else if(b >= 0)
+			{
+				this.appendChar((char) b);
+			}
+			else
+			{
+				this.readUtf8(b);
+			}
+		}
+		throw this.error();
+	}
+
+	/**
+	 * \\uXXXX의 XXXX를 읽는 메소드
+	 * @return 문자
+	 */
+	private char readHex() throws ParseException
+	{
+		if(this.pos + 4 > this.end)
+			throw this.error();
+
+		int value = 0;
+		for(int i = 0; i < 4; i++)
+		{
+			int digit = Character.digit(this.buf[this.pos++], 16);
+			if(digit < 0)
+				throw this.error();
+			value = (value << 4) | digit;
+		}
+		return (char) value;
+	}
+
+	/**
+	 * UTF-8 multi-byte 문자를 읽어 chars에 담는 메소드
+	 * @param first 첫 번째 byte
+	 */
+	private void readUtf8(int first) throws ParseException
+	{
+		int codePoint;
+		int extra;
+
+		if((first & 0xE0) == 0xC0)
+		{
+			codePoint = first & 0x1F;
+			extra = 1;
+		}
+		else if((first & 0xF0) == 0xE0)
+		{
+			codePoint = first & 0x0F;
+			extra = 2;
+		}
+		else if((first & 0xF8) == 0xF0)
+		{
+			codePoint = first & 0x07;
+			extra = 3;
+		}
+		else
+		{
+			throw this.error();
+		}
+
+		if(this.pos + extra > this.end)
+			throw this.error();
+
+		for(int i = 0; i < extra; i++)
+			codePoint = (codePoint << 6) | (this.buf[this.pos++] & 0x3F);
+
+		if(codePoint >= 0x10000)
+		{
+			this.appendChar(Character.highSurrogate(codePoint));
+			this.appendChar(Character.lowSurrogate(codePoint));
+		}
+		else
+		{
+			this.appendChar((char) codePoint);
+		}
+	}
+
+	/**
+	 * chars에 문자를 추가하는 메소드
+	 * @param c 문자
+	 */
+	private void appendChar(char c)
+	{
+		if(this.charLen == this.chars.length)
+		{
+			char[] temp = new char[this.chars.length * 2];
+			System.arraycopy(this.chars, 0, temp, 0, this.charLen);
+			this.chars = temp;
+		}
+		this.chars[this.charLen++] = c;
+	}
+
+	/**
+	 * 숫자 값을 long으로 읽는 메소드<br>
+	 * 소수점 이하는 버린다. 값이 null이면 NO_VALUE를 리턴한다.
+	 * @return 숫자
+	 */
+	private long readLong() throws ParseException
+	{
+		byte b = this.peek();
+
+		if(b == 'n')
+		{
+			this.skipLiteral("null");
+			return NO_VALUE;
+		}
+
+		boolean negative = false;
+		if(b == '-')
+		{
+			negative = true;
+			this.pos++;
+		}
+
+		int start = this.pos;
+		long value = 0;
+		while(this.pos < this.end && this.buf[this.pos] >= '0' && this.buf[this.pos] <= '9')
+		{
+			value = value * 10 + (this.buf[this.pos] - '0');
+			this.pos++;
+		}
+
+		if(this.pos == start)
+			throw this.error();
+
+		// 소수점, 지수 부분은 건너뛴다.
+		while(this.pos < this.end && this.isNumberChar(this.buf[this.pos]))
+			this.pos++;
+
+		return negative ? -value : value;
+	}
+
+	/**
+	 * boolean 값을 읽는 메소드
+	 * @return boolean 값
+	 */
+	private boolean readBoolean() throws ParseException
+	{
+		if(this.peek() == 't')
+		{
+			this.skipLiteral("true");
+			return true;
+		}
+		this.skipLiteral("false");
+		return false;
+	}
+
+	/**
+	 * true, false, null 같은 literal을 건너뛰는 메소드
+	 * @param literal literal
+	 */
+	private void skipLiteral(String literal) throws ParseException
+	{
+		if(this.pos + literal.length() > this.end)
+			throw this.error();
+
+		for(int i = 0; i < literal.length(); i++)
+		{
+			if(this.buf[this.pos++] != literal.charAt(i))
+				throw this.error();
+		}
+	}
+
+	/**
+	 * 사용하지 않는 값을 건너뛰는 메소드
+	 */
+	private void skipValue() throws ParseException
+	{
+		byte b = this.peek();
+
+		switch(b)
+		{
+			case '{':
+				this.pos++;
+				if(this.nextIsEnd('}'))
+					return;
+				do
+				{
+					this.skipString();
+					this.expect(':');
+					this.skipValue();
+				}
+				while(this.nextMember('}'));
+				return;
+			case '[':
+				this.pos++;
+				if(this.nextIsEnd(']'))
+					return;
+				do
+				{
+					this.skipValue();
+				}
+				while(this.nextMember(']'));
+				return;
+			case '"':
+				this.skipString();
+				return;
+			case 't':
+				this.skipLiteral("true");
+				return;
+			case 'f':
+				this.skipLiteral("false");
+				return;
+			case 'n':
+				this.skipLiteral("null");
+				return;
+			default:
+				int start = this.pos;
+				while(this.pos < this.end && this.isNumberChar(this.buf[this.pos]))
+					this.pos++;
+				if(this.pos == start)
+					throw this.error();
+		}
+	}
+
+	/**
+	 * 문자열을 디코딩하지 않고 건너뛰는 메소드
+	 */
+	private void skipString() throws ParseException
+	{
+		this.expect('"');
+
+		while(this.pos < this.end)
+		{
+			byte b = this.buf[this.pos++];
+
+			if(b == '"')
+				return;
+			if(b == '\\')
+				this.pos++;
+		}
+		throw this.error();
+	}
+
+	/**
+	 * 숫자를 구성하는 문자인지 확인하는 메소드
+	 * @param b byte
+	 * @return 숫자 문자이면 true
+	 */
+	private boolean isNumberChar(byte b)
+	{
+		return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+	}
+
+	/**
+	 * 현재 위치로 ParseException을 만드는 메소드
+	 * @return ParseException
+	 */
+	private ParseException error()
+	{
+		return new ParseException(this.pos, ParseException.ERROR_UNEXPECTED_CHAR, this.pos < this.end ? Character.valueOf((char) this.buf[this.pos]) : null);
+	}
+}
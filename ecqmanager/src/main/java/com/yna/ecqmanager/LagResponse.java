@@ -0,0 +1,226 @@
+package com.yna.ecqmanager;
+
+/**
+ * burrow /lag 응답에서 사용하는 값만 담는 클래스<br>
+ * 컨슈머별로 1개를 만들어 poll마다 재사용한다. partition 정보는 primitive 배열에 담기 때문에, partition 수만큼 객체가 생기지 않는다.
+ */
+public class LagResponse {
+
+	/** burrow error 여부 */
+	private boolean error;
+
+	/** burrow 응답 메세지 */
+	private String message;
+
+	/** 컨슈머 상태 (OK, WARN, ERR, STOP, STALL ...) */
+	private String status;
+
+	/** kafka 클러스터명 */
+	private String cluster;
+
+	/** 컨슈머 그룹명 */
+	private String group;
+
+	/** 컨슈머 그룹 전체 lag */
+	private long totalLag;
+
+	/** partition 수 */
+	private int partitionCount;
+
+	/** partition별 topic명 */
+	private String[] topics;
+
+	/** partition 번호 */
+	private long[] partitions;
+
+	/** partition별 current_lag */
+	private long[] lags;
+
+	/** partition별 status */
+	private String[] statuses;
+
+	/**
+	 * LagResponse 생성자
+	 */
+	public LagResponse()
+	{
+		this.topics = new String[16];
+		this.partitions = new long[16];
+		this.lags = new long[16];
+		this.statuses = new String[16];
+	}
+
+	/**
+	 * 값을 초기화하는 메소드<br>
+	 * topics, statuses 배열은 지우지 않는다. 다음 응답에서 같은 문자열을 재사용할 수 있도록 남겨둔다.
+	 */
+	public void reset()
+	{
+		this.error = false;
+		this.message = null;
+		this.status = null;
+		this.cluster = null;
+		this.group = null;
+		this.totalLag = 0;
+		this.partitionCount = 0;
+	}
+
+	/**
+	 * partition 정보를 추가하는 메소드
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @param lag current_lag
+	 */
+	public void addPartition(String topic, long partition, long lag)
+	{
+		this.addPartition(topic, partition, lag, null);
+	}
+
+	/**
+	 * partition 정보를 추가하는 메소드
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @param lag current_lag
+	 * @param status partition status. null 가능
+	 */
+	public void addPartition(String topic, long partition, long lag, String status)
+	{
+		if(this.partitionCount == this.lags.length)
+			this.grow();
+
+		this.topics[this.partitionCount] = topic;
+		this.partitions[this.partitionCount] = partition;
+		this.lags[this.partitionCount] = lag;
+		this.statuses[this.partitionCount] = status;
+		this.partitionCount++;
+	}
+
+	/**
+	 * 배열 크기를 2배로 늘리는 메소드
+	 */
+	private void grow()
+	{
+		int size = this.lags.length * 2;
+		String[] tempTopics = new String[size];
+		long[] tempPartitions = new long[size];
+		long[] tempLags = new long[size];
+		String[] tempStatuses = new String[size];
+
+		System.arraycopy(this.topics, 0, tempTopics, 0, this.partitionCount);
+		System.arraycopy(this.partitions, 0, tempPartitions, 0, this.partitionCount);
+		System.arraycopy(this.lags, 0, tempLags, 0, this.partitionCount);
+		System.arraycopy(this.statuses, 0, tempStatuses, 0, this.partitionCount);
+
+		this.topics = tempTopics;
+		this.partitions = tempPartitions;
+		this.lags = tempLags;
+		this.statuses = tempStatuses;
+	}
+
+	/**
+	 * 이전 응답에서 index 위치에 있던 topic명을 리턴하는 메소드<br>
+	 * 파서가 같은 topic명의 String을 재사용할 때 사용한다.
+	 * @param index partition index
+	 * @return topic명. 없으면 null
+	 */
+	String getPreviousTopic(int index)
+	{
+		return index < this.topics.length ? this.topics[index] : null;
+	}
+
+	/**
+	 * 이전 응답에서 index 위치에 있던 partition status를 리턴하는 메소드<br>
+	 * 파서가 같은 status의 String을 재사용할 때 사용한다.
+	 * @param index partition index
+	 * @return status. 없으면 null
+	 */
+	String getPreviousPartitionStatus(int index)
+	{
+		return index < this.statuses.length ? this.statuses[index] : null;
+	}
+
+	public boolean isError()
+	{
+		return this.error;
+	}
+
+	public void setError(boolean error)
+	{
+		this.error = error;
+	}
+
+	public String getMessage()
+	{
+		return this.message;
+	}
+
+	public void setMessage(String message)
+	{
+		this.message = message;
+	}
+
+	public String getStatus()
+	{
+		return this.status;
+	}
+
+	public void setStatus(String status)
+	{
+		this.status = status;
+	}
+
+	public String getCluster()
+	{
+		return this.cluster;
+	}
+
+	public void setCluster(String cluster)
+	{
+		this.cluster = cluster;
+	}
+
+	public String getGroup()
+	{
+		return this.group;
+	}
+
+	public void setGroup(String group)
+	{
+		this.group = group;
+	}
+
+	public long getTotalLag()
+	{
+		return this.totalLag;
+	}
+
+	public void setTotalLag(long totalLag)
+	{
+		this.totalLag = totalLag;
+	}
+
+	public int getPartitionCount()
+	{
+		return this.partitionCount;
+	}
+
+	public String getTopic(int index)
+	{
+		return this.topics[index];
+	}
+
+	public long getPartition(int index)
+	{
+		return this.partitions[index];
+	}
+
+	public long getLag(int index)
+	{
+		return this.lags[index];
+	}
+
+	public String getPartitionStatus(int index)
+	{
+		return this.statuses[index];
+	}
+}
@@ -0,0 +1,160 @@
+package com.yna.ecqmanager;
+
+/**
+ * (시간, lag) sample을 고정 크기 ring buffer에 저장하는 클래스<br>
+ * primitive 배열만 사용하므로 메모리 사용량은 capacity * 16 byte로 고정된다. 가득 차면 가장 오래된 sample을 덮어쓴다.<br>
+ * poll thread가 쓰고 다른 thread가 조회할 수 있도록 메소드는 synchronized로 처리한다.
+ */
+public class LagSeries {
+
+	/** sample 시간 (epoch ms) */
+	private final long[] times;
+
+	/** sample lag */
+	private final long[] lags;
+
+	/** 다음에 쓸 위치 */
+	private int next;
+
+	/** 저장된 sample 수 (capacity 이하) */
+	private int size;
+
+	/**
+	 * LagSeries 생성자
+	 * @param capacity 저장할 최대 sample 수
+	 */
+	public LagSeries(int capacity)
+	{
+		if(capacity <= 0)
+			throw new IllegalArgumentException();
+
+		this.times = new long[capacity];
+		this.lags = new long[capacity];
+	}
+
+	/**
+	 * sample을 추가하는 메소드
+	 * @param time sample 시간 (epoch ms)
+	 * @param lag lag
+	 */
+	public synchronized void add(long time, long lag)
+	{
+		this.times[this.next] = time;
+		this.lags[this.next] = lag;
+		this.next = (this.next + 1) % this.times.length;
+
+		if(this.size < this.times.length)
+			this.size++;
+	}
+
+	/**
+	 * 최근 n개의 sample을 오래된 순서로 복사하는 메소드
+	 * @param n 가져올 sample 수
+	 * @param timeOut 시간을 담을 배열. null이면 복사하지 않는다.
+	 * @param lagOut lag을 담을 배열. null이면 복사하지 않는다.
+	 * @return 복사한 sample 수. n, 저장된 sample 수, 배열 크기 중 가장 작은 값
+	 */
+	public synchronized int last(int n, long[] timeOut, long[] lagOut)
+	{
+		int count = Math.min(Math.max(n, 0), this.size);
+		if(timeOut != null)
+			count = Math.min(count, timeOut.length);
+		if(lagOut != null)
+			count = Math.min(count, lagOut.length);
+
+		int start = this.indexOf(this.size - count);
+		for(int i = 0; i < count; i++)
+		{
+			int index = (start + i) % this.times.length;
+			if(timeOut != null)
+				timeOut[i] = this.times[index];
+			if(lagOut != null)
+				lagOut[i] = this.lags[index];
+		}
+		return count;
+	}
+
+	/**
+	 * from 이상, to 이하 시간의 sample을 오래된 순서로 복사하는 메소드<br>
+	 * 배열이 작으면 배열 크기만큼 최근 sample을 복사한다.
+	 * @param from 시작 시간 (epoch ms)
+	 * @param to 끝 시간 (epoch ms)
+	 * @param timeOut 시간을 담을 배열. null이면 복사하지 않는다.
+	 * @param lagOut lag을 담을 배열. null이면 복사하지 않는다.
+	 * @return 복사한 sample 수
+	 */
+	public synchronized int window(long from, long to, long[] timeOut, long[] lagOut)
+	{
+		// sample 시간은 오름차순이므로 범위의 처음과 끝을 찾는다.
+		int first = 0;
+		while(first < this.size && this.times[this.indexOf(first)] < from)
+			first++;
+
+		int last = this.size;
+		while(last > first && this.times[this.indexOf(last - 1)] > to)
+			last--;
+
+		int count = last - first;
+		if(timeOut != null)
+			count = Math.min(count, timeOut.length);
+		if(lagOut != null)
+			count = Math.min(count, lagOut.length);
+
+		for(int i = 0; i < count; i++)
+		{
+			int index = this.indexOf(last - count + i);
+			if(timeOut != null)
+				timeOut[i] = this.times[index];
+			if(lagOut != null)
+				lagOut[i] = this.lags[index];
+		}
+		return count;
+	}
+
+	/**
+	 * 가장 최근 sample의 lag을 리턴하는 메소드
+	 * @return lag. sample이 없으면 -1
+	 */
+	public synchronized long getLastLag()
+	{
+		return this.size == 0 ? -1L : this.lags[this.indexOf(this.size - 1)];
+	}
+
+	/**
+	 * 가장 최근 sample의 시간을 리턴하는 메소드
+	 * @return 시간 (epoch ms). sample이 없으면 -1
+	 */
+	public synchronized long getLastTime()
+	{
+		return this.size == 0 ? -1L : this.times[this.indexOf(this.size - 1)];
+	}
+
+	/**
+	 * 저장된 sample 수를 리턴하는 메소드
+	 * @return sample 수
+	 */
+	public synchronized int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * 저장할 수 있는 최대 sample 수를 리턴하는 메소드
+	 * @return capacity
+	 */
+	public int capacity()
+	{
+		return this.times.length;
+	}
+
+	/**
+	 * 오래된 순서로 i번째 sample의 배열 index를 리턴하는 메소드
+	 * @param i 0이면 가장 오래된 sample
+	 * @return 배열 index
+	 */
+	private int indexOf(int i)
+	{
+		int oldest = this.size < this.times.length ? 0 : this.next;
+		return (oldest + i) % this.times.length;
+	}
+}
@@ -2,26 +2,109 @@ package com.yna.ecqmanager;
 
 public class PartitionInfo {
 	private String topicName;
-	private Long partition;
+	private long partition;
 	private String name;
-	private Long lag;
+	private long lag;
+	
+	/** partition status. 응답에 없으면 null */
+	private String status;
+	
+	/** 마지막으로 로그에 기록한 lag. delta 로그에서 변경 여부를 판단할 때 사용한다. */
+	private long loggedLag;
+	
+	/** 마지막으로 로그에 기록한 status */
+	private String loggedStatus;
+	
+	/** 마지막으로 알림을 보낸 status. 알림을 보내지 않았거나 정상이면 null */
+	private String alertStatus;
+	
+	/** 한 번이라도 로그에 기록되었는지 여부 */
+	private boolean isLogged;
+	
+	/** 마지막으로 응답에 포함되었던 sample 번호. PartitionStore에서 사라진 partition을 찾을 때 사용한다. */
+	long lastSeen;
+	
+	/** 최근 lag 기록. PartitionStore에 기록 크기가 설정되지 않았으면 null */
+	private LagSeries lagSeries;
 
-	public PartitionInfo(String topicName, Long partition)
+	public PartitionInfo(String topicName, long partition)
 	{
 		this.setName(topicName, partition);
 	}
 	
-	public void setLag(Long lag)
+	public void setLag(long lag)
 	{
 		this.lag = lag;
 	}
 	
-	public Long getLag()
+	public long getLag()
 	{
 		return this.lag;
 	}
 	
-	private void setName(String topicName, Long partition)
+	public void setStatus(String status)
+	{
+		this.status = status;
+	}
+	
+	public String getStatus()
+	{
+		return this.status;
+	}
+	
+	/**
+	 * 마지막으로 알림을 보낸 뒤 status가 정상/비정상 또는 다른 비정상 status로 바뀌었으면 알림 status를 갱신하고 true를 리턴하는 메소드<br>
+	 * OK(또는 null)는 정상으로 본다.
+	 * @return 알림을 보내야 하면 true
+	 */
+	public boolean updateAlertStatus()
+	{
+		String current = this.status == null || "OK".equals(this.status) ? null : this.status;
+		if(current == null ? this.alertStatus == null : current.equals(this.alertStatus))
+			return false;
+		
+		this.alertStatus = current;
+		return true;
+	}
+	
+	/**
+	 * 마지막으로 로그에 기록한 뒤 lag이 threshold보다 많이 바뀌었거나 status가 바뀌었는지 리턴하는 메소드<br>
+	 * 한 번도 기록되지 않았으면 true를 리턴한다.
+	 * @param threshold lag 변화량 기준
+	 * @return 변경 여부
+	 */
+	boolean isChangedSinceLogged(long threshold)
+	{
+		if(!this.isLogged || Math.abs(this.lag - this.loggedLag) > threshold)
+			return true;
+		return this.status == null ? this.loggedStatus != null : !this.status.equals(this.loggedStatus);
+	}
+	
+	/**
+	 * 현재 lag, status를 로그에 기록한 값으로 표시하는 메소드
+	 */
+	void markLogged()
+	{
+		this.loggedLag = this.lag;
+		this.loggedStatus = this.status;
+		this.isLogged = true;
+	}
+	
+	void setLagSeries(LagSeries lagSeries)
+	{
+		this.lagSeries = lagSeries;
+	}
+	
+	/**
+	 * 최근 (시간, lag) 기록을 리턴하는 메소드
+	 * @return lagSeries 기록. 기록하지 않으면 null
+	 */
+	public LagSeries getLagSeries()
+	{
+		return this.lagSeries;
+	}
+	
+	private void setName(String topicName, long partition)
 	{
 		StringBuffer temp = new StringBuffer(topicName).append("-").append(partition);
 		this.name = temp.toString();
@@ -39,13 +122,26 @@ public class PartitionInfo {
 		return this.topicName;
 	}
 	
-	public Long getPartition()
+	public long getPartition()
 	{
 		return this.partition;
 	}
 	public String getInfo()
 	{
-		StringBuffer temp = new StringBuffer("[").append(this.name).append("] lag : ").append(this.lag);
-		return temp.toString();
+		return this.appendInfo(new StringBuilder()).toString();
+	}
+	
+	/**
+	 * getInfo()와 같은 내용을 sb에 붙이는 메소드<br>
+	 * status가 OK가 아니면 lag 뒤에 status를 붙인다.
+	 * @param sb StringBuilder
+	 * @return sb
+	 */
+	public StringBuilder appendInfo(StringBuilder sb)
+	{
+		sb.append("[").append(this.name).append("] lag : ").append(this.lag);
+		if(this.status != null && !"OK".equals(this.status))
+			sb.append(" (").append(this.status).append(")");
+		return sb;
 	}
 }
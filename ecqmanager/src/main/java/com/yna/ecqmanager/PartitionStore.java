@@ -0,0 +1,253 @@
+package com.yna.ecqmanager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 컨슈머가 구독하는 partition들의 lag을 (topic, partition)으로 찾을 수 있게 저장하는 클래스<br>
+ * topic명으로 partition 배열을 찾고, partition 번호를 배열 index로 사용하므로 조회는 O(1)이다.<br>
+ * sample마다 beginSample() - update() - endSample() 순서로 호출하며, 응답에서 사라진 partition은 endSample()에서 제거된다.<br>
+ * historySize가 0보다 크면 partition마다 최근 historySize개의 (시간, lag)을 LagSeries에 기록한다.<br>
+ * Kafka의 partition 번호는 0부터 연속이므로 배열을 사용하며, MAX_PARTITION보다 큰 번호는 무시한다.<br>
+ * thread-safe하지 않다. 변경(beginSample, update, endSample)과 순회는 컨슈머를 poll 중인 thread(컨슈머마다 한 번에 1개)에서만 한다.
+ * poll thread는 변경하는 동안 이 객체로 synchronized하므로, 다른 thread는 이 객체로 synchronized한 뒤 get()으로만 조회한다.
+ * 순회는 변경하는 thread 자신만 하므로 lock 없이 한다.
+ */
+public class PartitionStore implements Iterable<PartitionInfo> {
+
+	/** 저장하는 최대 partition 번호. partition 번호를 배열 index로 사용하므로 배열 크기를 제한한다. */
+	public static final int MAX_PARTITION = 65535;
+
+	/** topic명 - partition 번호를 index로 하는 PartitionInfo 배열 */
+	private Map<String, PartitionInfo[]> topicMap;
+
+	/** 저장된 partition 수 */
+	private int size;
+
+	/** 현재 sample 번호 */
+	private long sampleSeq;
+
+	/** 현재 sample 시간 (epoch ms) */
+	private long sampleTime;
+
+	/** partition별로 기록할 lag 수. 0이면 기록하지 않는다. */
+	private int historySize;
+
+	/** 마지막 sample에서 partition이 추가/제거되었는지 여부 */
+	private boolean isChanged;
+
+	/**
+	 * PartitionStore 생성자
+	 */
+	public PartitionStore()
+	{
+		this(0);
+	}
+
+	/**
+	 * PartitionStore 생성자
+	 * @param historySize partition별로 기록할 lag 수. 0이면 기록하지 않는다.
+	 */
+	public PartitionStore(int historySize)
+	{
+		this.topicMap = new LinkedHashMap<String, PartitionInfo[]>();
+		this.historySize = Math.max(historySize, 0);
+	}
+
+	/**
+	 * 현재 시간으로 새 sample을 시작하는 메소드
+	 */
+	public void beginSample()
+	{
+		this.beginSample(System.currentTimeMillis());
+	}
+
+	/**
+	 * 새 sample을 시작하는 메소드
+	 * @param time sample 시간 (epoch ms)
+	 */
+	public void beginSample(long time)
+	{
+		this.sampleSeq++;
+		this.sampleTime = time;
+		this.isChanged = false;
+	}
+
+	/**
+	 * partition의 lag을 갱신하는 메소드<br>
+	 * 처음 보는 partition이면 새로 추가한다. topic이 null이거나 partition이 음수 또는 MAX_PARTITION보다 크면 무시한다.
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @param lag current_lag
+	 * @return PartitionInfo 갱신된 partition. 무시된 경우 null
+	 */
+	public PartitionInfo update(String topic, long partition, long lag)
+	{
+		return this.update(topic, partition, lag, null);
+	}
+	
+	/**
+	 * partition의 lag, status를 갱신하는 메소드<br>
+	 * 처음 보는 partition이면 새로 추가한다. topic이 null이거나 partition이 음수 또는 MAX_PARTITION보다 크면 무시한다.
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @param lag current_lag
+	 * @param status partition status. null 가능
+	 * @return PartitionInfo 갱신된 partition. 무시된 경우 null
+	 */
+	public PartitionInfo update(String topic, long partition, long lag, String status)
+	{
+		if(topic == null || partition < 0 || partition > MAX_PARTITION)
+			return null;
+
+		int index = (int) partition;
+		PartitionInfo[] partitions = this.topicMap.get(topic);
+
+		if(partitions == null || partitions.length <= index)
+		{
+			PartitionInfo[] temp = new PartitionInfo[index + 1];
+			if(partitions != null)
+				System.arraycopy(partitions, 0, temp, 0, partitions.length);
+			partitions = temp;
+			this.topicMap.put(topic, partitions);
+		}
+
+		PartitionInfo partitionInfo = partitions[index];
+		if(partitionInfo == null)
+		{
+			partitionInfo = new PartitionInfo(topic, partition);
+			if(this.historySize > 0)
+				partitionInfo.setLagSeries(new LagSeries(this.historySize));
+			partitions[index] = partitionInfo;
+			this.size++;
+			this.isChanged = true;
+		}
+
+		partitionInfo.setLag(lag);
+		partitionInfo.setStatus(status);
+		partitionInfo.lastSeen = this.sampleSeq;
+		if(partitionInfo.getLagSeries() != null)
+			partitionInfo.getLagSeries().add(this.sampleTime, lag);
+		return partitionInfo;
+	}
+
+	/**
+	 * sample을 끝내는 메소드<br>
+	 * 이번 sample에서 갱신되지 않은 partition과, partition이 하나도 없는 topic을 제거한다.
+	 */
+	public void endSample()
+	{
+		Iterator<PartitionInfo[]> topicIterator = this.topicMap.values().iterator();
+
+		while(topicIterator.hasNext())
+		{
+			PartitionInfo[] partitions = topicIterator.next();
+			int remain = 0;
+
+			for(int i = 0; i < partitions.length; i++)
+			{
+				if(partitions[i] == null)
+					continue;
+
+				if(partitions[i].lastSeen != this.sampleSeq)
+				{
+					partitions[i] = null;
+					this.size--;
+					this.isChanged = true;
+				}
+				else
+				{
+					remain++;
+				}
+			}
+
+			if(remain == 0)
+				topicIterator.remove();
+		}
+	}
+
+	/**
+	 * partition을 찾는 메소드
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @return PartitionInfo partition. 없으면 null
+	 */
+	public PartitionInfo get(String topic, long partition)
+	{
+		PartitionInfo[] partitions = this.topicMap.get(topic);
+
+		if(partitions == null || partition < 0 || partition >= partitions.length)
+			return null;
+		return partitions[(int) partition];
+	}
+
+	/**
+	 * 저장된 partition 수를 리턴하는 메소드
+	 * @return size partition 수
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * 마지막 sample에서 partition이 추가되거나 제거되었는지 리턴하는 메소드
+	 * @return isChanged 변경 여부
+	 */
+	public boolean isChanged()
+	{
+		return this.isChanged;
+	}
+
+	/**
+	 * topic 순서(처음 추가된 순), partition 번호 순으로 partition을 순회하는 iterator를 리턴한다.
+	 */
+	@Override
+	public Iterator<PartitionInfo> iterator()
+	{
+		return new Iterator<PartitionInfo>() {
+			private Iterator<PartitionInfo[]> topicIterator = topicMap.values().iterator();
+			private PartitionInfo[] partitions;
+			private int index;
+			private PartitionInfo next = this.advance();
+
+			private PartitionInfo advance()
+			{
+				while(true)
+				{
+					while(this.partitions != null && this.index < this.partitions.length)
+					{
+						PartitionInfo partitionInfo = this.partitions[this.index++];
+						if(partitionInfo != null)
+							return partitionInfo;
+					}
+
+					if(!this.topicIterator.hasNext())
+						return null;
+
+					this.partitions = this.topicIterator.next();
+					this.index = 0;
+				}
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return this.next != null;
+			}
+
+			@Override
+			public PartitionInfo next()
+			{
+				if(this.next == null)
+					throw new NoSuchElementException();
+
+				PartitionInfo result = this.next;
+				this.next = this.advance();
+				return result;
+			}
+		};
+	}
+}
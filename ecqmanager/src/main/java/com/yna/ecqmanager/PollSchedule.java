@@ -0,0 +1,144 @@
+package com.yna.ecqmanager;
+
+/**
+ * 컨슈머 그룹별 burrow polling 간격을 정하는 클래스<br>
+ * status가 OK가 아니거나 lag이 빠르게 늘고 있으면 최소 간격(minInterval)으로 자주 확인하고,
+ * OK가 relaxAfter 이상 계속되면 OK일 때마다 간격을 2배로 늘려 최대 간격(maxInterval)까지 드물게 확인한다.<br>
+ * 그 외에는 기본 간격(baseInterval, burrow.check.time)으로 확인한다. 상태는 간격, OK 시작 시간, 다음 poll 시간뿐이므로 update()는 O(1)이다.
+ */
+public class PollSchedule {
+
+	/** 최소, 기본, 최대 poll 간격 (ms) */
+	private final long minInterval;
+	private final long baseInterval;
+	private final long maxInterval;
+
+	/** OK가 이 시간(ms) 이상 계속되면 간격을 늘린다. */
+	private final long relaxAfter;
+
+	/** 현재 poll 간격 (ms) */
+	private long interval;
+
+	/** OK가 시작된 시간 (epoch ms). OK가 아니면 0 */
+	private long okSince;
+
+	/** 다음 poll 시간 (epoch ms) */
+	private long nextPollMillis;
+
+	/**
+	 * PollSchedule 생성자
+	 * @param minInterval 최소 간격 (ms)
+	 * @param baseInterval 기본 간격 (ms). minInterval과 maxInterval 사이로 맞춘다.
+	 * @param maxInterval 최대 간격 (ms)
+	 * @param relaxAfter OK가 이 시간(ms) 이상 계속되면 간격을 늘린다.
+	 */
+	public PollSchedule(long minInterval, long baseInterval, long maxInterval, long relaxAfter)
+	{
+		if(minInterval <= 0 || maxInterval < minInterval || relaxAfter < 0)
+			throw new IllegalArgumentException();
+
+		this.minInterval = minInterval;
+		this.maxInterval = maxInterval;
+		this.baseInterval = Math.max(minInterval, Math.min(baseInterval, maxInterval));
+		this.relaxAfter = relaxAfter;
+		this.interval = this.baseInterval;
+	}
+
+	/**
+	 * poll할 시간이 되었는지 리턴하는 메소드
+	 * @param now 현재 시간 (epoch ms)
+	 * @return 다음 poll 시간이 지났으면 true
+	 */
+	public synchronized boolean isDue(long now)
+	{
+		return now >= this.nextPollMillis;
+	}
+
+	/**
+	 * poll을 시작할 때 호출하는 메소드. 응답을 받지 못해도 현재 간격 뒤에 다시 poll한다.
+	 * @param now 현재 시간 (epoch ms)
+	 */
+	public synchronized void markPolled(long now)
+	{
+		this.nextPollMillis = now + this.interval;
+	}
+
+	/**
+	 * poll 결과로 다음 간격을 정하는 메소드
+	 * @param status 컨슈머 status
+	 * @param isLagGrowing lag이 빠르게 늘고 있는지 여부
+	 * @param now 현재 시간 (epoch ms)
+	 * @return 다음 poll 간격 (ms)
+	 */
+	public synchronized long update(String status, boolean isLagGrowing, long now)
+	{
+		if(!"OK".equals(status) || isLagGrowing)
+		{
+			this.okSince = 0;
+			this.interval = this.minInterval;
+		}
+		else
+		{
+			if(this.okSince == 0)
+				this.okSince = now;
+
+			if(this.interval < this.baseInterval)
+				this.interval = this.baseInterval;
+			else if(now - this.okSince >= this.relaxAfter)
+				this.interval = Math.min(this.interval * 2, this.maxInterval);
+		}
+
+		this.nextPollMillis = now + this.interval;
+		return this.interval;
+	}
+
+	/**
+	 * 다음 poll 시간을 리턴하는 메소드
+	 * @return 시간 (epoch ms)
+	 */
+	public synchronized long getNextPollMillis()
+	{
+		return this.nextPollMillis;
+	}
+
+	/**
+	 * 현재 poll 간격을 리턴하는 메소드
+	 * @return 간격 (ms)
+	 */
+	public synchronized long getInterval()
+	{
+		return this.interval;
+	}
+
+	/**
+	 * LagSeries의 최근 sample로 lag이 빠르게 늘고 있는지 확인하는 메소드<br>
+	 * 최근 samples개 sample의 lag이 계속 늘었고, 처음과 마지막 sample 사이의 증가량이 초당 growthPerSec 이상이면 true
+	 * @param series lag 기록
+	 * @param samples 확인할 sample 수 (2 이상)
+	 * @param growthPerSec 초당 lag 증가량 기준
+	 * @param timeBuffer sample 시간을 담을 배열 (samples 이상)
+	 * @param lagBuffer sample lag을 담을 배열 (samples 이상)
+	 * @return lag이 빠르게 늘고 있으면 true
+	 */
+	public static boolean isLagGrowing(LagSeries series, int samples, double growthPerSec, long[] timeBuffer, long[] lagBuffer)
+	{
+		if(series == null || samples < 2)
+			return false;
+
+		int count = series.last(samples, timeBuffer, lagBuffer);
+		if(count < 2)
+			return false;
+
+		for(int i = 1; i < count; i++)
+		{
+			if(lagBuffer[i] <= lagBuffer[i - 1])
+				return false;
+		}
+
+		long millis = timeBuffer[count - 1] - timeBuffer[0];
+		if(millis <= 0)
+			return false;
+
+		return (lagBuffer[count - 1] - lagBuffer[0]) * 1000.0 / millis >= growthPerSec;
+	}
+}
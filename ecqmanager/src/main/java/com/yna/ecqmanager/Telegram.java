@@ -1,10 +1,18 @@
 package com.yna.ecqmanager;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * 텔레그램 메세지를 GET 요청으로 보내는 클래스. 메세지마다 커넥션을 새로 연다.
+ * @deprecated 커넥션을 재사용하고 POST body로 보내는 TelegramClient를 사용한다.
+ */
+@Deprecated
 public class Telegram {
 	
 	private static final String API_URL1 = "https://api.telegram.org/bot";
@@ -17,8 +25,34 @@ public class Telegram {
 		if(token == null || token.length() == 0 || chatId == null || chatId.length() == 0 || errMsg == null || errMsg.length() == 0)
 			throw new NullPointerException("입력값이 안 들어옴.");
 			
-		StringBuilder tempUrl = new StringBuilder(API_URL1).append(token).append(API_URL2).append(chatId).append(API_URL3).append(errMsg);
-		this.apiUrl = tempUrl.toString().replaceAll(" ", "%20");
+		// 줄바꿈, &, # 등이 들어간 메세지(digest 등)도 보낼 수 있도록 text를 인코딩한다.
+		StringBuilder tempUrl = new StringBuilder(API_URL1).append(token).append(API_URL2).append(chatId).append(API_URL3)
+				.append(URLEncoder.encode(errMsg, StandardCharsets.UTF_8).replace("+", "%20"));
+		this.apiUrl = tempUrl.toString();
+	}
+	
+	/**
+	 * connect, read timeout을 지정해서 메세지를 보내는 메소드. 응답은 읽고 버린다.
+	 * @param connectTimeout connect timeout (ms)
+	 * @param readTimeout read timeout (ms)
+	 * @throws Exception 전송 실패 (timeout, 응답 코드가 2xx가 아닌 경우 등)
+	 */
+	public void sendMessage(int connectTimeout, int readTimeout) throws Exception
+	{
+		URL url = new URL(this.apiUrl);
+		HttpURLConnection con = (HttpURLConnection)url.openConnection();
+		con.setRequestMethod("GET");
+		con.setConnectTimeout(connectTimeout);
+		con.setReadTimeout(readTimeout);
+		
+		try(InputStream in = con.getInputStream())
+		{
+			byte[] buffer = new byte[1024];
+			while(in.read(buffer) >= 0)
+			{
+				// 커넥션을 재사용할 수 있도록 응답을 끝까지 읽는다.
+			}
+		}
 	}
 	
 	public void sendMessage()
@@ -0,0 +1,144 @@
+package com.yna.ecqmanager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.json.simple.JSONValue;
+
+/**
+ * 텔레그램 bot api로 메세지를 보내는 클래스<br>
+ * 하나의 HttpClient를 재사용하므로 메세지마다 커넥션을 새로 열지 않는다. https에서는 HTTP/2로 여러 메세지를 커넥션 1개에 동시에 보낸다.<br>
+ * 메세지는 JSON POST body(chat_id, text)로 보내므로 길이, 줄바꿈, 특수문자에 제한이 없다. 응답은 출력하지 않고, 실패한 경우에만 예외 메세지에 담는다.<br>
+ * apiUrl을 바꾸면 로컬 테스트 서버로 보낼 수 있다.
+ */
+public class TelegramClient implements TelegramDispatcher.Sender {
+
+	/** 텔레그램 bot api 기본 주소 */
+	public static final String DEFAULT_API_URL = "https://api.telegram.org";
+
+	/** 예외 메세지에 담는 응답 body 최대 길이 */
+	private static final int MAX_ERROR_BODY_LENGTH = 512;
+
+	/** 공유 HttpClient */
+	private HttpClient httpClient;
+
+	/** bot api 주소. 끝에 '/'가 없다. */
+	private String apiUrl;
+
+	/** 요청 1건의 응답을 기다리는 시간 (ms) */
+	private int readTimeout;
+
+	/**
+	 * TelegramClient 생성자
+	 * @param apiUrl bot api 주소. null이거나 비어있으면 DEFAULT_API_URL
+	 * @param connectTimeout connect timeout (ms)
+	 * @param readTimeout 응답 timeout (ms)
+	 */
+	public TelegramClient(String apiUrl, int connectTimeout, int readTimeout)
+	{
+		if(connectTimeout <= 0 || readTimeout <= 0)
+			throw new IllegalArgumentException();
+
+		String url = apiUrl == null || apiUrl.trim().length() == 0 ? DEFAULT_API_URL : apiUrl.trim();
+		while(url.endsWith("/"))
+			url = url.substring(0, url.length() - 1);
+
+		this.apiUrl = url;
+		this.readTimeout = readTimeout;
+		this.httpClient = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofMillis(connectTimeout))
+				.build();
+	}
+
+	/**
+	 * sendMessage POST 요청을 만드는 메소드
+	 * @param token 텔레그램 bot token
+	 * @param chatId chat id
+	 * @param text 메세지
+	 * @return HttpRequest 요청
+	 */
+	public HttpRequest newRequest(String token, String chatId, String text)
+	{
+		if(token == null || chatId == null || text == null)
+			throw new NullPointerException();
+
+		String body = new StringBuilder("{\"chat_id\":\"").append(JSONValue.escape(chatId))
+				.append("\",\"text\":\"").append(JSONValue.escape(text)).append("\"}").toString();
+
+		return HttpRequest.newBuilder(URI.create(new StringBuilder(this.apiUrl).append("/bot").append(token).append("/sendMessage").toString()))
+				.timeout(Duration.ofMillis(this.readTimeout))
+				.header("Content-Type", "application/json; charset=utf-8")
+				.POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+				.build();
+	}
+
+	/**
+	 * 메세지를 보내고 기다리지 않는 메소드
+	 * @param token 텔레그램 bot token
+	 * @param chatId chat id
+	 * @param text 메세지
+	 * @return 응답이 2xx면 정상 완료, 아니면 IOException으로 완료되는 future
+	 */
+	public CompletableFuture<Void> sendAsync(String token, String chatId, String text)
+	{
+		HttpRequest request = this.newRequest(token, chatId, text);
+
+		return this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+			if(response.statusCode() / 100 != 2)
+			{
+				String body = new String(response.body(), StandardCharsets.UTF_8);
+				if(body.length() > MAX_ERROR_BODY_LENGTH)
+					body = body.substring(0, MAX_ERROR_BODY_LENGTH);
+				throw new CompletionException(new IOException(
+						new StringBuilder("telegram http status : ").append(response.statusCode()).append(", chatId : ").append(chatId)
+						.append(", response : ").append(body).toString()));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 메세지를 보내고 응답을 기다리는 메소드 (TelegramDispatcher worker에서 호출)
+	 * @param token 텔레그램 bot token
+	 * @param chatId chat id
+	 * @param text 메세지
+	 * @throws Exception 전송 실패, timeout, 2xx가 아닌 응답일 때 발생
+	 */
+	@Override
+	public void send(String token, String chatId, String text) throws Exception
+	{
+		this.await(this.sendAsync(token, chatId, text));
+	}
+
+	/**
+	 * future가 끝날 때까지 readTimeout만큼 기다리는 메소드. 시간이 넘으면 요청을 취소한다.
+	 * @param future 요청 future
+	 * @throws Exception 요청 실패, timeout
+	 */
+	private void await(CompletableFuture<?> future) throws Exception
+	{
+		try
+		{
+			future.get(this.readTimeout, TimeUnit.MILLISECONDS);
+		}
+		catch(TimeoutException e)
+		{
+			future.cancel(true);
+			throw new TimeoutException("telegram response timeout.");
+		}
+		catch(ExecutionException e)
+		{
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+	}
+}
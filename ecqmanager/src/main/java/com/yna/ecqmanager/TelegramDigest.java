@@ -0,0 +1,203 @@
+package com.yna.ecqmanager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 텔레그램 알림을 window 동안 모아서 chat id별로 1개의 메세지로 보내는 클래스<br>
+ * 여러 컨슈머가 같은 시점에 WARN이 되어도 (컨슈머 수 × chat id 수)번이 아니라 window마다 chat id 수만큼만 보낸다.<br>
+ * 모은 메세지가 텔레그램 메세지 크기 제한(maxLength)을 넘으면 줄 단위로 나누어 보낸다.
+ */
+public class TelegramDigest {
+
+	/** 텔레그램 메세지 최대 길이 */
+	public static final int MAX_MESSAGE_LENGTH = 4096;
+
+	/** chat id별로 모으는 최대 알림 수. 넘는 알림은 수만 센다. */
+	private static final int MAX_LINES = 500;
+
+	/** 나눈 메세지 앞에 붙이는 header에 남겨두는 길이 */
+	private static final int HEADER_RESERVE = 64;
+
+	/** 메세지를 보내는 dispatcher */
+	private TelegramDispatcher dispatcher;
+
+	/** 나눈 메세지 1개의 최대 길이 */
+	private int maxLength;
+
+	/** token, chat id별로 모은 알림. 입력 순서대로 보낸다. */
+	private Map<String, Batch> batches = new LinkedHashMap<String, Batch>();
+
+	/** window마다 flush하는 thread */
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * TelegramDigest 생성자
+	 * @param dispatcher 메세지를 보내는 dispatcher
+	 * @param windowMillis 알림을 모으는 시간 (ms)
+	 * @param maxLength 메세지 1개의 최대 길이
+	 */
+	public TelegramDigest(TelegramDispatcher dispatcher, long windowMillis, int maxLength)
+	{
+		if(dispatcher == null)
+			throw new NullPointerException();
+		if(windowMillis <= 0 || maxLength <= HEADER_RESERVE)
+			throw new IllegalArgumentException();
+
+		this.dispatcher = dispatcher;
+		this.maxLength = maxLength;
+
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread thread = new Thread(r, "telegram-digest");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		scheduler.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * 알림을 모으는 메소드. 다음 flush에서 같은 token, chat id의 알림과 함께 보낸다.
+	 * @param token 텔레그램 bot token
+	 * @param chatId chat id
+	 * @param text 메세지
+	 * @param priority PRIORITY_ERROR 또는 PRIORITY_WARN. 모은 알림 중 가장 높은 우선순위로 보낸다.
+	 */
+	public synchronized void add(String token, String chatId, String text, int priority)
+	{
+		if(token == null || chatId == null || text == null)
+			throw new NullPointerException();
+
+		String key = new StringBuilder(token).append('\n').append(chatId).toString();
+		Batch batch = this.batches.get(key);
+		if(batch == null)
+		{
+			batch = new Batch(token, chatId);
+			this.batches.put(key, batch);
+		}
+
+		batch.count++;
+		if(batch.lines.size() < MAX_LINES)
+			batch.lines.add(text);
+		else
+			batch.omitted++;
+
+		if(priority == TelegramDispatcher.PRIORITY_ERROR)
+			batch.priority = TelegramDispatcher.PRIORITY_ERROR;
+	}
+
+	/**
+	 * 모은 알림을 chat id별로 합쳐서 dispatcher에 넣는 메소드
+	 * @return dispatcher에 넣은 메세지 수
+	 */
+	public int flush()
+	{
+		Map<String, Batch> flushing;
+		synchronized(this)
+		{
+			if(this.batches.isEmpty())
+				return 0;
+
+			flushing = this.batches;
+			this.batches = new LinkedHashMap<String, Batch>();
+		}
+
+		int count = 0;
+		for(Batch batch : flushing.values())
+		{
+			if(batch.omitted > 0)
+				batch.lines.add(new StringBuilder("... ").append(batch.omitted).append(" more alerts").toString());
+
+			List<String> parts = split(batch.lines, this.maxLength - HEADER_RESERVE);
+			for(int i = 0; i < parts.size(); i++)
+			{
+				StringBuilder header = new StringBuilder("[DIGEST] ").append(batch.count).append(" alerts");
+				if(parts.size() > 1)
+					header.append(" (").append(i + 1).append('/').append(parts.size()).append(')');
+
+				if(this.dispatcher.send(batch.token, batch.chatId, header.append('\n').append(parts.get(i)).toString(), batch.priority))
+					count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 줄을 '\n'으로 이어 붙이되, maxLength를 넘지 않도록 나누는 메소드<br>
+	 * 한 줄이 maxLength보다 길면 그 줄도 잘라서 나눈다.
+	 * @param lines 줄
+	 * @param maxLength 나눈 문자열 1개의 최대 길이
+	 * @return 나눈 문자열
+	 */
+	static List<String> split(List<String> lines, int maxLength)
+	{
+		List<String> parts = new ArrayList<String>();
+		StringBuilder part = new StringBuilder();
+
+		for(String line : lines)
+		{
+			if(part.length() > 0 && part.length() + 1 + line.length() > maxLength)
+			{
+				parts.add(part.toString());
+				part.setLength(0);
+			}
+
+			if(part.length() > 0)
+				part.append('\n');
+
+			int start = 0;
+			while(line.length() - start > maxLength - part.length())
+			{
+				int end = start + maxLength - part.length();
+				// surrogate pair를 자르지 않는다.
+				if(Character.isHighSurrogate(line.charAt(end - 1)))
+					end--;
+				parts.add(part.append(line, start, end).toString());
+				part.setLength(0);
+				start = end;
+			}
+			part.append(line, start, line.length());
+		}
+
+		if(part.length() > 0)
+			parts.add(part.toString());
+		return parts;
+	}
+
+	/**
+	 * 남은 알림을 보내고 종료하는 메소드. dispatcher보다 먼저 종료해야 한다.
+	 */
+	public void shutdown()
+	{
+		this.scheduler.shutdownNow();
+		this.flush();
+	}
+
+	/**
+	 * token, chat id별로 모은 알림
+	 */
+	private static class Batch {
+		private final String token;
+		private final String chatId;
+		private final List<String> lines = new ArrayList<String>();
+		private int priority = TelegramDispatcher.PRIORITY_WARN;
+
+		/** 모은 알림 수 */
+		private int count;
+
+		/** MAX_LINES를 넘어서 수만 센 알림 수 */
+		private int omitted;
+
+		private Batch(String token, String chatId)
+		{
+			this.token = token;
+			this.chatId = chatId;
+		}
+	}
+}
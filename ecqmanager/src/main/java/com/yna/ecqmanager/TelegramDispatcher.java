@@ -0,0 +1,346 @@
+package com.yna.ecqmanager;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.yna.ecqmanager.log.KLogger;
+import com.yna.ecqmanager.log.LazyLogData;
+
+/**
+ * 텔레그램 메세지를 worker thread에서 비동기로 보내는 클래스<br>
+ * send()는 메세지를 queue에 넣고 바로 리턴하므로, 텔레그램 API가 느리거나 응답이 없어도 burrow polling thread는 기다리지 않는다.<br>
+ * queue는 우선순위(ERROR, WARN)별로 나누어 ERROR를 먼저 보낸다. 전체 크기는 capacity로 제한되며, 가득 차면 가장 오래된 WARN을 버리고 ERROR를 넣는다.<br>
+ * 전송에 실패하면 retryBackoff * 2^(n-1) ms 뒤에 다시 queue에 넣어 최대 maxRetry번 다시 보낸다.
+ */
+public class TelegramDispatcher {
+
+	/** 메세지 우선순위 */
+	public static final int PRIORITY_WARN = 0;
+	public static final int PRIORITY_ERROR = 1;
+
+	/** 재시도 대기 시간 최대값 (ms) */
+	private static final long MAX_BACKOFF_MILLIS = 60000L;
+
+	/**
+	 * 메세지 1건을 실제로 보내는 인터페이스. 실패하면 예외를 던진다.
+	 */
+	public interface Sender {
+
+		/**
+		 * 메세지를 보내는 메소드
+		 * @param token 텔레그램 bot token
+		 * @param chatId chat id
+		 * @param text 메세지
+		 * @throws Exception 전송 실패
+		 */
+		public void send(String token, String chatId, String text) throws Exception;
+	}
+
+	/** 메세지 전송 */
+	private Sender sender;
+
+	/** 우선순위별 queue. index는 우선순위 */
+	private ArrayDeque<Message>[] queues;
+
+	/** 전체 queue 크기 제한 */
+	private int capacity;
+
+	/** queue lock */
+	private ReentrantLock lock;
+
+	/** queue에 메세지가 들어왔을 때 worker를 깨우는 condition */
+	private Condition notEmpty;
+
+	/** worker thread */
+	private Thread[] workers;
+
+	/** 재시도 예약용 thread */
+	private ScheduledExecutorService retryExecutor;
+
+	/** 최대 재시도 수 */
+	private int maxRetry;
+
+	/** 첫 재시도 대기 시간 (ms) */
+	private long retryBackoffMillis;
+
+	/** 종료 여부 */
+	private volatile boolean isShutdown;
+
+	/** 보낸 메세지 수 */
+	private final AtomicLong sentCount = new AtomicLong();
+
+	/** 재시도까지 모두 실패했거나, queue가 가득 차서 버린 메세지 수 */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** 재시도까지 모두 실패한 메세지를 ERROR로 남길 로거. null이면 남기지 않는다. */
+	private volatile KLogger logger;
+
+	/**
+	 * TelegramDispatcher 생성자
+	 * @param sender 메세지 전송
+	 * @param capacity queue 크기
+	 * @param workerCount worker thread 수
+	 * @param maxRetry 최대 재시도 수
+	 * @param retryBackoffMillis 첫 재시도 대기 시간 (ms). 재시도마다 2배로 늘어난다.
+	 */
+	@SuppressWarnings("unchecked")
+	public TelegramDispatcher(Sender sender, int capacity, int workerCount, int maxRetry, long retryBackoffMillis)
+	{
+		if(sender == null)
+			throw new NullPointerException();
+		if(capacity <= 0 || workerCount <= 0 || maxRetry < 0 || retryBackoffMillis <= 0)
+			throw new IllegalArgumentException();
+
+		this.sender = sender;
+		this.capacity = capacity;
+		this.maxRetry = maxRetry;
+		this.retryBackoffMillis = retryBackoffMillis;
+		this.queues = new ArrayDeque[] { new ArrayDeque<Message>(), new ArrayDeque<Message>() };
+		this.lock = new ReentrantLock();
+		this.notEmpty = this.lock.newCondition();
+
+		ScheduledThreadPoolExecutor retryExecutor = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread thread = new Thread(r, "telegram-retry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		retryExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		this.retryExecutor = retryExecutor;
+
+		this.workers = new Thread[workerCount];
+		for(int i = 0; i < workerCount; i++)
+		{
+			this.workers[i] = new Thread(this::work, "telegram-" + (i + 1));
+			this.workers[i].setDaemon(true);
+			this.workers[i].start();
+		}
+	}
+
+	/**
+	 * 메세지를 queue에 넣는 메소드. 기다리지 않고 바로 리턴한다.
+	 * @param token 텔레그램 bot token
+	 * @param chatId chat id
+	 * @param text 메세지
+	 * @param priority PRIORITY_ERROR 또는 PRIORITY_WARN
+	 * @return queue에 넣었으면 true, 가득 차서 버렸으면 false
+	 */
+	public boolean send(String token, String chatId, String text, int priority)
+	{
+		if(token == null || chatId == null || text == null)
+			throw new NullPointerException();
+
+		return this.offer(new Message(token, chatId, text, priority == PRIORITY_ERROR ? PRIORITY_ERROR : PRIORITY_WARN));
+	}
+
+	/**
+	 * 메세지를 queue에 넣는 메소드<br>
+	 * 가득 찬 경우, ERROR 메세지는 가장 오래된 WARN 메세지를 버리고 넣는다. WARN 메세지이거나 버릴 WARN이 없으면 새 메세지를 버린다.
+	 * @param message 메세지
+	 * @return 넣었으면 true
+	 */
+	private boolean offer(Message message)
+	{
+		this.lock.lock();
+		try
+		{
+			if(this.isShutdown)
+				return false;
+
+			if(this.size() >= this.capacity)
+			{
+				if(message.priority == PRIORITY_WARN || this.queues[PRIORITY_WARN].pollFirst() == null)
+				{
+					this.droppedCount.incrementAndGet();
+					return false;
+				}
+				this.droppedCount.incrementAndGet();
+			}
+
+			this.queues[message.priority].addLast(message);
+			this.notEmpty.signal();
+			return true;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * queue의 메세지를 꺼내서 보내는 메소드 (worker thread)
+	 */
+	private void work()
+	{
+		while(true)
+		{
+			Message message = null;
+
+			this.lock.lock();
+			try
+			{
+				while((message = this.poll()) == null)
+				{
+					if(this.isShutdown)
+						return;
+					this.notEmpty.await();
+				}
+			}
+			catch(InterruptedException e)
+			{
+				return;
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+
+			try
+			{
+				this.sender.send(message.token, message.chatId, message.text);
+				this.sentCount.incrementAndGet();
+			}
+			catch(Exception e)
+			{
+				this.retry(message, e);
+			}
+		}
+	}
+
+	/**
+	 * 우선순위가 높은 queue부터 메세지를 꺼내는 메소드. lock을 잡고 호출해야 한다.
+	 * @return 메세지. 비어있으면 null
+	 */
+	private Message poll()
+	{
+		Message message = this.queues[PRIORITY_ERROR].pollFirst();
+		return message != null ? message : this.queues[PRIORITY_WARN].pollFirst();
+	}
+
+	/**
+	 * 전송에 실패한 메세지를 backoff 시간 뒤에 다시 queue에 넣는 메소드. maxRetry번 실패하면 버린다.
+	 * @param message 메세지
+	 * @param e 실패 원인
+	 */
+	private void retry(Message message, Exception e)
+	{
+		if(message.attempt >= this.maxRetry || this.isShutdown)
+		{
+			this.droppedCount.incrementAndGet();
+			KLogger logger = this.logger;
+			if(logger != null)
+				logger.log(new LazyLogData(KLogger.ERROR, "telegram send fail. chatId :", message.chatId, "attempt :", message.attempt + 1, e));
+			return;
+		}
+
+		long backoff = Math.min(this.retryBackoffMillis << Math.min(message.attempt, 20), MAX_BACKOFF_MILLIS);
+		message.attempt++;
+
+		try
+		{
+			this.retryExecutor.schedule(() -> this.offer(message), backoff, TimeUnit.MILLISECONDS);
+		}
+		catch(Exception ex)
+		{
+			// 종료 중
+			this.droppedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * 재시도까지 모두 실패한 메세지를 ERROR로 남길 로거를 설정하는 메소드
+	 * @param logger 로거. null이면 남기지 않는다.
+	 */
+	public void setLogger(KLogger logger)
+	{
+		this.logger = logger;
+	}
+
+	/**
+	 * queue에 남은 메세지 수를 리턴하는 메소드. lock을 잡고 호출해야 한다.
+	 * @return 메세지 수
+	 */
+	private int size()
+	{
+		return this.queues[PRIORITY_ERROR].size() + this.queues[PRIORITY_WARN].size();
+	}
+
+	/**
+	 * queue에 남은 메세지 수를 리턴하는 메소드
+	 * @return 메세지 수
+	 */
+	public int getQueueSize()
+	{
+		this.lock.lock();
+		try
+		{
+			return this.size();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 보낸 메세지 수를 리턴하는 메소드
+	 * @return 보낸 메세지 수
+	 */
+	public long getSentCount()
+	{
+		return this.sentCount.get();
+	}
+
+	/**
+	 * 버린 메세지 수를 리턴하는 메소드
+	 * @return queue가 가득 차서 버렸거나 재시도까지 모두 실패한 메세지 수
+	 */
+	public long getDroppedCount()
+	{
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * dispatcher를 종료하는 메소드<br>
+	 * 새 메세지와 재시도는 받지 않고, worker는 queue에 남은 메세지를 보낸 뒤 종료한다.
+	 */
+	public void shutdown()
+	{
+		this.lock.lock();
+		try
+		{
+			this.isShutdown = true;
+			this.notEmpty.signalAll();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+		this.retryExecutor.shutdownNow();
+	}
+
+	/**
+	 * queue에 담는 메세지
+	 */
+	private static class Message {
+		private final String token;
+		private final String chatId;
+		private final String text;
+		private final int priority;
+
+		/** 지금까지 재시도한 수 */
+		private int attempt;
+
+		private Message(String token, String chatId, String text, int priority)
+		{
+			this.token = token;
+			this.chatId = chatId;
+			this.text = text;
+			this.priority = priority;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.yna.ecqmanager;
+
+/**
+ * token bucket 방식의 전송량 제한 클래스<br>
+ * 최대 capacity개까지 한 번에 보낼 수 있고, token은 refillMillis마다 1개씩 다시 채워진다.<br>
+ * 상태는 token 수와 마지막으로 채운 시간뿐이므로 tryAcquire()는 O(1)이다.
+ */
+public class TokenBucket {
+
+	/** 최대 token 수 */
+	private final int capacity;
+
+	/** token 1개가 채워지는 시간 (ms) */
+	private final long refillMillis;
+
+	/** 남은 token 수 */
+	private int tokens;
+
+	/** 마지막으로 token을 채운 시간 (epoch ms) */
+	private long refilledMillis;
+
+	/**
+	 * TokenBucket 생성자
+	 * @param capacity 최대 token 수 (한 번에 보낼 수 있는 수)
+	 * @param refillMillis token 1개가 채워지는 시간 (ms)
+	 */
+	public TokenBucket(int capacity, long refillMillis)
+	{
+		if(capacity <= 0 || refillMillis <= 0)
+			throw new IllegalArgumentException();
+
+		this.capacity = capacity;
+		this.refillMillis = refillMillis;
+		this.tokens = capacity;
+	}
+
+	/**
+	 * token 1개를 사용하는 메소드
+	 * @param now 현재 시간 (epoch ms)
+	 * @return token이 있으면 true
+	 */
+	public synchronized boolean tryAcquire(long now)
+	{
+		if(!this.hasToken(now))
+			return false;
+
+		this.tokens--;
+		return true;
+	}
+
+	/**
+	 * 두 bucket에 모두 token이 있을 때만 token을 1개씩 사용하는 메소드<br>
+	 * 한쪽에 token이 없으면 어느 쪽도 사용하지 않는다. 같은 bucket들을 항상 같은 순서로 넘겨야 한다.
+	 * @param first 먼저 lock을 잡는 bucket (예: 컨슈머별 제한)
+	 * @param second 나중에 lock을 잡는 bucket (예: 전체 제한)
+	 * @param now 현재 시간 (epoch ms)
+	 * @return token을 사용했으면 true
+	 */
+	public static boolean tryAcquire(TokenBucket first, TokenBucket second, long now)
+	{
+		synchronized(first)
+		{
+			synchronized(second)
+			{
+				if(!first.hasToken(now) || !second.hasToken(now))
+					return false;
+
+				first.tokens--;
+				second.tokens--;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 지난 시간만큼 token을 채우고, 남은 token이 있는지 리턴하는 메소드. lock을 잡고 호출해야 한다.
+	 * @param now 현재 시간 (epoch ms)
+	 * @return token이 있으면 true
+	 */
+	private boolean hasToken(long now)
+	{
+		if(this.refilledMillis == 0)
+			this.refilledMillis = now;
+
+		long refill = (now - this.refilledMillis) / this.refillMillis;
+		if(refill > 0)
+		{
+			this.tokens = (int) Math.min(this.capacity, this.tokens + refill);
+			this.refilledMillis += refill * this.refillMillis;
+		}
+		return this.tokens > 0;
+	}
+}
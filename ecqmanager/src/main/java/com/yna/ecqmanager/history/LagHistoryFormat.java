@@ -0,0 +1,119 @@
+package com.yna.ecqmanager.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * lag history 파일 형식의 상수와 인코딩 메소드를 모아둔 클래스<br>
+ * <pre>
+ * 파일   : HEADER RECORD* (0으로 채워진 나머지 공간)
+ * HEADER : 'B' 'L' 'A' 'G' VERSION(1 byte)
+ * RECORD : TYPE(1 byte) LENGTH(varint) BODY(LENGTH byte) CRC32(BODY, 4 byte)
+ * STRING : id(varint) utf8 byte
+ * SAMPLE : timeDelta(zigzag) statusId+1(varint, 0은 null) totalLagDelta(zigzag) count(varint)
+ *          { topicId(varint) partition(varint) lagDelta(zigzag) } * count
+ * </pre>
+ * 문자열(topic명, status)은 파일마다 처음 나올 때 STRING record로 id를 부여하고, 이후에는 id만 기록한다.<br>
+ * 시간은 직전 sample과의 차이, lag은 같은 (topic, partition)의 직전 lag과의 차이를 기록한다.
+ */
+final class LagHistoryFormat {
+
+	/** 파일 시작 magic */
+	static final byte[] MAGIC = { 'B', 'L', 'A', 'G' };
+
+	/** 파일 형식 버전 */
+	static final byte VERSION = 1;
+
+	/** header 크기 */
+	static final int HEADER_SIZE = MAGIC.length + 1;
+
+	/** record 종류. 0은 기록되지 않은 공간이다. */
+	static final byte TYPE_END = 0;
+	static final byte TYPE_STRING = 1;
+	static final byte TYPE_SAMPLE = 2;
+
+	/** record의 CRC 크기 */
+	static final int CRC_SIZE = 4;
+
+	/** 파일 확장자 */
+	static final String FILE_SUFFIX = ".lag";
+
+	/** 기록하는 최대 partition 번호. 직전 lag을 partition 번호를 index로 하는 배열에 두므로 배열 크기를 제한한다. */
+	static final int MAX_PARTITION = 65535;
+
+	private LagHistoryFormat()
+	{
+		throw new AssertionError();
+	}
+
+	/**
+	 * long을 varint로 기록하는 메소드 (음수가 아닌 값)
+	 * @param buffer 버퍼
+	 * @param value 값
+	 */
+	static void putVarLong(ByteBuffer buffer, long value)
+	{
+		while((value & ~0x7FL) != 0)
+		{
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * varint를 읽는 메소드
+	 * @param buffer 버퍼
+	 * @return 값
+	 * @throws IllegalStateException 형식이 잘못된 경우 발생
+	 */
+	static long getVarLong(ByteBuffer buffer)
+	{
+		long value = 0;
+
+		for(int shift = 0; shift < 64; shift += 7)
+		{
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new IllegalStateException("invalid varint");
+	}
+
+	/**
+	 * 부호가 있는 값을 zigzag 인코딩하는 메소드
+	 * @param value 값
+	 * @return zigzag 값
+	 */
+	static long zigzag(long value)
+	{
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * zigzag 인코딩된 값을 원래 값으로 바꾸는 메소드
+	 * @param value zigzag 값
+	 * @return 값
+	 */
+	static long unzigzag(long value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * varint 크기를 리턴하는 메소드
+	 * @param value 값
+	 * @return byte 수
+	 */
+	static int varLongSize(long value)
+	{
+		int size = 1;
+		while((value & ~0x7FL) != 0)
+		{
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+}
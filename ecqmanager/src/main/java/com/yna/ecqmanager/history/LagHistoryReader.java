@@ -0,0 +1,319 @@
+package com.yna.ecqmanager.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * LagHistoryWriter가 기록한 lag history 파일을 처음부터 순서대로 읽는 클래스<br>
+ * 파일 전체를 read-only로 mmap하여 순차적으로 읽는다.<br>
+ * 끝까지 기록되지 않았거나 CRC가 맞지 않는 record를 만나면 거기서 읽기를 멈춘다. (비정상 종료된 파일의 마지막 record)
+ * <pre>
+ * try(LagHistoryReader reader = new LagHistoryReader(path))
+ * {
+ *     while(reader.next())
+ *         reader.getTime(), reader.getTopic(i), reader.getLag(i) ...
+ * }
+ * </pre>
+ */
+public class LagHistoryReader implements Closeable {
+
+	/** 파일 채널 */
+	private FileChannel channel;
+
+	/** mmap된 파일 */
+	private ByteBuffer buffer;
+
+	/** 정상적으로 읽은 마지막 record의 끝 위치 */
+	private int validLength;
+
+	/** id - 문자열 사전 */
+	private List<String> strings;
+
+	/** topicId별, partition 번호별 직전 lag */
+	private List<long[]> prevLags;
+
+	/** CRC 계산용 */
+	private CRC32 crc;
+
+	/** 현재 sample 값 */
+	private long time;
+	private String status;
+	private long totalLag;
+	private int partitionCount;
+	private int[] topicIds;
+	private long[] partitions;
+	private long[] lags;
+
+	/**
+	 * LagHistoryReader 생성자
+	 * @param file lag history 파일
+	 * @throws IOException 파일을 열 수 없거나 형식이 다를 때 발생
+	 */
+	public LagHistoryReader(Path file) throws IOException
+	{
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		long size = this.channel.size();
+		if(size > Integer.MAX_VALUE)
+		{
+			this.channel.close();
+			throw new IOException("file is too large. file : " + file);
+		}
+
+		MappedByteBuffer mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		this.buffer = mapped;
+		this.strings = new ArrayList<String>();
+		this.prevLags = new ArrayList<long[]>();
+		this.crc = new CRC32();
+		this.topicIds = new int[16];
+		this.partitions = new long[16];
+		this.lags = new long[16];
+
+		if(size < LagHistoryFormat.HEADER_SIZE)
+		{
+			// header도 기록되지 않은 파일
+			this.buffer.position(this.buffer.limit());
+			this.validLength = 0;
+			return;
+		}
+
+		for(int i = 0; i < LagHistoryFormat.MAGIC.length; i++)
+		{
+			if(this.buffer.get() != LagHistoryFormat.MAGIC[i])
+			{
+				this.channel.close();
+				throw new IOException("not a lag history file. file : " + file);
+			}
+		}
+		if(this.buffer.get() != LagHistoryFormat.VERSION)
+		{
+			this.channel.close();
+			throw new IOException("unsupported version. file : " + file);
+		}
+		this.validLength = LagHistoryFormat.HEADER_SIZE;
+	}
+
+	/**
+	 * 다음 sample을 읽는 메소드
+	 * @return sample이 있으면 true, 파일 끝(또는 손상된 record)이면 false
+	 */
+	public boolean next()
+	{
+		while(this.buffer.position() < this.buffer.limit())
+		{
+			byte type = this.buffer.get();
+
+			if(type == LagHistoryFormat.TYPE_END)
+				return this.stop();
+
+			long length;
+			try
+			{
+				length = LagHistoryFormat.getVarLong(this.buffer);
+			}
+			catch(RuntimeException e)
+			{
+				return this.stop();
+			}
+
+			int bodyStart = this.buffer.position();
+			if(length < 0 || length > this.buffer.limit() - bodyStart - LagHistoryFormat.CRC_SIZE)
+				return this.stop();
+
+			int bodyEnd = bodyStart + (int) length;
+			ByteBuffer body = this.buffer.duplicate();
+			body.position(bodyStart).limit(bodyEnd);
+
+			this.crc.reset();
+			this.crc.update(body.duplicate());
+			if((int) this.crc.getValue() != this.buffer.getInt(bodyEnd))
+				return this.stop();
+
+			this.buffer.position(bodyEnd + LagHistoryFormat.CRC_SIZE);
+
+			try
+			{
+				if(type == LagHistoryFormat.TYPE_STRING)
+				{
+					this.readString(body);
+				}
+				else if(type == LagHistoryFormat.TYPE_SAMPLE)
+				{
+					this.readSample(body);
+					this.validLength = this.buffer.position();
+					return true;
+				}
+			}
+			catch(RuntimeException e)
+			{
+				return this.stop();
+			}
+			this.validLength = this.buffer.position();
+		}
+		return false;
+	}
+
+	/**
+	 * 읽기를 멈추는 메소드
+	 * @return false
+	 */
+	private boolean stop()
+	{
+		this.buffer.position(this.buffer.limit());
+		return false;
+	}
+
+	/**
+	 * STRING record를 읽는 메소드
+	 * @param body record body
+	 */
+	private void readString(ByteBuffer body)
+	{
+		int id = (int) LagHistoryFormat.getVarLong(body);
+		byte[] bytes = new byte[body.remaining()];
+		body.get(bytes);
+
+		while(this.strings.size() <= id)
+			this.strings.add(null);
+		this.strings.set(id, new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * SAMPLE record를 읽는 메소드
+	 * @param body record body
+	 */
+	private void readSample(ByteBuffer body)
+	{
+		this.time += LagHistoryFormat.unzigzag(LagHistoryFormat.getVarLong(body));
+
+		int statusId = (int) LagHistoryFormat.getVarLong(body);
+		this.status = statusId == 0 ? null : this.strings.get(statusId - 1);
+		this.totalLag += LagHistoryFormat.unzigzag(LagHistoryFormat.getVarLong(body));
+
+		int count = (int) LagHistoryFormat.getVarLong(body);
+		if(count > this.lags.length)
+		{
+			int size = Math.max(count, this.lags.length * 2);
+			this.topicIds = new int[size];
+			this.partitions = new long[size];
+			this.lags = new long[size];
+		}
+
+		for(int i = 0; i < count; i++)
+		{
+			int topicId = (int) LagHistoryFormat.getVarLong(body);
+			int partition = (int) LagHistoryFormat.getVarLong(body);
+			long[] prev = this.getPrevLags(topicId, partition);
+
+			prev[partition] += LagHistoryFormat.unzigzag(LagHistoryFormat.getVarLong(body));
+			this.topicIds[i] = topicId;
+			this.partitions[i] = partition;
+			this.lags[i] = prev[partition];
+		}
+		this.partitionCount = count;
+	}
+
+	/**
+	 * topicId의 직전 lag 배열을 리턴하는 메소드. partition 번호가 배열보다 크면 늘린다.
+	 * @param topicId topic id
+	 * @param partition partition 번호
+	 * @return 직전 lag 배열
+	 * @throws IllegalStateException partition 번호가 범위를 벗어나면 발생. next()는 손상된 record로 보고 읽기를 멈춘다.
+	 */
+	private long[] getPrevLags(int topicId, int partition)
+	{
+		if(partition < 0 || partition > LagHistoryFormat.MAX_PARTITION)
+			throw new IllegalStateException("invalid partition : " + partition);
+
+		while(this.prevLags.size() <= topicId)
+			this.prevLags.add(new long[0]);
+
+		long[] prev = this.prevLags.get(topicId);
+		if(prev.length <= partition)
+		{
+			long[] temp = new long[partition + 1];
+			System.arraycopy(prev, 0, temp, 0, prev.length);
+			prev = temp;
+			this.prevLags.set(topicId, prev);
+		}
+		return prev;
+	}
+
+	/**
+	 * 정상적으로 읽은 마지막 record의 끝 위치를 리턴하는 메소드<br>
+	 * LagHistoryWriter가 기존 파일에 이어서 쓸 때 사용한다.
+	 * @return validLength 위치
+	 */
+	public int getValidLength()
+	{
+		return this.validLength;
+	}
+
+	/**
+	 * 지금까지 읽은 문자열 사전을 리턴하는 메소드
+	 * @return id - 문자열 list
+	 */
+	List<String> getStrings()
+	{
+		return this.strings;
+	}
+
+	/**
+	 * 지금까지 읽은 직전 lag을 리턴하는 메소드
+	 * @return topicId별 직전 lag 배열
+	 */
+	List<long[]> getPrevLags()
+	{
+		return this.prevLags;
+	}
+
+	public long getTime()
+	{
+		return this.time;
+	}
+
+	public String getStatus()
+	{
+		return this.status;
+	}
+
+	public long getTotalLag()
+	{
+		return this.totalLag;
+	}
+
+	public int getPartitionCount()
+	{
+		return this.partitionCount;
+	}
+
+	public String getTopic(int index)
+	{
+		return this.strings.get(this.topicIds[index]);
+	}
+
+	public long getPartition(int index)
+	{
+		return this.partitions[index];
+	}
+
+	public long getLag(int index)
+	{
+		return this.lags[index];
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+}
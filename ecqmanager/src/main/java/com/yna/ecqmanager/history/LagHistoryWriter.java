@@ -0,0 +1,456 @@
+package com.yna.ecqmanager.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 컨슈머의 lag sample을 날짜별 binary 파일({path}/{name}.yyyyMMdd.lag)에 이어서 기록하는 클래스<br>
+ * 파일은 segmentSize 단위로 mmap하여 기록하며, 공간이 모자라면 다음 구간을 다시 mmap한다. close()에서 기록한 크기로 파일을 자른다.<br>
+ * topic명과 status는 id로, 시간과 lag은 직전 값과의 차이로 기록하므로 partition 1개는 sample마다 보통 3~6 byte를 사용한다. (형식은 LagHistoryFormat 참고)<br>
+ * 이미 있는 파일을 열면 LagHistoryReader로 끝까지 읽어 사전과 직전 값을 복구하고, 손상된 마지막 record는 잘라낸 뒤 이어서 기록한다.
+ * <pre>
+ * writer.beginSample(time, status, totalLag);
+ * writer.addPartition(topic, partition, lag); ...
+ * writer.endSample();
+ * </pre>
+ */
+public class LagHistoryWriter implements Closeable {
+
+	/** 기본 mmap 구간 크기 */
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+	/** 파일을 저장할 path */
+	private Path path;
+
+	/** 파일명 앞부분 */
+	private String name;
+
+	/** 한 번에 mmap할 크기 */
+	private int segmentSize;
+
+	/** 파일명 날짜 포맷 */
+	private SimpleDateFormat dateFormat;
+
+	/** 현재 파일의 날짜 (yyyyMMdd) */
+	private String fileDate;
+
+	/** 현재 파일 채널 */
+	private FileChannel channel;
+
+	/** 현재 mmap된 구간 */
+	private MappedByteBuffer mapped;
+
+	/** 현재 mmap된 구간의 파일 내 시작 위치 */
+	private long mappedStart;
+
+	/** 다음 record를 쓸 파일 내 위치 */
+	private long position;
+
+	/** 문자열 - id 사전 */
+	private Map<String, Integer> stringIds;
+
+	/** topicId별, partition 번호별 직전 lag */
+	private List<long[]> prevLags;
+
+	/** 직전 sample 시간 */
+	private long prevTime;
+
+	/** 직전 sample 전체 lag */
+	private long prevTotalLag;
+
+	/** 현재 sample의 header 값 */
+	private long sampleTime;
+	private String sampleStatus;
+	private long sampleTotalLag;
+
+	/** 현재 sample의 partition 수 */
+	private int partitionCount;
+
+	/** 현재 sample의 partition 인코딩 버퍼 */
+	private ByteBuffer partitionBuffer;
+
+	/** 현재 sample에서 바꾼 직전 lag의 원래 값 (topicId, partition, lag 순서). sample을 기록하지 못하면 되돌린다. */
+	private long[] undoLags;
+
+	/** undoLags에 담긴 값 수 */
+	private int undoCount;
+
+	/** record body 인코딩 버퍼 */
+	private ByteBuffer recordBuffer;
+
+	/** CRC 계산용 */
+	private CRC32 crc;
+
+	/** close() 호출 여부 */
+	private boolean isClosed;
+
+	/**
+	 * LagHistoryWriter 생성자
+	 * @param path 파일을 저장할 path
+	 * @param name 파일명 앞부분 (보통 컨슈머 로그 이름)
+	 */
+	public LagHistoryWriter(String path, String name)
+	{
+		this(path, name, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * LagHistoryWriter 생성자
+	 * @param path 파일을 저장할 path
+	 * @param name 파일명 앞부분 (보통 컨슈머 로그 이름)
+	 * @param segmentSize 한 번에 mmap할 크기
+	 */
+	public LagHistoryWriter(String path, String name, int segmentSize)
+	{
+		if(path == null || name == null || segmentSize <= 0)
+			throw new IllegalArgumentException();
+
+		this.path = Paths.get(path);
+		this.name = name;
+		this.segmentSize = segmentSize;
+		this.dateFormat = new SimpleDateFormat("yyyyMMdd");
+		this.stringIds = new HashMap<String, Integer>();
+		this.prevLags = new ArrayList<long[]>();
+		this.partitionBuffer = ByteBuffer.allocate(4096);
+		this.undoLags = new long[3 * 64];
+		this.recordBuffer = ByteBuffer.allocate(4096);
+		this.crc = new CRC32();
+	}
+
+	/**
+	 * 새 sample을 시작하는 메소드<br>
+	 * sample 시간의 날짜가 현재 파일과 다르면 새 날짜의 파일로 바꾼다. endSample()로 기록하지 않은 이전 sample은 버린다.
+	 * @param time sample 시간 (epoch ms)
+	 * @param status 컨슈머 status. null 가능
+	 * @param totalLag 전체 lag
+	 * @throws IOException 파일을 열지 못했을 때 발생
+	 */
+	public synchronized void beginSample(long time, String status, long totalLag) throws IOException
+	{
+		if(this.isClosed)
+			throw new IOException("LagHistoryWriter is closed.");
+
+		this.rollbackSample();
+
+		String date = this.dateFormat.format(new Date(time));
+		if(!date.equals(this.fileDate))
+		{
+			this.closeFile();
+			this.openFile(date);
+		}
+
+		this.sampleTime = time;
+		this.sampleStatus = status;
+		this.sampleTotalLag = totalLag;
+		this.partitionCount = 0;
+		this.partitionBuffer.clear();
+	}
+
+	/**
+	 * 현재 sample에 partition lag을 추가하는 메소드<br>
+	 * topic이 null이거나 partition이 음수 또는 LagHistoryFormat.MAX_PARTITION보다 크면 무시한다.
+	 * @param topic topic명
+	 * @param partition partition 번호
+	 * @param lag lag
+	 * @throws IOException 파일에 쓰지 못했을 때 발생
+	 */
+	public synchronized void addPartition(String topic, long partition, long lag) throws IOException
+	{
+		if(this.channel == null || topic == null || partition < 0 || partition > LagHistoryFormat.MAX_PARTITION)
+			return;
+
+		int topicId = this.getStringId(topic);
+		long[] prev = this.getPrevLags(topicId, (int) partition);
+
+		this.partitionBuffer = ensure(this.partitionBuffer, 30);
+		LagHistoryFormat.putVarLong(this.partitionBuffer, topicId);
+		LagHistoryFormat.putVarLong(this.partitionBuffer, partition);
+		LagHistoryFormat.putVarLong(this.partitionBuffer, LagHistoryFormat.zigzag(lag - prev[(int) partition]));
+
+		// 같은 sample에 같은 partition이 다시 나오면 reader처럼 바로 앞의 값과의 차이를 기록해야 하므로, 직전 lag은 바로 바꾸고 원래 값을 남겨둔다.
+		if(this.undoCount + 3 > this.undoLags.length)
+			this.undoLags = Arrays.copyOf(this.undoLags, this.undoLags.length * 2);
+		this.undoLags[this.undoCount++] = topicId;
+		this.undoLags[this.undoCount++] = partition;
+		this.undoLags[this.undoCount++] = prev[(int) partition];
+		prev[(int) partition] = lag;
+		this.partitionCount++;
+	}
+
+	/**
+	 * 현재 sample을 파일에 기록하는 메소드<br>
+	 * 기록하지 못하면 sample을 버리고 직전 lag을 되돌리므로, 다음 sample은 마지막으로 기록된 sample과의 차이로 기록된다.
+	 * @throws IOException 파일에 쓰지 못했을 때 발생
+	 */
+	public synchronized void endSample() throws IOException
+	{
+		if(this.channel == null)
+			return;
+
+		try
+		{
+			this.writeSample();
+		}
+		catch(IOException | RuntimeException e)
+		{
+			this.rollbackSample();
+			throw e;
+		}
+		this.undoCount = 0;
+	}
+
+	/**
+	 * 현재 sample을 SAMPLE record로 기록하는 메소드
+	 */
+	private void writeSample() throws IOException
+	{
+		int statusId = this.sampleStatus == null ? 0 : this.getStringId(this.sampleStatus) + 1;
+
+		this.partitionBuffer.flip();
+		this.recordBuffer.clear();
+		this.recordBuffer = ensure(this.recordBuffer, 40 + this.partitionBuffer.remaining());
+		LagHistoryFormat.putVarLong(this.recordBuffer, LagHistoryFormat.zigzag(this.sampleTime - this.prevTime));
+		LagHistoryFormat.putVarLong(this.recordBuffer, statusId);
+		LagHistoryFormat.putVarLong(this.recordBuffer, LagHistoryFormat.zigzag(this.sampleTotalLag - this.prevTotalLag));
+		LagHistoryFormat.putVarLong(this.recordBuffer, this.partitionCount);
+		this.recordBuffer.put(this.partitionBuffer);
+		this.recordBuffer.flip();
+
+		this.writeRecord(LagHistoryFormat.TYPE_SAMPLE, this.recordBuffer);
+		this.prevTime = this.sampleTime;
+		this.prevTotalLag = this.sampleTotalLag;
+		this.partitionBuffer.clear();
+		this.partitionCount = 0;
+	}
+
+	/**
+	 * 기록하지 못한 sample에서 바꾼 직전 lag을 뒤에서부터 원래 값으로 되돌리는 메소드
+	 */
+	private void rollbackSample()
+	{
+		for(int i = this.undoCount - 3; i >= 0; i -= 3)
+			this.prevLags.get((int) this.undoLags[i])[(int) this.undoLags[i + 1]] = this.undoLags[i + 2];
+
+		this.undoCount = 0;
+		this.partitionBuffer.clear();
+		this.partitionCount = 0;
+	}
+
+	/**
+	 * 현재 기록 중인 파일을 리턴하는 메소드
+	 * @return 파일. 아직 기록하지 않았으면 null
+	 */
+	public synchronized Path getFile()
+	{
+		return this.fileDate == null ? null : this.getFile(this.fileDate);
+	}
+
+	/**
+	 * 날짜별 파일을 리턴하는 메소드
+	 * @param date 날짜 (yyyyMMdd)
+	 * @return 파일
+	 */
+	private Path getFile(String date)
+	{
+		return this.path.resolve(new StringBuilder(this.name).append(".").append(date).append(LagHistoryFormat.FILE_SUFFIX).toString());
+	}
+
+	/**
+	 * 날짜별 파일을 여는 메소드<br>
+	 * 기존 파일이 있으면 정상적으로 기록된 부분까지 읽어서 상태를 복구하고, 그 뒤는 잘라낸다.
+	 * @param date 날짜 (yyyyMMdd)
+	 */
+	private void openFile(String date) throws IOException
+	{
+		Path file = this.getFile(date);
+		Files.createDirectories(this.path);
+
+		this.stringIds.clear();
+		this.prevLags.clear();
+		this.undoCount = 0;
+		this.prevTime = 0;
+		this.prevTotalLag = 0;
+
+		long validLength = 0;
+		if(Files.exists(file) && Files.size(file) > 0)
+		{
+			try(LagHistoryReader reader = new LagHistoryReader(file))
+			{
+				while(reader.next())
+				{
+					this.prevTime = reader.getTime();
+					this.prevTotalLag = reader.getTotalLag();
+				}
+
+				List<String> strings = reader.getStrings();
+				for(int i = 0; i < strings.size(); i++)
+				{
+					if(strings.get(i) != null)
+						this.stringIds.put(strings.get(i), i);
+				}
+				this.prevLags.addAll(reader.getPrevLags());
+				validLength = reader.getValidLength();
+			}
+		}
+
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.channel.truncate(validLength);
+		this.fileDate = date;
+		this.position = validLength;
+		this.map(this.segmentSize);
+
+		if(validLength < LagHistoryFormat.HEADER_SIZE)
+		{
+			// 새 파일이거나 header도 기록되지 않은 파일
+			this.mapped.put(LagHistoryFormat.MAGIC);
+			this.mapped.put(LagHistoryFormat.VERSION);
+			this.position = this.mappedStart + this.mapped.position();
+		}
+	}
+
+	/**
+	 * 현재 위치부터 size만큼 mmap하는 메소드
+	 * @param size mmap할 크기
+	 */
+	private void map(int size) throws IOException
+	{
+		if(this.mapped != null)
+			this.mapped.force();
+
+		this.mappedStart = this.position;
+		this.mapped = this.channel.map(FileChannel.MapMode.READ_WRITE, this.mappedStart, size);
+	}
+
+	/**
+	 * record를 기록하는 메소드<br>
+	 * TYPE은 LENGTH, BODY, CRC를 모두 쓴 뒤 마지막에 기록하므로, 기록 중에 종료되면 reader는 해당 record를 파일 끝(TYPE_END)으로 본다.
+	 * @param type record 종류
+	 * @param body record body
+	 */
+	private void writeRecord(byte type, ByteBuffer body) throws IOException
+	{
+		int length = body.remaining();
+		int recordSize = 1 + LagHistoryFormat.varLongSize(length) + length + LagHistoryFormat.CRC_SIZE;
+
+		if(this.mapped.remaining() < recordSize)
+			this.map(Math.max(this.segmentSize, recordSize));
+
+		this.crc.reset();
+		this.crc.update(body.duplicate());
+
+		int start = this.mapped.position();
+		this.mapped.position(start + 1);
+		LagHistoryFormat.putVarLong(this.mapped, length);
+		this.mapped.put(body);
+		this.mapped.putInt((int) this.crc.getValue());
+		this.mapped.put(start, type);
+
+		this.position = this.mappedStart + this.mapped.position();
+	}
+
+	/**
+	 * 문자열의 id를 리턴하는 메소드. 처음 나온 문자열이면 STRING record를 기록한다.
+	 * @param value 문자열
+	 * @return id
+	 */
+	private int getStringId(String value) throws IOException
+	{
+		Integer id = this.stringIds.get(value);
+		if(id != null)
+			return id;
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer body = ByteBuffer.allocate(LagHistoryFormat.varLongSize(this.stringIds.size()) + bytes.length);
+		LagHistoryFormat.putVarLong(body, this.stringIds.size());
+		body.put(bytes);
+		body.flip();
+
+		this.writeRecord(LagHistoryFormat.TYPE_STRING, body);
+		id = this.stringIds.size();
+		this.stringIds.put(value, id);
+		return id;
+	}
+
+	/**
+	 * topicId의 직전 lag 배열을 리턴하는 메소드. partition 번호가 배열보다 크면 늘린다.
+	 * @param topicId topic id
+	 * @param partition partition 번호
+	 * @return 직전 lag 배열
+	 */
+	private long[] getPrevLags(int topicId, int partition)
+	{
+		while(this.prevLags.size() <= topicId)
+			this.prevLags.add(new long[0]);
+
+		long[] prev = this.prevLags.get(topicId);
+		if(prev.length <= partition)
+		{
+			long[] temp = new long[Math.min(Math.max(partition + 1, prev.length * 2), LagHistoryFormat.MAX_PARTITION + 1)];
+			System.arraycopy(prev, 0, temp, 0, prev.length);
+			prev = temp;
+			this.prevLags.set(topicId, prev);
+		}
+		return prev;
+	}
+
+	/**
+	 * 버퍼에 size만큼 남은 공간이 없으면 큰 버퍼로 바꾸는 메소드
+	 * @param buffer 버퍼
+	 * @param size 필요한 크기
+	 * @return 버퍼
+	 */
+	private static ByteBuffer ensure(ByteBuffer buffer, int size)
+	{
+		if(buffer.remaining() >= size)
+			return buffer;
+
+		ByteBuffer temp = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+		buffer.flip();
+		temp.put(buffer);
+		return temp;
+	}
+
+	/**
+	 * 현재 파일을 닫는 메소드. 기록한 크기로 파일을 자른다.
+	 */
+	private void closeFile() throws IOException
+	{
+		if(this.channel == null)
+			return;
+
+		try
+		{
+			this.mapped.force();
+			this.mapped = null;
+			this.channel.truncate(this.position);
+		}
+		finally
+		{
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		this.isClosed = true;
+		this.closeFile();
+	}
+}
@@ -0,0 +1,136 @@
+package com.yna.ecqmanager.log;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 로그를 System.out에 출력하는 LogSink<br>
+ * write()는 로그를 queue에 넣기만 하고, 별도의 daemon thread가 모아서 출력한다. 따라서 System.out이 느려도 로거 thread는 기다리지 않는다.<br>
+ * queue가 가득 차면 로그를 버리고 dropCount를 올린다. (콘솔 출력은 파일 로그의 보조 수단)<br>
+ * 모든 KLogger가 getInstance()로 1개를 공유한다.
+ */
+public class ConsoleSink implements LogSink {
+
+	/** queue 크기 */
+	private static final int QUEUE_CAPACITY = 8192;
+
+	/** queue가 비었을 때 출력 thread가 최대로 기다리는 시간 (ns) */
+	private static final long MAX_PARK_NANOS = 1000000000L;
+
+	/** 공유 인스턴스 */
+	private static volatile ConsoleSink instance;
+
+	/** 출력할 로그 queue */
+	private MpscRingBuffer<String> queue;
+
+	/** 출력 대상 */
+	private PrintStream out;
+
+	/** 출력 thread */
+	private Thread thread;
+
+	/** 출력 thread가 queue가 비어서 기다리는 중인지 여부 */
+	private final AtomicBoolean isWaiting = new AtomicBoolean(false);
+
+	/** queue가 가득 차서 버린 로그 수 */
+	private final AtomicLong dropCount = new AtomicLong();
+
+	/**
+	 * 공유 ConsoleSink를 리턴하는 메소드. 처음 호출할 때 출력 thread를 시작한다.
+	 * @return ConsoleSink
+	 */
+	public static ConsoleSink getInstance()
+	{
+		if(instance == null)
+		{
+			synchronized(ConsoleSink.class)
+			{
+				if(instance == null)
+					instance = new ConsoleSink(System.out);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * 공유 ConsoleSink가 만들어졌는지 리턴하는 메소드
+	 * @return 만들어졌으면 true
+	 */
+	static boolean isStarted()
+	{
+		return instance != null;
+	}
+
+	/**
+	 * ConsoleSink 생성자
+	 * @param out 출력 대상
+	 */
+	ConsoleSink(PrintStream out)
+	{
+		this.out = out;
+		this.queue = new MpscRingBuffer<String>(QUEUE_CAPACITY);
+		this.thread = new Thread(this::run, "klog-console");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	@Override
+	public void write(String line)
+	{
+		if(!this.queue.offer(line))
+		{
+			this.dropCount.incrementAndGet();
+			return;
+		}
+
+		if(this.isWaiting.get() && this.isWaiting.compareAndSet(true, false))
+			LockSupport.unpark(this.thread);
+	}
+
+	/**
+	 * queue에 쌓인 로그를 모아서 출력하는 메소드 (출력 thread)
+	 */
+	private void run()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		while(true)
+		{
+			String line = this.queue.poll();
+
+			if(line == null)
+			{
+				if(sb.length() > 0)
+				{
+					this.out.print(sb);
+					this.out.flush();
+					sb.setLength(0);
+				}
+
+				this.isWaiting.set(true);
+				if(this.queue.isEmpty())
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				this.isWaiting.set(false);
+				continue;
+			}
+
+			sb.append(line);
+			if(sb.length() >= 65536)
+			{
+				this.out.print(sb);
+				sb.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * queue가 가득 차서 버린 로그 수를 리턴하는 메소드
+	 * @return dropCount 버린 로그 수
+	 */
+	public long getDropCount()
+	{
+		return this.dropCount.get();
+	}
+}
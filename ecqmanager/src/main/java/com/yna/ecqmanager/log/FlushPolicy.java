@@ -0,0 +1,43 @@
+package com.yna.ecqmanager.log;
+
+/**
+ * KLogger가 로그 파일을 flush하는 방식<br>
+ * 뒤로 갈수록 처리량은 줄고, 프로세스나 서버가 비정상 종료되었을 때 남는 로그는 늘어난다.
+ */
+public enum FlushPolicy {
+
+	/**
+	 * 일정 시간(ms)마다 1번 flush한다. 그 사이의 로그는 메모리 버퍼에 남아있다.
+	 */
+	INTERVAL,
+
+	/**
+	 * batch를 기록할 때마다 flush한다. 프로세스가 죽어도 OS에 넘긴 로그는 남는다. (기본값)
+	 */
+	BATCH,
+
+	/**
+	 * batch를 기록할 때마다 flush하고 fsync(FileChannel.force)한다.<br>
+	 * 여러 thread가 남긴 로그를 batch 1번에 묶어서 fsync하므로(group commit), 로그 1건마다 fsync하는 것보다 빠르다. 서버가 죽어도 로그가 남는다.
+	 */
+	FSYNC;
+
+	/**
+	 * 문자열을 FlushPolicy로 바꾸는 메소드
+	 * @param name 이름 (대소문자 구분 안 함)
+	 * @param defaultPolicy 이름이 없거나 잘못된 경우 리턴할 값
+	 * @return FlushPolicy
+	 */
+	public static FlushPolicy of(String name, FlushPolicy defaultPolicy)
+	{
+		if(name == null)
+			return defaultPolicy;
+
+		for(FlushPolicy policy : values())
+		{
+			if(policy.name().equalsIgnoreCase(name.trim()))
+				return policy;
+		}
+		return defaultPolicy;
+	}
+}
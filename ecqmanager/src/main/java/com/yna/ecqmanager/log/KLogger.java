@@ -1,17 +1,31 @@
 package com.yna.ecqmanager.log;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Log인터페이스를 queue에 담아 비동기로 처리하는 클래스.<br>
@@ -19,7 +33,18 @@ import java.util.Properties;
  * 		 의존성 주입을 통해 사용할 경우, 여러 곳에서 KLogger를 선언하면 안 된다.(클래스 변수들 때문에 thread-safe하지 않음) <br>
  * 1.3 : KLogger는 Spring bean등록으로 사용이 불가능하다. <br>
  * 1.4 : error level 이상의 로그는 따로 출력할 수 있는 기능을 추가	<br>	 
- * @version 1.4
+ * 1.5 : queue를 lock-free ring buffer(MpscRingBuffer)로 변경. log()는 lock을 잡지 않고, 로거 thread가 batch 단위로 꺼내서 기록한다. <br>
+ * 1.6 : 로그 파일을 batch마다 열지 않고 열어둔 채로 사용. 날짜가 바뀔 때만 다음 날짜 파일로 바꾸고, flush는 batch마다 1번 한다. <br>
+ * 1.7 : System.out 출력을 LogSink로 분리. 콘솔 출력(ConsoleSink)은 기본으로 꺼져 있고, setConsole(true)로 켠다. <br>
+ * 1.8 : 시간 포맷과 메세지 조립을 로거 thread에서 하는 LazyLogData 추가. <br>
+ * 1.9 : log()에서 로그 레벨을 먼저 확인. isEnabled()와 메세지 Supplier를 받는 log()를 추가. <br>
+ * 1.10 : 여러 KLogger를 1개의 thread(LogWriterService)로 기록하는 startShared() 추가. <br>
+ * 1.11 : 파일 크기 기준 rolling, 보관 기간/전체 크기 정리, 닫힌 파일의 gzip 압축(LogArchiver) 추가. setRollingPolicy()로 켠다. <br>
+ * 1.12 : flush 방식(FlushPolicy) 추가. 일반 로그와 에러 로그를 따로 INTERVAL, BATCH, FSYNC(batch 단위 group commit)로 설정할 수 있다. <br>
+ * 1.13 : queue 크기와 queue가 가득 찼을 때의 처리 방식(OverflowPolicy) 설정 추가. 버린 로그 수를 getDroppedCount()로 확인하고 로그 파일에도 남긴다. <br>
+ * 1.14 : 로그 파일을 mmap으로 기록하는 MappedLogWriter 추가. setMappedOutput()으로 켠다. <br>
+ * 1.15 : DROP_OLDEST에서 log()를 호출한 thread가 직접 오래된 로그를 버려서 자리를 만든다. 파일 기록이 멈춰도 log()가 기다리지 않는다. <br>
+ * @version 1.15
  * @author 황경진
  *
  */
@@ -55,6 +80,7 @@ public class KLogger extends Thread{
 	public static final String PROPERTIES_FILE_NAME = "src/main/resources/log.properties";
 	public static final String LOG_FOLDER_NAME = "klog.dir";
 	public static final String LOG_LEVEL = "klog.loglevel";
+	public static final String LOG_CONSOLE = "klog.console";
 	
 	/** DI해서 쓸 경우, properties 파일에서 가져올 값들*/
 //	@Value("${klog.dir}")
@@ -66,7 +92,7 @@ public class KLogger extends Thread{
 	private String logDir;
 	
 	/** logger의 레벨. 해당 값 이상만 로그 파일에 찍힌다. */
-	public int loggerLevel;
+	public volatile int loggerLevel;
 
 	/** 로그를 파일에 기록할 때 사용하는 변수들 */
 	private StringBuilder logMsg;
@@ -75,12 +101,121 @@ public class KLogger extends Thread{
 	private final static String FILE_SUFFIX = ".log";
 	private StringBuilder fileName;
 	
+	/** 열어둔 로그 파일 writer. 날짜가 바뀌면 다음 날짜 파일로 바꾼다. */
+	private PrintWriter writer;
+	
+	/** writer를 다음 날짜 파일로 바꿀 시간 (epoch ms) */
+	private long nextRollMillis;
+	
+	/** writer의 파일 채널. FSYNC일 때 force()에 사용한다. */
+	private FileChannel channel;
+	
+	/** setMappedOutput()을 사용할 때 writer 대신 사용하는 mmap writer */
+	private MappedLogWriter mappedWriter;
+	
+	/** mmap 구간 크기. 0이면 mmap을 사용하지 않는다. */
+	private int mappedSegmentSize;
+	
+	/** 열어둔 로그 파일과 지금까지 기록한 크기 (byte) */
+	private File activeFile;
+	private long currentSize;
+	
+	/** rolling 정책. 0(false)이면 사용하지 않는다. */
+	private long maxFileSize;
+	private long maxAgeMillis;
+	private long maxTotalSize;
+	private boolean isCompress;
+	
+	/** 열어둔 에러 로그 파일 writer */
+	private PrintWriter errorWriter;
+	
+	/** errorWriter의 파일 채널 */
+	private FileChannel errorChannel;
+	
+	/** 열어둔 에러 로그 파일과 지금까지 기록한 크기 (byte), 다음 날짜로 바꿀 시간 (epoch ms) */
+	private File errorActiveFile;
+	private long errorCurrentSize;
+	private long errorNextRollMillis;
+	
+	/** 기본 INTERVAL flush 간격 (ms) */
+	public static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+	
+	/** 일반 로그, 에러 로그의 flush 방식과 INTERVAL일 때의 flush 간격 (ms) */
+	private volatile FlushPolicy flushPolicy = FlushPolicy.BATCH;
+	private volatile long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL;
+	private volatile FlushPolicy errorFlushPolicy = FlushPolicy.BATCH;
+	private volatile long errorFlushIntervalMillis = DEFAULT_FLUSH_INTERVAL;
+	
+	/** flush하지 않은 로그를 처음 쓴 시간 (epoch ms). flush했으면 0 */
+	private long unflushedMillis;
+	private long errorUnflushedMillis;
+	
+	/** 로그 queue 크기 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 65536;
+	
+	/** 1번에 꺼내서 기록하고 flush할 최대 로그 수 */
+	private static final int MAX_BATCH_SIZE = 1024;
+	
+	/** queue가 비었을 때 로거 thread가 최대로 기다리는 시간 (ns) */
+	private static final long MAX_PARK_NANOS = 1000000000L;
+	
+	/** queue가 가득 찼을 때 log()가 기다리는 시간 (ns) */
+	private static final long FULL_PARK_NANOS = 100000L;
+	
 	/** 로그를 담을 큐 */
-	private List<Log> queue;
+	private volatile MpscRingBuffer<Log> queue;
+	
+	/** queue가 가득 찼을 때의 처리 방식 */
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	
+	/** DROP_BELOW일 때 버리지 않는 최소 레벨 */
+	private volatile int overflowDropLevel = WARN;
+	
+	/** SAMPLE일 때 N개 중 1개만 남긴다. */
+	private volatile int overflowSampleRate = 10;
+	
+	/** SAMPLE용 순번 */
+	private final AtomicLong sampleSequence = new AtomicLong();
+	
+	/** queue가 가득 차서 log()가 바로 넣지 못한 횟수 */
+	private final AtomicLong overflowCount = new AtomicLong();
+	
+	/** queue가 가득 차서 버린 로그 수 */
+	private final AtomicLong droppedCount = new AtomicLong();
+	
+	/** 로그 파일에 남긴 버린 로그 수. 로거 thread에서만 사용한다. */
+	private long reportedDropCount;
+	
+	/** queue에서 꺼내는 thread(로거 thread와 DROP_OLDEST에서 자리를 만드는 log() 호출 thread)가 잡는 lock */
+	private final ReentrantLock pollLock = new ReentrantLock();
+	
+	/** DROP_OLDEST에서 자리를 만들 때 queue에서 꺼낸 ERROR 이상 로그. 로거 thread가 queue보다 먼저 기록한다. pollLock을 잡고 사용한다. */
+	private final ArrayDeque<Log> keptErrors = new ArrayDeque<Log>();
+	
+	/** keptErrors의 로그 수. pollLock을 잡고 바꾼다. */
+	private volatile int keptCount;
+	
+	/** drain()에서 꺼낸 로그를 담는 배열. 기록하는 thread에서만 사용한다. */
+	private final Log[] batch = new Log[MAX_BATCH_SIZE];
 	
 	/** 로그가 종료되었는지 여부 */
-	private boolean isEnd;
+	private volatile boolean isEnd;
+	
+	/** 로거 thread가 로그 파일을 닫았는지 여부 */
+	private volatile boolean isClosed;
+	
+	/** 로그를 기록하는 thread. run()에서 설정된다. */
+	private volatile Thread writerThread;
+	
+	/** 로거 thread가 queue가 비어서 기다리는 중인지 여부 */
+	private final AtomicBoolean isWaiting = new AtomicBoolean(false);
+	
+	/** startShared()로 등록된 LogWriterService. 자체 thread(run())로 기록하면 null */
+	private volatile LogWriterService service;
 
+	/** 로그 파일 외에 추가로 출력할 대상 */
+	private List<LogSink> sinks = new CopyOnWriteArrayList<LogSink>();
+	
 	/** 에러 로그 변수 */
 	private String errorFileName;
 	private Boolean isUseErrorLog;
@@ -168,78 +303,374 @@ public class KLogger extends Thread{
 	 */
 	private void init()
 	{
-		this.queue = new LinkedList<Log>();
+		this.queue = new MpscRingBuffer<Log>(DEFAULT_QUEUE_CAPACITY);
 		this.logMsg = new StringBuilder();
 		this.sdf = new SimpleDateFormat("yyyyMMdd");
 		this.fileName = new StringBuilder();
 	}
 
+	/**
+	 * 로거 thread를 따로 만들지 않고, 공유 LogWriterService의 thread가 이 로거의 로그를 기록하도록 등록한다.<br>
+	 * 로거 수와 관계없이 기록 thread는 1개이다. startShared()로 시작한 로거는 run()으로 실행하면 안 된다.
+	 */
+	public void startShared()
+	{
+		LogWriterService.getInstance().register(this);
+	}
+	
+	/**
+	 * LogWriterService에 등록될 때 호출된다.
+	 * @param service LogWriterService
+	 */
+	void setService(LogWriterService service)
+	{
+		this.service = service;
+	}
+	
+	/**
+	 * queue에 쌓인 로그를 batch 단위로 꺼내서 기록한다. (startShared()를 사용하지 않는 경우)<br>
+	 * 로그 파일은 열어둔 채로 사용하고 batch마다 1번 flush한다. 파일에 쓰는 동안에도 log()는 막히지 않는다.<br>
+	 * queue가 비어있으면 log()나 terminate()가 깨울 때까지 기다린다. terminate() 이후에는 남은 로그를 모두 기록하고 종료한다.
+	 */
 	@Override
 	public void run()
 	{
+		this.writerThread = Thread.currentThread();
+		
 		while(!Thread.currentThread().isInterrupted())
 		{
-			synchronized(this.queue)
+			if(this.isQueueEmpty())
 			{
 				if(this.isEnd)
-				{
-					System.out.println("KLogger 종료");
 					break;
+				
+				long parkNanos = Math.min(MAX_PARK_NANOS, TimeUnit.MILLISECONDS.toNanos(this.flushIfDue()));
+				this.isWaiting.set(true);
+				
+				// isWaiting을 설정한 뒤 다시 확인해야, 그 사이에 들어온 로그의 wakeup을 놓치지 않는다.
+				if(this.isQueueEmpty() && !this.isEnd)
+					LockSupport.parkNanos(this, parkNanos);
+				this.isWaiting.set(false);
+				continue;
+			}
+			
+			this.drain();
+		}
+		this.closeWriters();
+	}
+	
+	/**
+	 * queue에서 최대 MAX_BATCH_SIZE개의 로그를 꺼내서 기록하고, batch마다 FlushPolicy에 따라 flush한다.<br>
+	 * 로거 thread(run()) 또는 LogWriterService의 thread 1개에서만 호출된다.
+	 * @return 꺼낸 로그 수
+	 */
+	int drain()
+	{
+		Log[] batch = this.batch;
+		int count = this.pollBatch(batch);
+		
+		try
+		{
+			for(int i = 0; i < count; i++)
+			{
+				if(i == 0)
+				{
+					this.getWriter();
+					this.reportDropped();
 				}
-				try(PrintWriter pw = this.getWriter())
+				this._log(batch[i]);
+			}
+			
+			if(count > 0)
+			{
+				this.flushWriters(System.currentTimeMillis());
+				for(LogSink sink : this.sinks)
+					sink.flush();
+			}
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			Arrays.fill(batch, 0, count, null);
+		}
+		return count;
+	}
+	
+	/**
+	 * keptErrors와 queue에서 최대 batch 크기만큼 로그를 꺼내는 메소드<br>
+	 * pollLock은 꺼내는 동안만 잡고, 파일에 쓰는 동안에는 잡지 않는다. 그래서 기록이 늦어져도 log()에서 dropOldest()가 막히지 않는다.
+	 * @param batch 꺼낸 로그를 담을 배열
+	 * @return 꺼낸 로그 수
+	 */
+	private int pollBatch(Log[] batch)
+	{
+		int count = 0;
+		Log log = null;
+		
+		this.pollLock.lock();
+		try
+		{
+			while(count < batch.length && (log = this.keptErrors.poll()) != null)
+				batch[count++] = log;
+			this.keptCount = this.keptErrors.size();
+			
+			while(count < batch.length && (log = this.queue.poll()) != null)
+				batch[count++] = log;
+		}
+		finally
+		{
+			this.pollLock.unlock();
+		}
+		return count;
+	}
+	
+	/**
+	 * DROP_OLDEST에서 queue가 가득 찼을 때 log()를 호출한 thread가 직접 queue의 가장 오래된 로그를 꺼내서 자리를 만든다.<br>
+	 * 꺼낸 로그가 ERROR 미만이면 버리고, ERROR 이상이면 keptErrors로 옮겨서 로거 thread가 순서대로 기록하게 한다.<br>
+	 * 로거 thread를 기다리지 않으므로, 파일 기록이 멈춰 있어도 log()가 막히지 않는다.
+	 * @param queue 로그 queue
+	 * @return 자리를 만들었으면 true. keptErrors가 queue 크기만큼 차 있으면 false
+	 */
+	private boolean dropOldest(MpscRingBuffer<Log> queue)
+	{
+		this.pollLock.lock();
+		try
+		{
+			if(this.keptErrors.size() >= queue.capacity())
+				return false;
+			
+			Log oldest = queue.poll();
+			if(oldest == null)
+				return true;
+			
+			if(oldest.getLogLevel() >= ERROR)
+			{
+				this.keptErrors.add(oldest);
+				this.keptCount = this.keptErrors.size();
+			}
+			else
+				this.droppedCount.incrementAndGet();
+			return true;
+		}
+		finally
+		{
+			this.pollLock.unlock();
+		}
+	}
+	
+	/**
+	 * 기록할 로그가 queue와 keptErrors에 없는지 리턴하는 메소드
+	 * @return 비어있으면 true
+	 */
+	private boolean isQueueEmpty()
+	{
+		return this.queue.isEmpty() && this.keptCount == 0;
+	}
+	
+	/**
+	 * 지난번 이후 버린 로그가 있으면 로그 파일에 WARN 로그로 남긴다. batch를 기록하기 전에 호출된다.
+	 */
+	private void reportDropped()
+	{
+		long dropped = this.droppedCount.get();
+		if(dropped == this.reportedDropCount)
+			return;
+		
+		this._log(new LazyLogData(WARN, "KLogger queue overflow. policy :", this.overflowPolicy, "dropped :", dropped - this.reportedDropCount, "total dropped :", dropped));
+		this.reportedDropCount = dropped;
+	}
+	
+	/**
+	 * queue가 비었을 때 기록 thread가 호출한다. INTERVAL 방식에서 flush 간격이 지난 로그를 flush한다.
+	 * @return 다음 flush까지 남은 시간 (ms). flush할 로그가 없으면 Long.MAX_VALUE
+	 */
+	long flushIfDue()
+	{
+		long now = System.currentTimeMillis();
+		this.flushWriters(now);
+		
+		long waitMillis = Long.MAX_VALUE;
+		if(this.unflushedMillis != 0)
+			waitMillis = Math.min(waitMillis, this.unflushedMillis + this.flushIntervalMillis - now);
+		if(this.errorUnflushedMillis != 0)
+			waitMillis = Math.min(waitMillis, this.errorUnflushedMillis + this.errorFlushIntervalMillis - now);
+		return Math.max(waitMillis, 1);
+	}
+	
+	/**
+	 * 기록할 로그가 남아있는지 리턴한다.
+	 * @return queue가 비어있지 않거나 terminate()가 호출되었으면 true
+	 */
+	boolean hasPending()
+	{
+		return this.isEnd || !this.isQueueEmpty();
+	}
+	
+	/**
+	 * terminate()가 호출되었고 남은 로그를 모두 기록했는지 리턴한다.
+	 * @return 종료 여부
+	 */
+	boolean isTerminated()
+	{
+		return this.isEnd && this.isQueueEmpty();
+	}
+	
+	/**
+	 * terminate() 이후 남은 로그를 모두 기록하고 로그 파일을 닫았는지 리턴한다.<br>
+	 * 같은 로그 파일을 쓰는 KLogger를 다시 만들기 전에 확인한다.
+	 * @return 닫혔으면 true
+	 */
+	public boolean isClosed()
+	{
+		return this.isClosed;
+	}
+	
+	/**
+	 * 외부(다른 클래스)에서 log를 기록할 때 호출된다.<br>
+	 * loggerLevel보다 낮은 레벨의 로그는 queue에 넣지 않는다.<br>
+	 * lock을 잡지 않으며, 로거 thread가 기다리는 중일 때만 깨운다.<br>
+	 * queue가 가득 찬 경우에는 OverflowPolicy에 따라 자리가 날 때까지 기다리거나 로그를 버린다. ERROR 이상은 버리지 않는다.<br>
+	 * DROP_OLDEST에서 오래된 로그를 버릴 수 없으면 (keptErrors가 가득 참) ERROR 미만의 새 로그를 버리고, ERROR 이상은 기다린다.
+	 * @param log 로그 정보
+	 */
+	public void log(Log log)
+	{
+		if(log == null || log.getLogLevel() < this.loggerLevel)
+			return;
+		
+		MpscRingBuffer<Log> queue = this.queue;
+		if(!queue.offer(log))
+		{
+			this.overflowCount.incrementAndGet();
+			
+			if(this.isDropOnOverflow(log))
+			{
+				this.droppedCount.incrementAndGet();
+				this.wakeUp();
+				return;
+			}
+			
+			while(!queue.offer(log))
+			{
+				if(this.overflowPolicy == OverflowPolicy.DROP_OLDEST)
 				{
-					while(!this.queue.isEmpty())
+					if(this.dropOldest(queue))
+						continue;
+					
+					if(log.getLogLevel() < ERROR)
 					{
-						System.out.println("Queue is not empty");
-						this._log(this.queue.remove(0), pw);
+						this.droppedCount.incrementAndGet();
+						this.wakeUp();
+						return;
 					}
-					
-					System.out.println("Queue is empty");
-					this.queue.wait();
-				}
-				catch(Exception e)
-				{
-					e.printStackTrace();
 				}
+				this.wakeUp();
+				LockSupport.parkNanos(FULL_PARK_NANOS);
 			}
 		}
-		System.out.println("Queue END");
+		this.wakeUp();
 	}
 	
 	/**
-	 * 외부(다른 클래스)에서 log를 기록할 때 호출된다.
+	 * queue가 가득 찼을 때 새 로그를 버릴지 리턴하는 메소드
 	 * @param log 로그 정보
+	 * @return 버리면 true
 	 */
-	public void log(Log log)
+	private boolean isDropOnOverflow(Log log)
+	{
+		if(log.getLogLevel() >= ERROR)
+			return false;
+		
+		switch(this.overflowPolicy)
+		{
+			case DROP_BELOW:
+				return log.getLogLevel() < this.overflowDropLevel;
+			case SAMPLE:
+				return this.sampleSequence.getAndIncrement() % this.overflowSampleRate != 0;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * 로그 레벨을 확인한 뒤, 기록할 레벨일 때만 메세지를 만들어서 기록한다.<br>
+	 * 메세지를 만드는 비용이 큰 로그에 사용한다.
+	 * <pre>
+	 * logger.log(KLogger.DEBUG, () -> json.toJSONString());
+	 * </pre>
+	 * @param logLevel 로그 레벨
+	 * @param msgSupplier 로그 메세지를 만드는 Supplier
+	 */
+	public void log(int logLevel, Supplier<String> msgSupplier)
+	{
+		if(logLevel < this.loggerLevel)
+			return;
+		
+		this.log(new LazyLogData(logLevel, msgSupplier.get()));
+	}
+	
+	/**
+	 * 해당 레벨의 로그가 기록되는지 리턴한다.<br>
+	 * 로그 메세지를 만들기 전에 확인하면, 기록하지 않을 로그의 객체 생성과 문자열 조립을 피할 수 있다.
+	 * @param logLevel 로그 레벨
+	 * @return 기록되면 true
+	 */
+	public boolean isEnabled(int logLevel)
 	{
-		synchronized(this.queue)
+		return logLevel >= this.loggerLevel;
+	}
+	
+	/**
+	 * 로거 thread가 기다리는 중이면 깨우는 메소드
+	 */
+	private void wakeUp()
+	{
+		LogWriterService service = this.service;
+		if(service != null)
 		{
-			this.queue.add(log);
-			this.queue.notify();
+			service.wakeUp();
+			return;
+		}
+		
+		if(this.isWaiting.get() && this.isWaiting.compareAndSet(true, false))
+		{
+			Thread thread = this.writerThread;
+			if(thread != null)
+				LockSupport.unpark(thread);
 		}
 	}
 	
 	/**
 	 * 로그를 종료하는 메소드<br>
-	 * 로그가 종료될 때, 호출해줘야함!
+	 * 로그가 종료될 때, 호출해줘야함!<br>
+	 * 로거 thread는 queue에 남은 로그를 모두 기록한 뒤 종료한다.
 	 */
 	public void terminate()
 	{
-		System.out.println("terminate()");
-		synchronized(this.queue)
+		this.isEnd = true;
+		
+		LogWriterService service = this.service;
+		if(service != null)
 		{
-			this.isEnd = true;
-			this.queue.notify();
+			service.wakeUp();
+			return;
 		}
+		
+		Thread thread = this.writerThread;
+		if(thread != null)
+			LockSupport.unpark(thread);
 	}
 	
 	/**
 	 * log를 로그 파일에 기록한다.<br>
-	 * KLogger에 설정된 로그레벨보다 낮은 레벨의 로그는 기록하지 않는다.
+	 * KLogger에 설정된 로그레벨보다 낮은 레벨의 로그는 기록하지 않는다. flush는 run()에서 batch마다 한다.<br>
+	 * maxFileSize가 설정되어 있으면, 이 로그를 쓰면 maxFileSize를 넘을 때 먼저 파일을 바꾼다.
 	 * @param log 로그 정보
-	 * @param pw PrintWriter
 	 */
-	private void _log(Log log, PrintWriter pw)
+	private void _log(Log log)
 	{
 		if(log == null)
 			return;
@@ -248,43 +679,151 @@ public class KLogger extends Thread{
 			return;
 		
 		this.logMsg.setLength(0);
-		this.logMsg.append(log.getLogTime()).append(" [").append(levelMap.get(log.getLogLevel())).append("] ").append(log.getLogMsg()).append("\n");
-		System.out.println(this.logMsg);
-		pw.print(this.logMsg.toString());
-		pw.flush();
+		log.appendLogTime(this.logMsg).append(" [").append(levelMap.get(log.getLogLevel())).append("] ");
+		log.appendLogMsg(this.logMsg).append("\n");
+		
+		if(this.isWriterOpen())
+		{
+			if(this.maxFileSize > 0)
+			{
+				long length = utf8Length(this.logMsg);
+				if(this.currentSize > 0 && this.currentSize + length > this.maxFileSize)
+					this.rollBySize();
+				this.currentSize += length;
+			}
+			
+			if(this.writer != null)
+				this.writer.print(this.logMsg);
+			else if(this.mappedWriter != null)
+				this._mappedLog();
+			
+			if(this.unflushedMillis == 0)
+				this.unflushedMillis = log.getLogMillis();
+		}
+		
+		if(!this.sinks.isEmpty())
+		{
+			String line = this.logMsg.toString();
+			for(LogSink sink : this.sinks)
+				sink.write(line);
+		}
 		
 		// 에러 로그 따로 출력
-		if(log.getLogLevel() >= KLogger.ERROR && this.isUseErrorLog)
+		if(log.getLogLevel() >= KLogger.ERROR && Boolean.TRUE.equals(this.isUseErrorLog))
 		{
-			this._errorLog();
+			this._errorLog(log);
 		}
 	}
 	
 	/**
-	 * error레벨 이상의 로그를 따로 기록한다.<br>
-	 * 로그파일명은 setErrorLog()에서 설정한다.
+	 * logMsg를 mmap 파일에 기록한다. 기록하지 못하면 파일을 닫고, 다음 batch에서 다시 연다.
 	 */
-	private void _errorLog()
+	private void _mappedLog()
 	{
-		try(PrintWriter pw = this.getErrorWriter())
+		try
 		{
-			pw.print(this.logMsg);
-			pw.flush();
+			this.mappedWriter.write(this.logMsg);
 		}
 		catch(Exception e)
 		{
 			e.printStackTrace();
+			this.closeWriter();
+		}
+	}
+	
+	/**
+	 * 로그 파일 writer가 열려 있는지 리턴한다.
+	 * @return PrintWriter나 MappedLogWriter가 열려 있으면 true
+	 */
+	private boolean isWriterOpen()
+	{
+		return this.writer != null || this.mappedWriter != null;
+	}
+	
+	/**
+	 * error레벨 이상의 로그를 따로 기록한다.<br>
+	 * 로그파일명은 setErrorLog()에서 설정한다.
+	 * @param log 로그 정보
+	 */
+	private void _errorLog(Log log)
+	{
+		long now = System.currentTimeMillis();
+		
+		// rolling 정책이 있으면 날짜가 바뀌었을 때 전날 파일을 닫는다.
+		if(this.errorWriter != null && this.isRolling() && now >= this.errorNextRollMillis)
+			this.rollErrorLog(this.errorNextRollMillis - 1);
+		
+		if(this.errorWriter == null)
+			this.errorWriter = this.getErrorWriter(now);
+		
+		if(this.errorWriter != null)
+		{
+			if(this.maxFileSize > 0)
+			{
+				long length = utf8Length(this.logMsg);
+				if(this.errorCurrentSize > 0 && this.errorCurrentSize + length > this.maxFileSize)
+				{
+					this.rollErrorLog(now);
+					if(this.errorWriter == null)
+						return;
+				}
+				this.errorCurrentSize += length;
+			}
+			
+			this.errorWriter.print(this.logMsg);
+			if(this.errorUnflushedMillis == 0)
+				this.errorUnflushedMillis = log.getLogMillis();
 		}
 	}
 	
 	/**
-	 * PrintWriter를 리턴한다.<br>
-	 * 멀티 쓰레드 환경을 고려하여, run()에서 큐를 조회할 때마다 호출하게 된다.
+	 * 열어둔 PrintWriter를 리턴한다.<br>
+	 * 날짜가 바뀌었으면(nextRollMillis가 지났으면) 기존 파일을 닫고 새 날짜의 파일을 연다.<br>
+	 * 파일을 열지 못했으면 null을 리턴하고, 다음 호출에서 다시 연다. mmap을 사용하면 항상 null을 리턴한다.
 	 * @return PrintWriter printWriter
 	 */
 	private PrintWriter getWriter()
 	{
-		this.date = new Date(System.currentTimeMillis());
+		long now = System.currentTimeMillis();
+		
+		if(!this.isWriterOpen() || now >= this.nextRollMillis)
+		{
+			boolean isFirst = this.activeFile == null;
+			File closedFile = null;
+			
+			if(this.isWriterOpen())
+			{
+				this.closeWriter();
+				closedFile = this.activeFile;
+			}
+			
+			this.writer = this.openWriter(now);
+			
+			// 처음 열 때는 이전 실행에서 남은 파일을, 날짜가 바뀌었을 때는 닫은 파일을 정리한다.
+			if(isFirst || closedFile != null)
+				this.archive(closedFile);
+			
+			Calendar calendar = Calendar.getInstance();
+			calendar.setTimeInMillis(now);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			calendar.add(Calendar.DAY_OF_MONTH, 1);
+			this.nextRollMillis = calendar.getTimeInMillis();
+		}
+		return this.writer;
+	}
+	
+	/**
+	 * 날짜별 로그 파일(logName.yyyyMMdd.log)의 PrintWriter를 여는 메소드<br>
+	 * mmap을 사용하면 MappedLogWriter를 열고 null을 리턴한다. 예외가 발생할 경우, null을 리턴한다.
+	 * @param now 현재 시간 (epoch ms)
+	 * @return PrintWriter printWriter
+	 */
+	private PrintWriter openWriter(long now)
+	{
+		this.date = new Date(now);
 		File logDirFile = null;
 		File logFile = null;
 		this.fileName.setLength(0);
@@ -301,7 +840,18 @@ public class KLogger extends Thread{
 
 			logFile = new File(logDirFile, this.fileName.toString());
 			
-			pw = new PrintWriter(Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+			if(this.mappedSegmentSize > 0)
+			{
+				this.mappedWriter = new MappedLogWriter(logFile.toPath(), this.mappedSegmentSize, this.flushPolicy == FlushPolicy.FSYNC);
+				this.currentSize = this.mappedWriter.getSize();
+			}
+			else
+			{
+				this.channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				pw = new PrintWriter(new BufferedWriter(Channels.newWriter(this.channel, StandardCharsets.UTF_8)));
+				this.currentSize = logFile.length();
+			}
+			this.activeFile = logFile;
 		}
 		catch(Exception e)
 		{
@@ -312,11 +862,308 @@ public class KLogger extends Thread{
 	}
 	
 	/**
-	 * ERROR 로그용 PrintWriter를 리턴한다.<br>
-	 * 멀티 쓰레드 환경을 고려하여, run()에서 큐를 조회할 때마다 호출하게 된다.
+	 * 기록 중인 파일이 maxFileSize를 넘을 때 호출된다.<br>
+	 * 파일을 닫고 logName.yyyyMMdd.N.log(사용하지 않은 가장 작은 N)로 이름을 바꾼 뒤, 같은 이름(logName.yyyyMMdd.log)의 새 파일을 연다.<br>
+	 * 이름을 바꾼 파일은 LogArchiver thread에서 압축, 정리한다.
+	 */
+	private void rollBySize()
+	{
+		this.closeWriter();
+		
+		File closedFile = this.activeFile;
+		String prefix = this.fileName.substring(0, this.fileName.length() - FILE_SUFFIX.length()) + ".";
+		
+		try
+		{
+			File rolledFile = null;
+			for(int i = 1; rolledFile == null; i++)
+			{
+				File candidate = new File(closedFile.getParentFile(), prefix + i + FILE_SUFFIX);
+				if(!candidate.exists() && !new File(candidate.getPath() + LogArchiver.GZIP_SUFFIX).exists())
+					rolledFile = candidate;
+			}
+			
+			Files.move(closedFile.toPath(), rolledFile.toPath());
+			closedFile = rolledFile;
+		}
+		catch(Exception e)
+		{
+			// 이름을 바꾸지 못하면 기존 파일에 이어서 기록한다.
+			e.printStackTrace();
+			closedFile = null;
+		}
+		
+		this.writer = this.openWriter(System.currentTimeMillis());
+		if(closedFile != null)
+			this.archive(closedFile);
+	}
+	
+	/**
+	 * 에러 로그 파일을 닫고 errorName.yyyyMMdd.N.log(사용하지 않은 가장 작은 N)로 이름을 바꾼 뒤, 같은 이름의 새 파일을 여는 메소드<br>
+	 * 에러 로그 파일이 maxFileSize를 넘거나 날짜가 바뀌었을 때 호출된다. 이름을 바꾼 파일은 LogArchiver thread에서 압축, 정리한다.
+	 * @param fileMillis 닫는 파일의 날짜 (epoch ms)
+	 */
+	private void rollErrorLog(long fileMillis)
+	{
+		this.closeErrorWriter();
+		
+		File closedFile = this.renameErrorLog(fileMillis);
+		this.errorWriter = this.getErrorWriter(System.currentTimeMillis());
+		if(closedFile != null)
+			this.archiveErrorLog(closedFile);
+	}
+	
+	/**
+	 * 에러 로그 파일의 이름을 errorName.yyyyMMdd.N.log로 바꾸는 메소드
+	 * @param fileMillis 파일의 날짜 (epoch ms)
+	 * @return 이름을 바꾼 파일. 바꾸지 못했으면 null (기존 파일에 이어서 기록한다.)
+	 */
+	private File renameErrorLog(long fileMillis)
+	{
+		File errorFile = new File(this.logDir, this.errorFileName);
+		String prefix = this.getErrorLogPrefix() + "." + this.sdf.format(new Date(fileMillis)) + ".";
+		String suffix = this.getErrorLogSuffix();
+		
+		try
+		{
+			File rolledFile = null;
+			for(int i = 1; rolledFile == null; i++)
+			{
+				File candidate = new File(errorFile.getParentFile(), prefix + i + suffix);
+				if(!candidate.exists() && !new File(candidate.getPath() + LogArchiver.GZIP_SUFFIX).exists())
+					rolledFile = candidate;
+			}
+			
+			Files.move(errorFile.toPath(), rolledFile.toPath());
+			return rolledFile;
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	/**
+	 * rolling 정책이 설정되어 있으면, 닫힌 파일의 압축과 보관 정책 적용을 LogArchiver thread에 맡기는 메소드
+	 * @param closedFile 닫힌 로그 파일. null이면 정리만 한다.
+	 */
+	private void archive(File closedFile)
+	{
+		this.archive(closedFile, this.activeFile, this.logName, FILE_SUFFIX);
+	}
+	
+	/**
+	 * 에러 로그 파일(errorName.yyyyMMdd.N.log)에 archive()와 같은 압축, 보관 정책을 적용하는 메소드<br>
+	 * maxTotalSize는 일반 로그 파일과 따로 계산한다.
+	 * @param closedFile 닫힌 에러 로그 파일. null이면 정리만 한다.
+	 */
+	private void archiveErrorLog(File closedFile)
+	{
+		this.archive(closedFile, this.errorActiveFile, this.getErrorLogPrefix(), this.getErrorLogSuffix());
+	}
+	
+	/**
+	 * prefix.yyyyMMdd[.N]suffix[.gz] 파일에 rolling 정책을 적용하는 메소드
+	 * @param closedFile 닫힌 로그 파일. null이면 정리만 한다.
+	 * @param activeFile 기록 중인 파일. null이면 아무것도 하지 않는다.
+	 * @param prefix 파일명에서 날짜 앞 부분
+	 * @param suffix 파일명에서 날짜, 번호 뒷 부분
+	 */
+	private void archive(File closedFile, File activeFile, String prefix, String suffix)
+	{
+		if(this.maxAgeMillis <= 0 && this.maxTotalSize <= 0 && !this.isCompress)
+			return;
+		if(activeFile == null)
+			return;
+		
+		Pattern filePattern = Pattern.compile(Pattern.quote(prefix) + "\\.\\d{8}(\\.\\d+)?" + Pattern.quote(suffix) + "(" + Pattern.quote(LogArchiver.GZIP_SUFFIX) + ")?");
+		LogArchiver.getInstance().archive(closedFile, new LogArchiver.RollingPolicy(activeFile.getParentFile(), filePattern,
+				activeFile, this.maxAgeMillis, this.maxTotalSize, this.isCompress));
+	}
+	
+	/**
+	 * rolling 정책이 설정되어 있는지 리턴하는 메소드
+	 * @return 정책이 하나라도 설정되어 있으면 true
+	 */
+	private boolean isRolling()
+	{
+		return this.maxFileSize > 0 || this.maxAgeMillis > 0 || this.maxTotalSize > 0 || this.isCompress;
+	}
+	
+	/**
+	 * 에러 로그 파일명에서 확장자(.log) 앞 부분을 리턴하는 메소드
+	 * @return 파일명이 .log로 끝나지 않으면 파일명 전체
+	 */
+	private String getErrorLogPrefix()
+	{
+		if(this.errorFileName.endsWith(FILE_SUFFIX) && this.errorFileName.length() > FILE_SUFFIX.length())
+			return this.errorFileName.substring(0, this.errorFileName.length() - FILE_SUFFIX.length());
+		return this.errorFileName;
+	}
+	
+	/**
+	 * 에러 로그 파일명의 확장자를 리턴하는 메소드
+	 * @return .log로 끝나면 .log, 아니면 빈 문자열
+	 */
+	private String getErrorLogSuffix()
+	{
+		return this.getErrorLogPrefix().length() < this.errorFileName.length() ? FILE_SUFFIX : "";
+	}
+	
+	/**
+	 * 문자열을 UTF-8로 기록했을 때의 byte 수를 리턴하는 메소드
+	 * @param cs 문자열
+	 * @return byte 수
+	 */
+	private static long utf8Length(CharSequence cs)
+	{
+		long length = 0;
+		for(int i = 0, size = cs.length(); i < size; i++)
+		{
+			char c = cs.charAt(i);
+			if(c < 0x80)
+				length++;
+			else if(c < 0x800)
+				length += 2;
+			else if(Character.isHighSurrogate(c) && i + 1 < size && Character.isLowSurrogate(cs.charAt(i + 1)))
+			{
+				length += 4;
+				i++;
+			}
+			else
+				length += 3;
+		}
+		return length;
+	}
+	
+	/**
+	 * batch를 기록한 뒤 열어둔 writer들을 FlushPolicy에 따라 flush하는 메소드
+	 * @param now 현재 시간 (epoch ms)
+	 */
+	private void flushWriters(long now)
+	{
+		if(this.unflushedMillis != 0 && isFlushDue(this.flushPolicy, this.flushIntervalMillis, this.unflushedMillis, now))
+		{
+			flush(this.writer, this.channel, this.flushPolicy);
+			
+			// mmap은 기록하면 바로 page cache에 있으므로 FSYNC일 때만 force한다.
+			if(this.mappedWriter != null && this.flushPolicy == FlushPolicy.FSYNC)
+				this.mappedWriter.force();
+			this.unflushedMillis = 0;
+		}
+		if(this.errorUnflushedMillis != 0 && isFlushDue(this.errorFlushPolicy, this.errorFlushIntervalMillis, this.errorUnflushedMillis, now))
+		{
+			flush(this.errorWriter, this.errorChannel, this.errorFlushPolicy);
+			this.errorUnflushedMillis = 0;
+		}
+	}
+	
+	/**
+	 * flush할 때가 되었는지 리턴하는 메소드
+	 * @param policy flush 방식
+	 * @param intervalMillis INTERVAL일 때 flush 간격 (ms)
+	 * @param unflushedMillis flush하지 않은 로그를 처음 쓴 시간 (epoch ms)
+	 * @param now 현재 시간 (epoch ms)
+	 * @return flush해야 하면 true
+	 */
+	private static boolean isFlushDue(FlushPolicy policy, long intervalMillis, long unflushedMillis, long now)
+	{
+		return policy != FlushPolicy.INTERVAL || now - unflushedMillis >= intervalMillis;
+	}
+	
+	/**
+	 * writer를 flush하고, FSYNC이면 파일 채널을 force하는 메소드
+	 * @param pw PrintWriter
+	 * @param fileChannel pw의 파일 채널
+	 * @param policy flush 방식
+	 */
+	private static void flush(PrintWriter pw, FileChannel fileChannel, FlushPolicy policy)
+	{
+		if(pw == null)
+			return;
+		
+		pw.flush();
+		
+		if(policy == FlushPolicy.FSYNC && fileChannel != null && fileChannel.isOpen())
+		{
+			try
+			{
+				// 파일 크기 등 메타데이터는 다음 force에 맡기고 내용만 디스크에 쓴다.
+				fileChannel.force(false);
+			}
+			catch(IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * 로그 파일 writer를 닫는 메소드. FSYNC이면 닫기 전에 force한다.
+	 */
+	private void closeWriter()
+	{
+		if(this.writer != null)
+		{
+			if(this.flushPolicy == FlushPolicy.FSYNC)
+				flush(this.writer, this.channel, this.flushPolicy);
+			this.writer.close();
+			this.writer = null;
+			this.channel = null;
+		}
+		
+		if(this.mappedWriter != null)
+		{
+			try
+			{
+				if(this.flushPolicy == FlushPolicy.FSYNC)
+					this.mappedWriter.force();
+				this.mappedWriter.close();
+			}
+			catch(Exception e)
+			{
+				e.printStackTrace();
+			}
+			this.mappedWriter = null;
+		}
+		this.unflushedMillis = 0;
+	}
+	
+	/**
+	 * 열어둔 writer들을 닫는 메소드. 로거 thread가 종료될 때 호출된다.
+	 */
+	void closeWriters()
+	{
+		this.closeWriter();
+		this.closeErrorWriter();
+		this.isClosed = true;
+	}
+	
+	/**
+	 * 열어둔 에러 로그 writer를 닫는 메소드
+	 */
+	private void closeErrorWriter()
+	{
+		if(this.errorWriter != null)
+		{
+			if(this.errorFlushPolicy == FlushPolicy.FSYNC)
+				flush(this.errorWriter, this.errorChannel, this.errorFlushPolicy);
+			this.errorWriter.close();
+			this.errorWriter = null;
+			this.errorChannel = null;
+			this.errorUnflushedMillis = 0;
+		}
+	}
+	
+	/**
+	 * ERROR 로그용 PrintWriter를 여는 메소드<br>
+	 * 처음 ERROR 로그를 기록할 때 열고, 로거가 종료될 때까지 열어둔다. rolling 정책이 있으면 크기나 날짜에 따라 rollErrorLog()에서 다시 연다.<br>
+	 * 처음 열 때 이전 실행에서 남은 파일이 전날 파일이면 먼저 이름을 바꾸고, 이전 파일들을 정리한다.
+	 * @param now 현재 시간 (epoch ms)
 	 * @return PrintWriter printWriter
 	 */
-	private PrintWriter getErrorWriter()
+	private PrintWriter getErrorWriter(long now)
 	{
 		PrintWriter pw = null;
 		
@@ -329,7 +1176,29 @@ public class KLogger extends Thread{
 			
 			File logFile = new File(logDirFile, this.errorFileName);
 			
-			pw = new PrintWriter(Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+			Calendar calendar = Calendar.getInstance();
+			calendar.setTimeInMillis(now);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			long todayMillis = calendar.getTimeInMillis();
+			
+			boolean isFirst = this.errorActiveFile == null;
+			File closedFile = null;
+			if(isFirst && this.isRolling() && logFile.length() > 0 && logFile.lastModified() < todayMillis)
+				closedFile = this.renameErrorLog(logFile.lastModified());
+			
+			this.errorChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			pw = new PrintWriter(new BufferedWriter(Channels.newWriter(this.errorChannel, StandardCharsets.UTF_8)));
+			this.errorActiveFile = logFile;
+			this.errorCurrentSize = logFile.length();
+			
+			calendar.add(Calendar.DAY_OF_MONTH, 1);
+			this.errorNextRollMillis = calendar.getTimeInMillis();
+			
+			if(isFirst || closedFile != null)
+				this.archiveErrorLog(closedFile);
 		}
 		catch(Exception e)
 		{
@@ -364,6 +1233,9 @@ public class KLogger extends Thread{
 				// 로그 레벨 지정
 				String tempLevel = properties.getProperty(LOG_LEVEL);
 				this.setLoggerLevel(tempLevel);
+				
+				// 콘솔 출력 여부
+				this.setConsole("true".equalsIgnoreCase(properties.getProperty(LOG_CONSOLE, "false").trim()));
 			}
 			catch(Exception e)
 			{
@@ -414,4 +1286,191 @@ public class KLogger extends Thread{
 		this.isUseErrorLog = isUseErrorLog;
 		this.errorFileName = errorLogFileName;
 	}
+	
+	/**
+	 * 로그 파일의 rolling과 보관 정책을 설정한다. KLogger 실행 전에 호출해야 한다.<br>
+	 * 날짜별 파일(logName.yyyyMMdd.log)이 maxFileSize를 넘으면 logName.yyyyMMdd.N.log로 이름을 바꾸고 새 파일에 기록한다.<br>
+	 * 닫힌 파일의 압축과 오래된 파일 삭제는 우선순위가 낮은 LogArchiver thread에서 처리하므로 로그 기록을 막지 않는다.<br>
+	 * 에러 로그 파일(setErrorLog()의 errorName.log)도 같은 정책으로 errorName.yyyyMMdd.N.log로 바꾸고 압축, 정리한다. maxTotalSize는 따로 계산한다.<br>
+	 * 각 값이 0(false)이면 해당 정책을 사용하지 않는다. 기본값 : 모두 0(false)
+	 * @param maxFileSize 파일 1개의 최대 크기 (byte)
+	 * @param maxAgeDays 보관 기간 (일). 마지막 수정 시간 기준
+	 * @param maxTotalSize 이 로거의 로그 파일 전체 최대 크기 (byte). 넘으면 오래된 파일부터 지운다.
+	 * @param isCompress 닫힌 파일을 gzip으로 압축할지 여부
+	 */
+	public void setRollingPolicy(long maxFileSize, int maxAgeDays, long maxTotalSize, boolean isCompress)
+	{
+		if(maxFileSize < 0 || maxAgeDays < 0 || maxTotalSize < 0)
+			throw new IllegalArgumentException();
+		
+		this.maxFileSize = maxFileSize;
+		this.maxAgeMillis = maxAgeDays * 24L * 60 * 60 * 1000;
+		this.maxTotalSize = maxTotalSize;
+		this.isCompress = isCompress;
+	}
+	
+	/**
+	 * 로그 파일의 flush 방식을 설정한다.<br>
+	 * INTERVAL은 intervalMillis마다, BATCH는 batch마다 flush하고, FSYNC는 batch마다 flush한 뒤 fsync한다. 기본값 : BATCH
+	 * @param policy flush 방식
+	 * @param intervalMillis INTERVAL일 때 flush 간격 (ms)
+	 */
+	public void setFlushPolicy(FlushPolicy policy, long intervalMillis)
+	{
+		if(policy == null)
+			throw new NullPointerException();
+		if(intervalMillis <= 0)
+			throw new IllegalArgumentException();
+		
+		this.flushPolicy = policy;
+		this.flushIntervalMillis = intervalMillis;
+	}
+	
+	/**
+	 * 에러 로그 파일(setErrorLog())의 flush 방식을 설정한다. 일반 로그와 따로 설정한다. 기본값 : BATCH
+	 * @param policy flush 방식
+	 * @param intervalMillis INTERVAL일 때 flush 간격 (ms)
+	 */
+	public void setErrorFlushPolicy(FlushPolicy policy, long intervalMillis)
+	{
+		if(policy == null)
+			throw new NullPointerException();
+		if(intervalMillis <= 0)
+			throw new IllegalArgumentException();
+		
+		this.errorFlushPolicy = policy;
+		this.errorFlushIntervalMillis = intervalMillis;
+	}
+	
+	/**
+	 * 로그 파일을 PrintWriter 대신 mmap(MappedLogWriter)으로 기록할지 설정한다. KLogger 실행 전에 호출해야 한다.<br>
+	 * 로그가 많은 로거에서 batch마다의 write syscall과 문자 버퍼 복사를 줄인다. 파일은 segmentSize 단위로 늘어나고, 닫을 때 기록한 크기로 잘린다.<br>
+	 * 에러 로그 파일은 대상이 아니다. 기본값 : 0 (사용 안 함)
+	 * @param segmentSize 한 번에 mmap할 크기 (byte). 0이면 사용하지 않는다.
+	 */
+	public void setMappedOutput(int segmentSize)
+	{
+		if(segmentSize < 0)
+			throw new IllegalArgumentException();
+		this.mappedSegmentSize = segmentSize;
+	}
+	
+	/**
+	 * queue에 담을 수 있는 최대 로그 수를 설정한다. KLogger 실행 전에 호출해야 한다.<br>
+	 * 2의 거듭제곱으로 올림한다. 기본값 : DEFAULT_QUEUE_CAPACITY
+	 * @param capacity 최대 로그 수
+	 */
+	public void setQueueCapacity(int capacity)
+	{
+		if(!this.isQueueEmpty())
+			throw new IllegalStateException("queue is not empty");
+		this.queue = new MpscRingBuffer<Log>(capacity);
+	}
+	
+	/**
+	 * queue가 가득 찼을 때의 처리 방식을 설정한다. 기본값 : BLOCK
+	 * @param policy OverflowPolicy
+	 */
+	public void setOverflowPolicy(OverflowPolicy policy)
+	{
+		if(policy == null)
+			throw new NullPointerException();
+		this.overflowPolicy = policy;
+	}
+	
+	/**
+	 * DROP_BELOW에서 버리지 않는 최소 레벨을 설정한다. ERROR보다 높게 설정해도 ERROR 이상은 버리지 않는다. 기본값 : WARN
+	 * @param logLevel 로그 레벨
+	 */
+	public void setOverflowDropLevel(int logLevel)
+	{
+		if(logLevel < DEBUG || logLevel > FATAL)
+			throw new IllegalArgumentException();
+		this.overflowDropLevel = logLevel;
+	}
+	
+	/**
+	 * SAMPLE에서 새 로그 몇 개 중 1개를 남길지 설정한다. 기본값 : 10
+	 * @param sampleRate N개 중 1개
+	 */
+	public void setOverflowSampleRate(int sampleRate)
+	{
+		if(sampleRate <= 0)
+			throw new IllegalArgumentException();
+		this.overflowSampleRate = sampleRate;
+	}
+	
+	/**
+	 * queue가 가득 차서 log()가 바로 넣지 못한 횟수를 리턴한다.
+	 * @return overflow 횟수
+	 */
+	public long getOverflowCount()
+	{
+		return this.overflowCount.get();
+	}
+	
+	/**
+	 * queue가 가득 차서 버린 로그 수를 리턴한다.
+	 * @return 버린 로그 수
+	 */
+	public long getDroppedCount()
+	{
+		return this.droppedCount.get();
+	}
+	
+	/**
+	 * queue에 쌓인 로그 수를 리턴한다. 근사값이다.
+	 * @return 로그 수
+	 */
+	public int getQueueSize()
+	{
+		return this.queue.size() + this.keptCount;
+	}
+	
+	/**
+	 * queue에 담을 수 있는 최대 로그 수를 리턴한다.
+	 * @return 최대 로그 수
+	 */
+	public int getQueueCapacity()
+	{
+		return this.queue.capacity();
+	}
+	
+	/**
+	 * 로그를 System.out에도 출력할지 설정한다.<br>
+	 * 출력은 공유 ConsoleSink의 thread에서 비동기로 처리된다. 기본값 : false
+	 * @param isUseConsole 콘솔 출력 여부
+	 */
+	public void setConsole(boolean isUseConsole)
+	{
+		if(isUseConsole)
+		{
+			if(!this.sinks.contains(ConsoleSink.getInstance()))
+				this.addSink(ConsoleSink.getInstance());
+		}
+		else if(ConsoleSink.isStarted())
+		{
+			this.removeSink(ConsoleSink.getInstance());
+		}
+	}
+	
+	/**
+	 * 로그 파일 외에 로그를 출력할 대상을 추가한다.
+	 * @param sink LogSink
+	 */
+	public void addSink(LogSink sink)
+	{
+		if(sink == null)
+			throw new NullPointerException();
+		this.sinks.add(sink);
+	}
+	
+	/**
+	 * 로그를 출력할 대상을 제거한다.
+	 * @param sink LogSink
+	 */
+	public void removeSink(LogSink sink)
+	{
+		this.sinks.remove(sink);
+	}
 }
@@ -0,0 +1,100 @@
+package com.yna.ecqmanager.log;
+
+/**
+ * 로그 레벨, 시간(epoch ms), 메세지와 인자만 담고 문자열은 만들지 않는 Log 구현 클래스<br>
+ * 시간 포맷과 메세지 조립은 KLogger의 로거 thread에서 기록할 때 1번만 한다.<br>
+ * 인자는 기록할 때 toString()하므로, 로그를 남긴 뒤 값이 바뀌는 객체는 넘기지 않는다. (String, 숫자, 예외 등)
+ * @see LogData
+ */
+public class LazyLogData implements Log {
+
+	/** 로그 레벨 */
+	private final int logLevel;
+
+	/** 로그 시간 (epoch ms) */
+	private final long logMillis;
+
+	/** 로그 메세지 */
+	private final String logMsg;
+
+	/** 메세지 뒤에 붙일 인자 */
+	private final Object[] objects;
+
+	/**
+	 * LazyLogData 생성자<br>
+	 * logLevel 인자는 KLogger의 public static 변수를 참고한다.
+	 * @param logLevel 로그 레벨 (KLogger의 변수 참고)
+	 * @param logMsg 로그 메세지
+	 */
+	public LazyLogData(int logLevel, String logMsg)
+	{
+		this(logLevel, logMsg, (Object[]) null);
+	}
+
+	/**
+	 * LazyLogData 생성자<br>
+	 * logLevel 인자는 KLogger의 public static 변수를 참고한다.<br>
+	 * Object 인자는 기록할 때 toString으로 logMsg에 더해지게 된다. (LogData와 같은 형식)
+	 * @param logLevel 로그 레벨 (KLogger의 변수 참고)
+	 * @param logMsg 로그 메세지
+	 * @param objects 기타 Object
+	 */
+	public LazyLogData(int logLevel, String logMsg, Object...objects)
+	{
+		if(logMsg == null || logMsg.length() == 0)
+			throw new NullPointerException();
+		if(logLevel < KLogger.DEBUG || logLevel > KLogger.FATAL)
+			throw new IllegalArgumentException();
+
+		this.logLevel = logLevel;
+		this.logMillis = System.currentTimeMillis();
+		this.logMsg = logMsg;
+		this.objects = objects;
+	}
+
+	@Override
+	public int getLogLevel()
+	{
+		return this.logLevel;
+	}
+
+	@Override
+	public long getLogMillis()
+	{
+		return this.logMillis;
+	}
+
+	@Override
+	public String getLogTime()
+	{
+		return LogTimeFormatter.format(this.logMillis);
+	}
+
+	@Override
+	public String getLogMsg()
+	{
+		return this.appendLogMsg(new StringBuilder()).toString();
+	}
+
+	@Override
+	public StringBuilder appendLogTime(StringBuilder sb)
+	{
+		return LogTimeFormatter.append(sb, this.logMillis);
+	}
+
+	@Override
+	public StringBuilder appendLogMsg(StringBuilder sb)
+	{
+		sb.append(this.logMsg);
+
+		if(this.objects != null)
+		{
+			for(Object object : this.objects)
+			{
+				if(object != null)
+					sb.append(" ").append(object.toString());
+			}
+		}
+		return sb;
+	}
+}
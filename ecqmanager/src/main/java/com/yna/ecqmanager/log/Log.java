@@ -9,4 +9,33 @@ public interface Log {
 	public int getLogLevel();
 	public String getLogTime();
 	public String getLogMsg();
+	
+	/**
+	 * 로그 시간(epoch ms)을 리턴한다.
+	 * @return 로그 시간. 알 수 없으면 -1
+	 */
+	public default long getLogMillis()
+	{
+		return -1L;
+	}
+	
+	/**
+	 * 로그 시간을 sb에 붙인다. KLogger가 기록할 때 사용한다.
+	 * @param sb StringBuilder
+	 * @return sb
+	 */
+	public default StringBuilder appendLogTime(StringBuilder sb)
+	{
+		return sb.append(this.getLogTime());
+	}
+	
+	/**
+	 * 로그 메세지를 sb에 붙인다. KLogger가 기록할 때 사용한다.
+	 * @param sb StringBuilder
+	 * @return sb
+	 */
+	public default StringBuilder appendLogMsg(StringBuilder sb)
+	{
+		return sb.append(this.getLogMsg());
+	}
 }
@@ -0,0 +1,185 @@
+package com.yna.ecqmanager.log;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 닫힌 로그 파일의 gzip 압축과 보관 기간/용량 정리를 처리하는 클래스<br>
+ * 모든 작업은 우선순위가 가장 낮은(MIN_PRIORITY) daemon thread 1개에서 순서대로 실행되므로, 로그를 기록하는 thread는 기다리지 않는다.<br>
+ * 압축은 .gz.tmp 파일에 쓴 뒤 이름을 바꾸고 원본을 지우므로, 압축 중에 종료되어도 원본은 남는다.
+ */
+public class LogArchiver {
+
+	/** 압축 파일 확장자 */
+	static final String GZIP_SUFFIX = ".gz";
+
+	/** 공유 인스턴스 */
+	private static final LogArchiver INSTANCE = new LogArchiver();
+
+	/** 작업 thread */
+	private ExecutorService executor;
+
+	/**
+	 * 공유 LogArchiver를 리턴하는 메소드
+	 * @return LogArchiver
+	 */
+	public static LogArchiver getInstance()
+	{
+		return INSTANCE;
+	}
+
+	private LogArchiver()
+	{
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "klog-archiver");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * 닫힌 로그 파일을 압축하고 보관 정책을 적용하는 작업을 등록하는 메소드
+	 * @param closedFile 닫힌 로그 파일. null이면 압축하지 않는다.
+	 * @param policy 보관 정책
+	 */
+	void archive(File closedFile, RollingPolicy policy)
+	{
+		this.executor.execute(() -> {
+			try
+			{
+				if(closedFile != null && policy.isCompress)
+					compress(closedFile);
+				cleanUp(policy);
+			}
+			catch(Exception e)
+			{
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * 파일을 gzip으로 압축하고 원본을 지우는 메소드
+	 * @param file 파일
+	 */
+	static void compress(File file) throws Exception
+	{
+		if(!file.exists())
+			return;
+
+		File gzip = new File(file.getPath() + GZIP_SUFFIX);
+		File temp = new File(gzip.getPath() + ".tmp");
+
+		try(InputStream in = Files.newInputStream(file.toPath());
+				OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp.toPath()), 65536))
+		{
+			byte[] buffer = new byte[65536];
+			int read;
+			while((read = in.read(buffer)) > 0)
+				out.write(buffer, 0, read);
+		}
+
+		// 보관 기간은 원본의 수정 시간 기준으로 계산한다.
+		temp.setLastModified(file.lastModified());
+		Files.move(temp.toPath(), gzip.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.delete(file.toPath());
+	}
+
+	/**
+	 * 보관 기간이 지난 파일을 지우고, 전체 크기가 maxTotalSize 이하가 될 때까지 오래된 파일부터 지우는 메소드<br>
+	 * 기록 중인 파일(activeFile)은 지우지 않는다. 압축하지 않은 이전 파일이 남아있으면 (비정상 종료 등) 압축한다.
+	 * @param policy 보관 정책
+	 */
+	static void cleanUp(RollingPolicy policy) throws Exception
+	{
+		File[] files = policy.logDir.listFiles();
+		if(files == null)
+			return;
+
+		File activeFile = policy.activeFile;
+		long now = System.currentTimeMillis();
+		List<File> logFiles = new ArrayList<File>();
+
+		for(File file : files)
+		{
+			if(!file.isFile() || !policy.filePattern.matcher(file.getName()).matches())
+				continue;
+
+			if(!file.equals(activeFile) && policy.maxAgeMillis > 0 && now - file.lastModified() > policy.maxAgeMillis)
+			{
+				Files.deleteIfExists(file.toPath());
+				continue;
+			}
+
+			if(policy.isCompress && !file.equals(activeFile) && !file.getName().endsWith(GZIP_SUFFIX))
+			{
+				compress(file);
+				file = new File(file.getPath() + GZIP_SUFFIX);
+			}
+			logFiles.add(file);
+		}
+
+		if(policy.maxTotalSize <= 0)
+			return;
+
+		logFiles.sort(Comparator.comparingLong(File::lastModified));
+
+		long totalSize = 0;
+		for(File file : logFiles)
+			totalSize += file.length();
+
+		for(File file : logFiles)
+		{
+			if(totalSize <= policy.maxTotalSize)
+				break;
+			if(file.equals(activeFile))
+				continue;
+
+			totalSize -= file.length();
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+
+	/**
+	 * 로거 1개의 rolling, 보관 정책<br>
+	 * 로거 thread에서 만들어 LogArchiver thread에 넘기므로 불변 객체로 사용한다.
+	 */
+	static final class RollingPolicy {
+		private final File logDir;
+		private final Pattern filePattern;
+		private final File activeFile;
+		private final long maxAgeMillis;
+		private final long maxTotalSize;
+		private final boolean isCompress;
+
+		/**
+		 * RollingPolicy 생성자
+		 * @param logDir 로그 폴더
+		 * @param filePattern 로거의 로그 파일명 패턴
+		 * @param activeFile 기록 중인 파일
+		 * @param maxAgeMillis 보관 기간 (ms). 0이면 지우지 않는다.
+		 * @param maxTotalSize 로거별 최대 전체 크기 (byte). 0이면 제한하지 않는다.
+		 * @param isCompress 닫힌 파일 압축 여부
+		 */
+		RollingPolicy(File logDir, Pattern filePattern, File activeFile, long maxAgeMillis, long maxTotalSize, boolean isCompress)
+		{
+			this.logDir = logDir;
+			this.filePattern = filePattern;
+			this.activeFile = activeFile;
+			this.maxAgeMillis = maxAgeMillis;
+			this.maxTotalSize = maxTotalSize;
+			this.isCompress = isCompress;
+		}
+	}
+}
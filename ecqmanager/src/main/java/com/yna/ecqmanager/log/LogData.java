@@ -1,21 +1,20 @@
 package com.yna.ecqmanager.log;
-import java.text.SimpleDateFormat;
-import java.util.Date;;
 
 /**
  * Log 인터페이스를 구현한 LogData 클래스<br>
- * logLevel, logTime, logMsg 등 로그 정보를 담는다.
+ * logLevel, logTime, logMsg 등 로그 정보를 담는다.<br>
+ * 생성할 때 메세지를 만든다. 인자를 기록할 때 문자열로 바꿔도 되는 경우에는 LazyLogData를 사용한다.
  * @author 황경진
  *
  */
 public class LogData implements Log{
 
-	/** 로그 날짜 형식*/
-	private static final String DATE_FORMAT = "yyyyMMdd HH:mm:ss.SSS";
-	
 	/** 로그 레벨*/
 	private int logLevel;
 	
+	/** 로그 시간 (epoch ms)*/
+	private long logMillis;
+	
 	/** 로그 시간*/
 	private String logTime;
 	
@@ -72,6 +71,16 @@ public class LogData implements Log{
 		return this.logLevel;
 	}
 	
+	/**
+	 * 로그 시간(epoch ms)을 리턴한다.
+	 * @return logMillis 로그 시간
+	 */
+	@Override
+	public long getLogMillis()
+	{
+		return this.logMillis;
+	}
+	
 	/**
 	 * logTime을 리턴한다.
 	 * @return logTime 로그 타임
@@ -93,13 +102,23 @@ public class LogData implements Log{
 	}
 	
 	/**
-	 * logTime을 설정한다.
+	 * logMsg를 sb에 붙인다.
+	 * @param sb StringBuilder
+	 * @return sb
+	 */
+	@Override
+	public StringBuilder appendLogMsg(StringBuilder sb)
+	{
+		return sb.append(this.logMsg);
+	}
+	
+	/**
+	 * logTime을 설정한다. (yyyyMMdd HH:mm:ss.SSS)
 	 */
 	private void setLogTime()
 	{
-		Date tempDate = new Date(System.currentTimeMillis());
-		SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATE_FORMAT);
-		this.logTime = simpleDateFormat.format(tempDate);
+		this.logMillis = System.currentTimeMillis();
+		this.logTime = LogTimeFormatter.format(this.logMillis);
 	}
 	
 	/**
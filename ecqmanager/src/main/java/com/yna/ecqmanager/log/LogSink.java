@@ -0,0 +1,22 @@
+package com.yna.ecqmanager.log;
+
+/**
+ * KLogger가 로그 파일 외에 추가로 로그를 출력할 대상<br>
+ * KLogger의 로거 thread에서 호출되므로, 오래 걸리는 출력은 구현체에서 비동기로 처리해야 한다.
+ */
+public interface LogSink {
+
+	/**
+	 * 포맷된 로그 1줄을 출력하는 메소드
+	 * @param line 로그 (줄바꿈 포함)
+	 */
+	public void write(String line);
+
+	/**
+	 * KLogger가 batch를 기록한 뒤 호출하는 메소드
+	 */
+	public default void flush()
+	{
+		// nothing
+	}
+}
@@ -0,0 +1,74 @@
+package com.yna.ecqmanager.log;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 로그 시간을 "yyyyMMdd HH:mm:ss.SSS" 형식으로 만드는 클래스<br>
+ * 초 단위 앞부분("yyyyMMdd HH:mm:ss.")은 마지막으로 만든 값을 재사용하고, 밀리초만 붙인다.<br>
+ * 캐시는 불변 객체 1개를 volatile로 교체하므로 여러 thread에서 동시에 사용할 수 있다.
+ */
+public final class LogTimeFormatter {
+
+	/** 초 단위 앞부분 포맷 (thread-safe) */
+	private static final DateTimeFormatter PREFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd HH:mm:ss.");
+
+	/** 마지막으로 만든 앞부분 */
+	private static volatile Prefix cache = new Prefix(Long.MIN_VALUE, null);
+
+	private LogTimeFormatter()
+	{
+		throw new AssertionError();
+	}
+
+	/**
+	 * 로그 시간을 sb에 붙이는 메소드
+	 * @param sb StringBuilder
+	 * @param millis 시간 (epoch ms)
+	 * @return sb
+	 */
+	public static StringBuilder append(StringBuilder sb, long millis)
+	{
+		long second = Math.floorDiv(millis, 1000L);
+		int milli = (int) Math.floorMod(millis, 1000L);
+
+		Prefix prefix = cache;
+		if(prefix.second != second)
+		{
+			prefix = new Prefix(second, PREFIX_FORMAT.format(Instant.ofEpochSecond(second).atZone(ZoneId.systemDefault())));
+			cache = prefix;
+		}
+
+		sb.append(prefix.text);
+		if(milli < 100)
+			sb.append('0');
+		if(milli < 10)
+			sb.append('0');
+		return sb.append(milli);
+	}
+
+	/**
+	 * 로그 시간을 문자열로 리턴하는 메소드
+	 * @param millis 시간 (epoch ms)
+	 * @return yyyyMMdd HH:mm:ss.SSS
+	 */
+	public static String format(long millis)
+	{
+		return append(new StringBuilder(24), millis).toString();
+	}
+
+	/**
+	 * 초 단위 앞부분 캐시
+	 */
+	private static final class Prefix {
+		private final long second;
+		private final String text;
+
+		private Prefix(long second, String text)
+		{
+			this.second = second;
+			this.text = text;
+		}
+	}
+}
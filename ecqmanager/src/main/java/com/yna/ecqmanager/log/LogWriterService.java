@@ -0,0 +1,177 @@
+package com.yna.ecqmanager.log;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 여러 KLogger의 로그를 1개의 thread로 기록하는 클래스<br>
+ * KLogger.startShared()로 등록된 로거들의 queue를 돌아가면서 batch 단위로 꺼내고, 로거별로 열어둔 파일에 기록한다.<br>
+ * 로거가 늘어나도 기록 thread는 1개이며, 한 로거의 로그가 많아도 batch 단위로 번갈아 기록하므로 다른 로거가 밀리지 않는다.<br>
+ * thread는 등록된 로거가 생기면 시작하고, 모든 로거가 terminate()되어 남은 로그를 다 기록하면 종료한다.
+ */
+public class LogWriterService {
+
+	/** 프로세스가 종료될 때 남은 로그를 기록하고 파일을 닫을 때까지 기다리는 최대 시간 (ms) */
+	private static final long SHUTDOWN_WAIT_MILLIS = 3000L;
+
+	/** queue가 모두 비었을 때 기록 thread가 최대로 기다리는 시간 (ns) */
+	private static final long MAX_PARK_NANOS = 1000000000L;
+
+	/** 공유 인스턴스 */
+	private static final LogWriterService INSTANCE = new LogWriterService();
+
+	/** 등록된 로거 */
+	private final List<KLogger> loggers = new CopyOnWriteArrayList<KLogger>();
+
+	/** 기록 thread. 실행 중이 아니면 null */
+	private volatile Thread thread;
+
+	/** 기록 thread가 기다리는 중인지 여부 */
+	private final AtomicBoolean isWaiting = new AtomicBoolean(false);
+
+	/**
+	 * 공유 LogWriterService를 리턴하는 메소드
+	 * @return LogWriterService
+	 */
+	public static LogWriterService getInstance()
+	{
+		return INSTANCE;
+	}
+
+	private LogWriterService()
+	{
+		// 프로세스가 종료(SIGTERM 등)될 때 남은 로그를 기록하고 파일을 닫는다. (mmap 파일은 닫을 때 기록한 크기로 잘린다.)
+		Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "klog-shutdown"));
+	}
+
+	/**
+	 * 등록된 로거를 모두 종료하고, 기록 thread가 남은 로그를 기록하고 끝날 때까지 기다리는 메소드
+	 */
+	private void shutdown()
+	{
+		for(KLogger logger : this.loggers)
+			logger.terminate();
+
+		Thread thread = this.thread;
+		if(thread == null)
+			return;
+
+		try
+		{
+			thread.join(SHUTDOWN_WAIT_MILLIS);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 로거를 등록하는 메소드. 기록 thread가 없으면 시작한다.
+	 * @param logger KLogger
+	 */
+	synchronized void register(KLogger logger)
+	{
+		if(this.loggers.contains(logger))
+			return;
+
+		logger.setService(this);
+		this.loggers.add(logger);
+
+		if(this.thread == null)
+		{
+			this.thread = new Thread(this::run, "klog-writer");
+			this.thread.start();
+		}
+		else
+		{
+			this.wakeUp();
+		}
+	}
+
+	/**
+	 * 기록 thread가 기다리는 중이면 깨우는 메소드
+	 */
+	void wakeUp()
+	{
+		if(this.isWaiting.get() && this.isWaiting.compareAndSet(true, false))
+		{
+			Thread thread = this.thread;
+			if(thread != null)
+				LockSupport.unpark(thread);
+		}
+	}
+
+	/**
+	 * 등록된 로거 수를 리턴하는 메소드
+	 * @return 로거 수
+	 */
+	public int getLoggerCount()
+	{
+		return this.loggers.size();
+	}
+
+	/**
+	 * 등록된 로거들의 로그를 기록하는 메소드 (기록 thread)
+	 */
+	private void run()
+	{
+		while(true)
+		{
+			int count = 0;
+
+			for(KLogger logger : this.loggers)
+			{
+				count += logger.drain();
+
+				if(logger.isTerminated())
+				{
+					logger.closeWriters();
+					this.loggers.remove(logger);
+				}
+			}
+
+			if(count > 0)
+				continue;
+
+			synchronized(this)
+			{
+				if(this.loggers.isEmpty())
+				{
+					this.thread = null;
+					return;
+				}
+			}
+
+			// INTERVAL flush 로거가 있으면 다음 flush 시간까지만 기다린다.
+			long waitMillis = Long.MAX_VALUE;
+			for(KLogger logger : this.loggers)
+				waitMillis = Math.min(waitMillis, logger.flushIfDue());
+			long parkNanos = Math.min(MAX_PARK_NANOS, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+
+			this.isWaiting.set(true);
+
+			// isWaiting을 설정한 뒤 다시 확인해야, 그 사이에 들어온 로그의 wakeup을 놓치지 않는다.
+			if(!this.hasPending())
+				LockSupport.parkNanos(this, parkNanos);
+			this.isWaiting.set(false);
+		}
+	}
+
+	/**
+	 * 기록할 로그가 남은 로거가 있는지 리턴하는 메소드
+	 * @return 있으면 true
+	 */
+	private boolean hasPending()
+	{
+		for(KLogger logger : this.loggers)
+		{
+			if(logger.hasPending())
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,228 @@
+package com.yna.ecqmanager.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 로그 문자열을 UTF-8로 mmap된 파일에 바로 기록하는 클래스<br>
+ * 파일은 segmentSize 단위로 미리 늘려서 mmap하고, 공간이 모자라면 다음 구간을 다시 mmap한다.<br>
+ * PrintWriter/BufferedWriter를 거치지 않으므로 문자 버퍼 복사와 batch마다의 write syscall이 없다. 기록한 내용은 바로 OS page cache에 있으므로 프로세스가 죽어도 남는다.<br>
+ * close()에서 기록한 크기로 파일을 자른다. 비정상 종료로 잘리지 않은 파일을 다시 열면 끝의 0으로 채워진 공간을 잘라내고 이어서 기록한다.<br>
+ * force()는 현재 구간만 디스크에 기록하므로, isSync이면 다음 구간으로 넘어가기 전에 이전 구간을 force한다.<br>
+ * KLogger의 로거 thread 1개에서만 사용한다.
+ */
+public class MappedLogWriter implements Closeable {
+
+	/** 기본 mmap 구간 크기 */
+	public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+	/** 복구할 때 파일 끝에서부터 읽는 단위 */
+	private static final int RECOVER_READ_SIZE = 64 * 1024;
+
+	/** 파일 채널 */
+	private FileChannel channel;
+
+	/** 한 번에 mmap할 크기 */
+	private int segmentSize;
+
+	/** 현재 mmap된 구간 */
+	private MappedByteBuffer mapped;
+
+	/** 현재 mmap된 구간의 파일 내 시작 위치 */
+	private long mappedStart;
+
+	/** 다음 구간을 mmap하기 전에 현재 구간을 force할지 여부 (FSYNC) */
+	private boolean isSync;
+
+	/**
+	 * MappedLogWriter 생성자. 파일이 있으면 기록된 부분 뒤에 이어서 기록한다.
+	 * @param file 로그 파일
+	 * @param segmentSize 한 번에 mmap할 크기
+	 * @throws IOException 파일을 열지 못했을 때 발생
+	 */
+	public MappedLogWriter(Path file, int segmentSize) throws IOException
+	{
+		this(file, segmentSize, false);
+	}
+
+	/**
+	 * MappedLogWriter 생성자. 파일이 있으면 기록된 부분 뒤에 이어서 기록한다.
+	 * @param file 로그 파일
+	 * @param segmentSize 한 번에 mmap할 크기
+	 * @param isSync true이면 다음 구간을 mmap하기 전에 현재 구간을 force한다. force()를 batch마다 호출할 때(FSYNC) 사용한다.
+	 * @throws IOException 파일을 열지 못했을 때 발생
+	 */
+	public MappedLogWriter(Path file, int segmentSize, boolean isSync) throws IOException
+	{
+		if(file == null || segmentSize <= 0)
+			throw new IllegalArgumentException();
+
+		this.segmentSize = segmentSize;
+		this.isSync = isSync;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try
+		{
+			long validLength = this.recover();
+			this.channel.truncate(validLength);
+			this.map(validLength, segmentSize);
+
+			// 비정상 종료로 마지막 줄이 끝나지 않았으면 줄을 바꾸고 이어서 기록한다.
+			if(validLength > 0 && this.readByte(validLength - 1) != '\n')
+				this.mapped.put((byte) '\n');
+		}
+		catch(IOException e)
+		{
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 파일 끝에서부터 0이 아닌 마지막 byte를 찾아 기록된 크기를 리턴하는 메소드
+	 * @return 기록된 크기
+	 */
+	private long recover() throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(RECOVER_READ_SIZE);
+		long end = this.channel.size();
+
+		while(end > 0)
+		{
+			long start = Math.max(0, end - RECOVER_READ_SIZE);
+			buffer.clear();
+			buffer.limit((int) (end - start));
+			while(buffer.hasRemaining() && this.channel.read(buffer, start + buffer.position()) >= 0)
+			{
+				// 끝까지 읽는다.
+			}
+
+			for(int i = buffer.position() - 1; i >= 0; i--)
+			{
+				if(buffer.get(i) != 0)
+					return start + i + 1;
+			}
+			end = start;
+		}
+		return 0;
+	}
+
+	/**
+	 * 파일의 position 위치 byte를 읽는 메소드
+	 * @param position 위치
+	 * @return byte
+	 */
+	private byte readByte(long position) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(1);
+		this.channel.read(buffer, position);
+		return buffer.get(0);
+	}
+
+	/**
+	 * start부터 size만큼 mmap하는 메소드. 파일은 start + size까지 늘어난다.
+	 * @param start 파일 내 시작 위치
+	 * @param size mmap할 크기
+	 */
+	private void map(long start, int size) throws IOException
+	{
+		// force()는 현재 구간만 기록하므로, 넘어가기 전에 이전 구간에 기록한 내용을 force한다.
+		if(this.isSync && this.mapped != null)
+			this.mapped.force();
+
+		this.mappedStart = start;
+		this.mapped = this.channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+	}
+
+	/**
+	 * 문자열을 UTF-8로 기록하는 메소드. 현재 구간에 공간이 모자라면 다음 구간을 mmap한다.
+	 * @param cs 문자열
+	 * @throws IOException mmap하지 못했을 때 발생
+	 */
+	public void write(CharSequence cs) throws IOException
+	{
+		int length = cs.length();
+
+		// UTF-8은 char 1개에 최대 3 byte (surrogate pair는 2개에 4 byte)
+		if(this.mapped.remaining() < length * 3)
+			this.map(this.getSize(), Math.max(this.segmentSize, length * 3));
+
+		MappedByteBuffer buffer = this.mapped;
+		for(int i = 0; i < length; i++)
+		{
+			char c = cs.charAt(i);
+			if(c < 0x80)
+			{
+				buffer.put((byte) c);
+			}
+			else if(c < 0x800)
+			{
+				buffer.put((byte) (0xC0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+			else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(cs.charAt(i + 1)))
+			{
+				int cp = Character.toCodePoint(c, cs.charAt(++i));
+				buffer.put((byte) (0xF0 | (cp >> 18)));
+				buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+				buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (cp & 0x3F)));
+			}
+			else if(Character.isSurrogate(c))
+			{
+				// 짝이 없는 surrogate
+				buffer.put((byte) '?');
+			}
+			else
+			{
+				buffer.put((byte) (0xE0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	/**
+	 * 지금까지 기록한 크기를 리턴하는 메소드
+	 * @return 파일 크기 (byte)
+	 */
+	public long getSize()
+	{
+		return this.mappedStart + this.mapped.position();
+	}
+
+	/**
+	 * mmap된 구간을 디스크에 기록하는 메소드 (fsync)
+	 */
+	public void force()
+	{
+		this.mapped.force();
+	}
+
+	/**
+	 * 기록한 크기로 파일을 자르고 닫는다.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if(this.channel == null)
+			return;
+
+		try
+		{
+			long size = this.getSize();
+			this.mapped = null;
+			this.channel.truncate(size);
+		}
+		finally
+		{
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.yna.ecqmanager.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 여러 thread가 넣고(multi-producer) 한 번에 1개의 thread만 꺼내는(single-consumer) lock-free 고정 크기 ring buffer<br>
+ * slot마다 sequence 번호를 두어, producer는 tail을 CAS로 차지한 뒤 값을 넣고 sequence를 올려 consumer에게 공개한다.<br>
+ * lock과 노드 객체를 사용하지 않으므로 offer()는 객체를 만들지 않으며, 가득 차면 기다리지 않고 false를 리턴한다.<br>
+ * poll()은 외부에서 직렬화해야 한다. 동시에 2개 이상의 thread가 호출하면 안 되며, 여러 thread가 꺼낸다면 lock 등으로 순서를 보장해야 한다.
+ * (KLogger는 로거 thread와 DROP_OLDEST의 producer가 pollLock을 잡고 꺼낸다.)
+ * @param <E> 원소 타입
+ */
+public class MpscRingBuffer<E> {
+
+	/** index 계산용 mask (capacity - 1) */
+	private final int mask;
+
+	/** 원소 배열 */
+	private final AtomicReferenceArray<E> buffer;
+
+	/** slot별 sequence. pos + 1이면 pos번째 원소가 들어있고, pos이면 pos번째 원소를 넣을 수 있다. */
+	private final AtomicLongArray sequences;
+
+	/** 다음에 넣을 위치 (producer) */
+	private final AtomicLong tail;
+
+	/** 다음에 꺼낼 위치 (consumer) */
+	private final AtomicLong head;
+
+	/**
+	 * MpscRingBuffer 생성자
+	 * @param capacity 최대 원소 수. 2의 거듭제곱으로 올림한다.
+	 */
+	public MpscRingBuffer(int capacity)
+	{
+		if(capacity <= 0 || capacity > (1 << 30))
+			throw new IllegalArgumentException();
+
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity)
+			size <<= 1;
+
+		this.mask = size - 1;
+		this.buffer = new AtomicReferenceArray<E>(size);
+		this.sequences = new AtomicLongArray(size);
+		this.tail = new AtomicLong();
+		this.head = new AtomicLong();
+
+		for(int i = 0; i < size; i++)
+			this.sequences.set(i, i);
+	}
+
+	/**
+	 * 원소를 넣는 메소드. 여러 thread에서 동시에 호출할 수 있다.
+	 * @param e 원소
+	 * @return 넣었으면 true, 가득 찼으면 false
+	 */
+	public boolean offer(E e)
+	{
+		if(e == null)
+			throw new NullPointerException();
+
+		long pos = this.tail.get();
+
+		while(true)
+		{
+			int index = (int) (pos & this.mask);
+			long diff = this.sequences.get(index) - pos;
+
+			if(diff == 0)
+			{
+				if(this.tail.compareAndSet(pos, pos + 1))
+				{
+					this.buffer.lazySet(index, e);
+					this.sequences.set(index, pos + 1);
+					return true;
+				}
+				pos = this.tail.get();
+			}
+			else if(diff < 0)
+			{
+				// consumer가 아직 꺼내지 않은 slot. 가득 찬 상태
+				return false;
+			}
+			else
+			{
+				// 다른 producer가 먼저 차지한 위치
+				pos = this.tail.get();
+			}
+		}
+	}
+
+	/**
+	 * 원소를 꺼내는 메소드. 다른 poll()과 동시에 호출하면 안 된다. (외부에서 직렬화)
+	 * @return 원소. 비어있으면 null
+	 */
+	public E poll()
+	{
+		long pos = this.head.get();
+		int index = (int) (pos & this.mask);
+
+		if(this.sequences.get(index) != pos + 1)
+			return null;
+
+		E e = this.buffer.get(index);
+		this.buffer.lazySet(index, null);
+		this.sequences.set(index, pos + this.mask + 1);
+		this.head.lazySet(pos + 1);
+		return e;
+	}
+
+	/**
+	 * 비어있는지 리턴하는 메소드. poll()과 같은 방식으로 직렬화된 곳에서 호출하면 정확하다.
+	 * @return 꺼낼 원소가 없으면 true
+	 */
+	public boolean isEmpty()
+	{
+		long pos = this.head.get();
+		return this.sequences.get((int) (pos & this.mask)) != pos + 1;
+	}
+
+	/**
+	 * 들어있는 원소 수를 리턴하는 메소드. 다른 thread가 넣고 꺼내는 중이면 근사값이다.
+	 * @return 원소 수
+	 */
+	public int size()
+	{
+		long size = this.tail.get() - this.head.get();
+		return (int) Math.max(0, Math.min(size, this.capacity()));
+	}
+
+	/**
+	 * 최대 원소 수를 리턴하는 메소드
+	 * @return capacity
+	 */
+	public int capacity()
+	{
+		return this.mask + 1;
+	}
+}
@@ -0,0 +1,48 @@
+package com.yna.ecqmanager.log;
+
+/**
+ * KLogger의 queue가 가득 찼을 때 로그를 처리하는 방식<br>
+ * 어떤 방식이든 ERROR 이상의 로그는 버리지 않는다. 자리를 만들 수 없으면 자리가 날 때까지 기다린다.
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * 자리가 날 때까지 log()를 호출한 thread가 기다린다. 로그는 버리지 않는다. (기본값)
+	 */
+	BLOCK,
+
+	/**
+	 * log()를 호출한 thread가 queue의 가장 오래된 ERROR 미만 로그를 버려서 자리를 만든다. 로거 thread를 기다리지 않는다.<br>
+	 * 오래된 ERROR 이상 로그는 따로 옮겨두는데, 이것도 queue 크기만큼 차면 ERROR 미만의 새 로그를 버린다.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * setOverflowDropLevel()로 설정한 레벨보다 낮은 새 로그는 버리고, 나머지는 기다린다.
+	 */
+	DROP_BELOW,
+
+	/**
+	 * 새 로그 N개 중 1개만 기다려서 넣고 나머지는 버린다. N은 setOverflowSampleRate()로 설정한다.
+	 */
+	SAMPLE;
+
+	/**
+	 * 문자열을 OverflowPolicy로 바꾸는 메소드
+	 * @param name 이름 (대소문자 구분 안 함)
+	 * @param defaultPolicy 이름이 없거나 잘못된 경우 리턴할 값
+	 * @return OverflowPolicy
+	 */
+	public static OverflowPolicy of(String name, OverflowPolicy defaultPolicy)
+	{
+		if(name == null)
+			return defaultPolicy;
+
+		for(OverflowPolicy policy : values())
+		{
+			if(policy.name().equalsIgnoreCase(name.trim()))
+				return policy;
+		}
+		return defaultPolicy;
+	}
+}
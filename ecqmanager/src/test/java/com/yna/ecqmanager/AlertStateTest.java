@@ -0,0 +1,128 @@
+package com.yna.ecqmanager;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for AlertState and TokenBucket.
+ */
+public class AlertStateTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public AlertStateTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( AlertStateTest.class );
+    }
+
+    /**
+     * 상태가 바뀔 때만 알리고, 같은 status가 계속되면 remind 간격마다 다시 알린다.
+     */
+    public void testTransition()
+    {
+        AlertState state = new AlertState( new long[] { 10, 30 } );
+
+        assertEquals( AlertState.NONE, state.update( "OK", 0 ) );
+        assertEquals( AlertState.ALERT, state.update( "WARN", 100 ) );
+        assertEquals( AlertState.NONE, state.update( "WARN", 105 ) );
+        assertEquals( AlertState.REMIND, state.update( "WARN", 110 ) );
+        assertEquals( AlertState.NONE, state.update( "WARN", 130 ) );
+        assertEquals( AlertState.REMIND, state.update( "WARN", 140 ) );
+        assertEquals( AlertState.REMIND, state.update( "WARN", 170 ) );
+        assertEquals( 3, state.getRemindCount() );
+
+        // status가 바뀌면 다시 알리고, 시작 시간은 유지한다.
+        assertEquals( AlertState.ALERT, state.update( "ERR", 180 ) );
+        assertEquals( 100, state.getSince() );
+        assertEquals( 0, state.getRemindCount() );
+
+        assertEquals( AlertState.RECOVER, state.update( "STALL", 200 ) );
+        assertEquals( AlertState.NONE, state.update( "OK", 210 ) );
+        assertEquals( 0, state.getSince() );
+    }
+
+    /**
+     * remind 간격이 없으면 다시 알리지 않는다.
+     */
+    public void testNoRemind()
+    {
+        AlertState state = new AlertState( new long[0] );
+
+        assertEquals( AlertState.ALERT, state.update( "ERR", 0 ) );
+        assertEquals( AlertState.NONE, state.update( "ERR", Long.MAX_VALUE - 1 ) );
+    }
+
+    /**
+     * capacity만큼 보낸 뒤에는 refill 시간마다 1개씩 보낼 수 있다.
+     */
+    public void testTokenBucket()
+    {
+        TokenBucket bucket = new TokenBucket( 3, 100 );
+
+        assertTrue( bucket.tryAcquire( 1000 ) );
+        assertTrue( bucket.tryAcquire( 1000 ) );
+        assertTrue( bucket.tryAcquire( 1000 ) );
+        assertFalse( bucket.tryAcquire( 1050 ) );
+        assertTrue( bucket.tryAcquire( 1100 ) );
+        assertFalse( bucket.tryAcquire( 1150 ) );
+
+        // 오래 쉬어도 capacity 이상 채워지지 않는다.
+        for( int i = 0; i < 3; i++ )
+            assertTrue( bucket.tryAcquire( 100000 ) );
+        assertFalse( bucket.tryAcquire( 100000 ) );
+    }
+
+    /**
+     * check()는 상태를 바꾸지 않으므로, 보내지 못한 알림은 다음 확인에서 다시 나온다.
+     */
+    public void testCheck()
+    {
+        AlertState state = new AlertState( new long[] { 10 } );
+
+        assertEquals( AlertState.ALERT, state.check( "WARN", 100 ) );
+        assertEquals( AlertState.ALERT, state.check( "WARN", 105 ) );
+        assertEquals( 0, state.getSince() );
+        assertEquals( AlertState.ALERT, state.update( "WARN", 105 ) );
+        assertEquals( 105, state.getSince() );
+
+        assertEquals( AlertState.REMIND, state.check( "WARN", 120 ) );
+        assertEquals( AlertState.REMIND, state.check( "WARN", 125 ) );
+        assertEquals( AlertState.REMIND, state.update( "WARN", 125 ) );
+        assertEquals( 1, state.getRemindCount() );
+
+        assertEquals( AlertState.RECOVER, state.check( "OK", 130 ) );
+        assertEquals( AlertState.RECOVER, state.check( "OK", 140 ) );
+        assertEquals( AlertState.RECOVER, state.update( "OK", 140 ) );
+        assertEquals( AlertState.NONE, state.check( "OK", 150 ) );
+    }
+
+    /**
+     * 전체 bucket에 token이 없으면 컨슈머 bucket의 token도 사용하지 않는다.
+     */
+    public void testTokenBucketPair()
+    {
+        TokenBucket group = new TokenBucket( 2, 60000 );
+        TokenBucket global = new TokenBucket( 1, 1000 );
+
+        assertTrue( TokenBucket.tryAcquire( group, global, 10000 ) );
+        for( int i = 0; i < 5; i++ )
+            assertFalse( TokenBucket.tryAcquire( group, global, 10010 + i ) );
+
+        // 컨슈머 bucket에는 1개가 남아있다.
+        assertTrue( TokenBucket.tryAcquire( group, global, 11000 ) );
+        assertFalse( group.tryAcquire( 11000 ) );
+    }
+}
@@ -0,0 +1,339 @@
+package com.yna.ecqmanager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * BurrowCheck behaviour tests against a local fake burrow.
+ */
+public class BurrowCheckTest
+    extends TestCase
+{
+    private FakeBurrow burrow;
+
+    private Path dir;
+
+    private File propertyFile;
+
+    private Thread thread;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public BurrowCheckTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( BurrowCheckTest.class );
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        this.burrow = new FakeBurrow();
+        this.dir = Files.createTempDirectory( "burrowcheck" );
+        this.propertyFile = new File( this.dir.toFile(), "burrow.properties" );
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        if( this.thread != null )
+        {
+            this.thread.interrupt();
+            this.thread.join( 5000 );
+            assertFalse( "BurrowCheck did not stop on interrupt", this.thread.isAlive() );
+        }
+        this.burrow.stop();
+        delete( this.dir.toFile() );
+    }
+
+    private static void delete( File file )
+    {
+        File[] files = file.listFiles();
+        if( files != null )
+        {
+            for( File child : files )
+                delete( child );
+        }
+        file.delete();
+    }
+
+    /**
+     * 기본 설정에 extra(key=value 줄)를 붙여서 프로퍼티 파일을 쓴다.
+     */
+    private void writeProperties( String extra ) throws IOException
+    {
+        long modified = this.propertyFile.lastModified();
+        try( Writer writer = new OutputStreamWriter( new FileOutputStream( this.propertyFile ), StandardCharsets.UTF_8 ) )
+        {
+            writer.write( "burrow.ip=127.0.0.1\n" );
+            writer.write( "burrow.port.num=" + this.burrow.getPort() + "\n" );
+            writer.write( "burrow.call.url=" + FakeBurrow.CALL_URL + "\n" );
+            writer.write( "burrow.check.time=1\n" );
+            writer.write( "burrow.poll.timeout=1\n" );
+            writer.write( "burrow.connect.timeout=1\n" );
+            writer.write( "log.path=" + this.dir.toString().replace( '\\', '/' ) + "/\n" );
+            writer.write( extra );
+        }
+        // reload는 파일 수정 시간으로 확인하므로 확실히 바꾼다.
+        if( modified > 0 )
+            this.propertyFile.setLastModified( modified + 2000 );
+    }
+
+    private BurrowCheck start( String[] consumers, String cluster )
+    {
+        BurrowCheck burrowCheck = new BurrowCheck( this.propertyFile.getPath(), consumers, cluster );
+        this.thread = new Thread( burrowCheck, "BurrowCheckTest" );
+        this.thread.start();
+        return burrowCheck;
+    }
+
+    private static boolean waitFor( BooleanSupplier condition, long millis ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + millis;
+        while( !condition.getAsBoolean() )
+        {
+            if( System.currentTimeMillis() > deadline )
+                return false;
+            Thread.sleep( 20 );
+        }
+        return true;
+    }
+
+    /**
+     * 컨슈머들을 pollParallelism개까지 동시에 call한다.
+     */
+    public void testParallelPoll() throws Exception
+    {
+        this.burrow.setDelay( "A", 300 );
+        this.burrow.setDelay( "B", 300 );
+        this.burrow.setDelay( "C", 300 );
+        this.writeProperties( "burrow.poll.parallelism=2\nburrow.consumer.list=A;B;C\n" );
+        this.start( new String[0], null );
+
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "A" ) >= 2 && this.burrow.getLagCount( "B" ) >= 2
+                && this.burrow.getLagCount( "C" ) >= 2, 10000 ) );
+        assertEquals( 2, this.burrow.getMaxRunning() );
+    }
+
+    /**
+     * pool이 막혀서 시작도 못하고 취소된 컨슈머도 다음 주기에 다시 call한다.
+     */
+    public void testTimedOutSweep() throws Exception
+    {
+        this.writeProperties( "burrow.poll.parallelism=2\nburrow.consumer.list=A;B\n" );
+        BurrowCheck burrowCheck = this.start( new String[0], null );
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "A" ) >= 1 && this.burrow.getLagCount( "B" ) >= 1, 5000 ) );
+
+        // poll thread를 모두 막아서, 다음 주기의 call이 시작하기 전에 제한 시간이 지나게 한다.
+        CountDownLatch release = new CountDownLatch( 1 );
+        ExecutorService executor = burrowCheck.getPollExecutor();
+        for( int i = 0; i < 2; i++ )
+            executor.submit( () -> release.await( 10, TimeUnit.SECONDS ) );
+
+        File log = null;
+        for( File file : this.dir.toFile().listFiles() )
+        {
+            if( file.getName().startsWith( "BurrowCheck." ) && !file.getName().contains( "error" ) )
+                log = file;
+        }
+        final File burrowCheckLog = log;
+        assertNotNull( burrowCheckLog );
+        assertTrue( waitFor( () -> contains( burrowCheckLog, "callAPI not started before timeout" ), 8000 ) );
+
+        int a = this.burrow.getLagCount( "A" );
+        int b = this.burrow.getLagCount( "B" );
+        release.countDown();
+
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "A" ) > a && this.burrow.getLagCount( "B" ) > b, 5000 ) );
+    }
+
+    /**
+     * 프로퍼티 파일의 burrow.consumer.list가 바뀌면 실행 중에 컨슈머를 추가, 제거한다.
+     */
+    public void testReloadConsumers() throws Exception
+    {
+        this.writeProperties( "burrow.consumer.list=A;B\n" );
+        BurrowCheck burrowCheck = this.start( new String[0], null );
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "A" ) >= 1 && this.burrow.getLagCount( "B" ) >= 1, 5000 ) );
+
+        this.writeProperties( "burrow.consumer.list=B;C\n" );
+        assertTrue( waitFor( () -> burrowCheck.getConsumerByName( "C" ) != null && burrowCheck.getConsumerByName( "A" ) == null, 5000 ) );
+        assertNotNull( burrowCheck.getConsumerByName( "B" ) );
+
+        // 제거된 A는 더 이상 call하지 않고, 추가된 C는 call한다.
+        int a = this.burrow.getLagCount( "A" );
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "C" ) >= 2, 5000 ) );
+        assertEquals( a, this.burrow.getLagCount( "A" ) );
+    }
+
+    /**
+     * call 중에 제거된 컨슈머는 call이 끝난 뒤에 로거를 종료한다.<br>
+     * 같은 이름을 다시 추가하면 이전 로거의 로그 파일이 닫힐 때까지 기다린다.
+     */
+    public void testRemoveWhilePolling() throws Exception
+    {
+        this.writeProperties( "burrow.consumer.list=A\n" );
+        BurrowCheck burrowCheck = this.start( new String[0], null );
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "A" ) >= 1, 5000 ) );
+
+        // call 중인 상태를 만든다.
+        BurrowCheck.Consumer first = burrowCheck.getConsumerByName( "A" );
+        assertTrue( waitFor( first::startPoll, 5000 ) );
+        assertTrue( burrowCheck.removeConsumer( "A" ) );
+        assertFalse( first.isStopped() );
+
+        first.endPoll();
+        assertTrue( waitFor( first::isStopped, 5000 ) );
+        assertFalse( first.startPoll() );
+
+        // 다시 추가한 컨슈머를 call 중에 제거하고, 바로 같은 이름을 추가한다.
+        assertTrue( burrowCheck.addConsumer( "A" ) );
+        BurrowCheck.Consumer second = burrowCheck.getConsumerByName( "A" );
+        assertTrue( waitFor( second::startPoll, 5000 ) );
+        assertTrue( burrowCheck.removeConsumer( "A" ) );
+
+        Thread poll = new Thread( () -> {
+            try
+            {
+                Thread.sleep( 300 );
+            }
+            catch( InterruptedException e )
+            {
+                return;
+            }
+            second.endPoll();
+        } );
+        poll.start();
+
+        assertTrue( burrowCheck.addConsumer( "A" ) );
+        assertTrue( second.isStopped() );
+        poll.join();
+
+        int a = this.burrow.getLagCount( "A" );
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "A" ) > a, 5000 ) );
+    }
+
+    /**
+     * burrow 컨슈머 목록에서 include/exclude에 맞는 컨슈머를 등록하고, 목록에서 사라지면 제거한다.<br>
+     * 설정으로 등록한 컨슈머는 목록에 없어도 제거하지 않는다.
+     */
+    public void testDiscovery() throws Exception
+    {
+        this.burrow.setConsumers( "APP_1", "APP_2", "APP_X_TEST", "OTHER" );
+        this.writeProperties( "burrow.consumer.list=CONF\nburrow.discovery.enable=true\nburrow.discovery.interval=1\n"
+                + "burrow.discovery.include=APP_.*\nburrow.discovery.exclude=.*_TEST\n" );
+        BurrowCheck burrowCheck = this.start( new String[0], null );
+
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "APP_1" ) >= 1 && this.burrow.getLagCount( "APP_2" ) >= 1, 5000 ) );
+        assertNotNull( burrowCheck.getConsumerByName( "CONF" ) );
+        assertNull( burrowCheck.getConsumerByName( "APP_X_TEST" ) );
+        assertNull( burrowCheck.getConsumerByName( "OTHER" ) );
+
+        this.burrow.setConsumers( "APP_2" );
+        assertTrue( waitFor( () -> burrowCheck.getConsumerByName( "APP_1" ) == null, 5000 ) );
+        assertNotNull( burrowCheck.getConsumerByName( "APP_2" ) );
+        assertNotNull( burrowCheck.getConsumerByName( "CONF" ) );
+        assertEquals( 0, this.burrow.getLagCount( "OTHER" ) );
+    }
+
+    /**
+     * cluster.{name}.{key}가 같은 이름의 공통 설정보다 우선하고, 없는 값은 공통 설정을 사용한다.
+     */
+    public void testClusterOverride() throws Exception
+    {
+        // 공통 burrow.port.num은 열려있지 않은 port. dev만 fake burrow를 바라본다.
+        this.writeProperties( "burrow.port.num=1\nburrow.clusters=dev;prod\nburrow.consumer.list=COMMON\n"
+                + "cluster.dev.burrow.port.num=" + this.burrow.getPort() + "\ncluster.dev.burrow.consumer.list=DEVG\n" );
+
+        String[] clusters = BurrowCheck.getClusterNames( this.propertyFile.getPath() );
+        assertEquals( 2, clusters.length );
+        assertEquals( "dev", clusters[0] );
+        assertEquals( "prod", clusters[1] );
+
+        BurrowCheck prod = new BurrowCheck( this.propertyFile.getPath(), new String[0], "prod" );
+        assertEquals( "prod", prod.getClusterName() );
+        assertNotNull( prod.getConsumerByName( "COMMON" ) );
+        assertTrue( prod.getConsumerByName( "COMMON" ).getUrl(), prod.getConsumerByName( "COMMON" ).getUrl().startsWith( "http://127.0.0.1:1/" ) );
+
+        BurrowCheck dev = this.start( new String[0], "dev" );
+        assertNull( dev.getConsumerByName( "COMMON" ) );
+        assertTrue( waitFor( () -> this.burrow.getLagCount( "DEVG" ) >= 1, 5000 ) );
+        assertEquals( 0, this.burrow.getLagCount( "COMMON" ) );
+
+        // 로그 파일명에 클러스터명이 붙는다.
+        assertTrue( waitFor( () -> new File( this.dir.toFile(), "dev.DEVG." + new SimpleDateFormat( "yyyyMMdd" ).format( new Date() ) + ".log" ).exists(), 5000 ) );
+    }
+
+    private static boolean contains( File file, String text )
+    {
+        try
+        {
+            return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ).contains( text );
+        }
+        catch( IOException e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * 전체 알림 제한에 걸린 알림은 버리지 않고 다음 poll에서 다시 보낸다.
+     */
+    public void testAlertGlobalLimit() throws Exception
+    {
+        this.burrow.setStatus( "A", "WARN" );
+        this.burrow.setStatus( "B", "WARN" );
+        this.writeProperties( "burrow.consumer.list=A;B\n"
+                + "telegram.token=token\ntelegram.chat.id=1\n"
+                + "telegram.api.url=http://127.0.0.1:" + this.burrow.getPort() + "\n"
+                + "telegram.alert.global.limit=1\ntelegram.alert.global.refill=2\n" );
+        this.start( new String[0], null );
+
+        // 처음에는 1개만 보내고, token이 채워지면 나머지 컨슈머의 알림도 보낸다.
+        assertTrue( waitFor( () -> this.burrow.getTelegramTexts().size() >= 1, 10000 ) );
+        Thread.sleep( 500 );
+        assertEquals( 1, this.burrow.getTelegramTexts().size() );
+        assertTrue( waitFor( () -> this.burrow.getTelegramTexts().size() >= 2, 10000 ) );
+
+        String texts = this.burrow.getTelegramTexts().toString();
+        assertTrue( texts, texts.contains( "[A] [WARN] cluster : local, consumer : A, status : WARN" ) );
+        assertTrue( texts, texts.contains( "[B] [WARN] cluster : local, consumer : B, status : WARN" ) );
+        assertFalse( texts, texts.contains( "suppressed" ) );
+
+        // 정상이 되면 회복 알림도 제한에 걸려도 결국 보낸다.
+        this.burrow.setStatus( "A", "OK" );
+        this.burrow.setStatus( "B", "OK" );
+        assertTrue( waitFor( () -> this.burrow.getTelegramTexts().size() >= 4, 15000 ) );
+        texts = this.burrow.getTelegramTexts().toString();
+        assertTrue( texts, texts.contains( "[A] [RECOVER]" ) );
+        assertTrue( texts, texts.contains( "[B] [RECOVER]" ) );
+        Thread.sleep( 2500 );
+        assertEquals( texts, 4, this.burrow.getTelegramTexts().size() );
+    }
+}
@@ -0,0 +1,171 @@
+package com.yna.ecqmanager;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for BurrowClient.
+ */
+public class BurrowClientTest
+    extends TestCase
+{
+    private FakeBurrow burrow;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public BurrowClientTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( BurrowClientTest.class );
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        this.burrow = new FakeBurrow();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        this.burrow.stop();
+    }
+
+    private String lagUrl( String group )
+    {
+        return "http://127.0.0.1:" + this.burrow.getPort() + FakeBurrow.CALL_URL + group + "/lag";
+    }
+
+    /**
+     * 여러 thread가 동시에 요청해도 poolSize개까지만 동시에 보낸다.
+     */
+    public void testPoolSize() throws Exception
+    {
+        this.burrow.setDelay( "A", 200 );
+        BurrowClient client = new BurrowClient( 1000, 3000, 2 );
+        HttpRequest request = client.newRequest( this.lagUrl( "A" ) );
+        ExecutorService executor = Executors.newFixedThreadPool( 6 );
+
+        try
+        {
+            List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>();
+            for( int i = 0; i < 6; i++ )
+                futures.add( executor.submit( () -> client.send( request ) ) );
+
+            for( Future<byte[]> future : futures )
+                assertTrue( new String( future.get(), "UTF-8" ).contains( "\"group\":\"A\"" ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+            client.close();
+        }
+
+        assertEquals( 6, this.burrow.getLagCount( "A" ) );
+        assertEquals( 2, this.burrow.getMaxRunning() );
+    }
+
+    /**
+     * readTimeout 안에 응답이 오지 않으면 기다리지 않고 TimeoutException이 발생한다.<br>
+     * Java 11에서는 cancel해도 진행 중인 exchange가 바로 끝나지 않으므로, 기다리지 않는 것과 permit을 돌려주는 것만 확인한다.
+     */
+    public void testReadTimeout() throws Exception
+    {
+        this.burrow.setDelay( "SLOW", 2000 );
+        BurrowClient client = new BurrowClient( 1000, 300, 1 );
+
+        long start = System.currentTimeMillis();
+        try
+        {
+            client.send( client.newRequest( this.lagUrl( "SLOW" ) ) );
+            fail();
+        }
+        catch( TimeoutException e )
+        {
+            assertTrue( System.currentTimeMillis() - start < 1500 );
+        }
+
+        // timeout된 요청이 permit을 계속 잡고 있지 않는다. poolSize가 1이어도 다음 요청을 보낼 수 있다.
+        assertNotNull( client.send( client.newRequest( this.lagUrl( "FAST" ) ) ) );
+        client.close();
+    }
+
+    /**
+     * 응답을 기다리는 중에 interrupt되면 InterruptedException이 발생하고 permit을 돌려준다.
+     */
+    public void testInterrupt() throws Exception
+    {
+        this.burrow.setDelay( "SLOW", 2000 );
+        BurrowClient client = new BurrowClient( 1000, 5000, 1 );
+        Thread caller = Thread.currentThread();
+        Thread interrupter = new Thread( () -> {
+            try
+            {
+                Thread.sleep( 300 );
+                caller.interrupt();
+            }
+            catch( InterruptedException e )
+            {
+                // 끝낸다.
+            }
+        } );
+
+        long start = System.currentTimeMillis();
+        interrupter.start();
+        try
+        {
+            client.send( client.newRequest( this.lagUrl( "SLOW" ) ) );
+            fail();
+        }
+        catch( InterruptedException e )
+        {
+            assertTrue( System.currentTimeMillis() - start < 1500 );
+        }
+        interrupter.join();
+        assertFalse( Thread.interrupted() );
+
+        assertNotNull( client.send( client.newRequest( this.lagUrl( "FAST" ) ) ) );
+        client.close();
+    }
+
+    /**
+     * 요청이 실패하면 ExecutionException이 아닌 원래 예외가 발생한다.
+     */
+    public void testConnectFail() throws Exception
+    {
+        BurrowClient client = new BurrowClient( 1000, 1000, 1 );
+        try
+        {
+            client.send( client.newRequest( "http://127.0.0.1:1" + FakeBurrow.CALL_URL + "A/lag" ) );
+            fail();
+        }
+        catch( IOException e )
+        {
+            // ConnectException
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.yna.ecqmanager;
+
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for BurrowLagParser.
+ */
+public class BurrowLagParserTest
+    extends TestCase
+{
+    private static final String RESPONSE = "{\"error\":false,\"message\":\"consumer status returned\","
+            + "\"status\":{\"cluster\":\"local\",\"group\":\"ECR\",\"status\":\"WARN\",\"complete\":1.0,\"maxlag\":null,"
+            + "\"partitions\":[{\"topic\":\"news\",\"partition\":0,\"owner\":\"\",\"status\":\"OK\","
+            + "\"start\":{\"offset\":1,\"timestamp\":2,\"lag\":0},\"end\":{\"offset\":3,\"timestamp\":4,\"lag\":5},\"current_lag\":12,\"complete\":1},"
+            + "{\"topic\":\"news\",\"partition\":1,\"current_lag\":0},"
+            + "{\"topic\":\"\\ub274\\uc2a4-\\\"q\\\"\",\"partition\":200,\"current_lag\":9876543210}],"
+            + "\"partition_count\":3,\"totallag\":9876543222},"
+            + "\"request\":{\"url\":\"/v3/kafka/local/consumer/ECR/lag\",\"host\":\"burrow\"}}";
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public BurrowLagParserTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( BurrowLagParserTest.class );
+    }
+
+    public void testParse() throws Exception
+    {
+        LagResponse response = new LagResponse();
+        new BurrowLagParser().parse( RESPONSE.getBytes( StandardCharsets.UTF_8 ), response );
+
+        assertFalse( response.isError() );
+        assertEquals( "consumer status returned", response.getMessage() );
+        assertEquals( "WARN", response.getStatus() );
+        assertEquals( "local", response.getCluster() );
+        assertEquals( "ECR", response.getGroup() );
+        assertEquals( 9876543222L, response.getTotalLag() );
+        assertEquals( 3, response.getPartitionCount() );
+        assertEquals( "news", response.getTopic( 0 ) );
+        assertEquals( 0L, response.getPartition( 0 ) );
+        assertEquals( 12L, response.getLag( 0 ) );
+        assertEquals( "OK", response.getPartitionStatus( 0 ) );
+        assertNull( response.getPartitionStatus( 1 ) );
+        assertSame( response.getTopic( 0 ), response.getTopic( 1 ) );
+        assertEquals( "뉴스-\"q\"", response.getTopic( 2 ) );
+        assertEquals( 200L, response.getPartition( 2 ) );
+        assertEquals( 9876543210L, response.getLag( 2 ) );
+    }
+
+    public void testReuseStrings() throws Exception
+    {
+        BurrowLagParser parser = new BurrowLagParser();
+        LagResponse response = new LagResponse();
+        byte[] body = RESPONSE.getBytes( StandardCharsets.UTF_8 );
+
+        parser.parse( body, response );
+        String topic = response.getTopic( 2 );
+        String status = response.getStatus();
+
+        parser.parse( body, response );
+        assertSame( topic, response.getTopic( 2 ) );
+        assertSame( status, response.getStatus() );
+    }
+
+    public void testUtf8Topic() throws Exception
+    {
+        String json = "{\"error\":false,\"status\":{\"status\":\"OK\",\"partitions\":[{\"topic\":\"뉴스\",\"partition\":1,\"current_lag\":-9}]}}";
+        LagResponse response = new LagResponse();
+        new BurrowLagParser().parse( json.getBytes( StandardCharsets.UTF_8 ), response );
+
+        assertEquals( "뉴스", response.getTopic( 0 ) );
+        assertEquals( -9L, response.getLag( 0 ) );
+    }
+
+    public void testBurrowError() throws Exception
+    {
+        String json = "{\"error\":true,\"message\":\"cluster or consumer not found\",\"request\":{\"url\":\"x\"}}";
+        LagResponse response = new LagResponse();
+        new BurrowLagParser().parse( json.getBytes( StandardCharsets.UTF_8 ), response );
+
+        assertTrue( response.isError() );
+        assertEquals( "cluster or consumer not found", response.getMessage() );
+        assertNull( response.getStatus() );
+        assertEquals( 0, response.getPartitionCount() );
+    }
+
+    public void testInvalidJson()
+    {
+        try
+        {
+            new BurrowLagParser().parse( "{\"error\":false,\"status\":{".getBytes( StandardCharsets.UTF_8 ), new LagResponse() );
+            fail();
+        }
+        catch( org.json.simple.parser.ParseException e )
+        {
+            // expected
+        }
+    }
+}
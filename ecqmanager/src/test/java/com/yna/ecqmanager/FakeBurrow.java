@@ -0,0 +1,188 @@
+package com.yna.ecqmanager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 테스트용 burrow 서버.<br>
+ * /v3/kafka/local/consumer 로 컨슈머 목록을, /v3/kafka/local/consumer/{group}/lag 로 lag을 응답한다.<br>
+ * /bot{token}/sendMessage 로 받은 텔레그램 메세지는 getTelegramTexts()로 확인한다.
+ */
+public class FakeBurrow
+{
+    public static final String CALL_URL = "/v3/kafka/local/consumer/";
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private final List<String> consumers = new CopyOnWriteArrayList<String>();
+
+    private final Map<String, AtomicInteger> lagCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private final Map<String, Long> delays = new ConcurrentHashMap<String, Long>();
+
+    private final Map<String, String> statuses = new ConcurrentHashMap<String, String>();
+
+    private final List<String> telegramTexts = new CopyOnWriteArrayList<String>();
+
+    private final AtomicInteger listCount = new AtomicInteger();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    public FakeBurrow() throws IOException
+    {
+        this.executor = Executors.newCachedThreadPool( r -> {
+            Thread thread = new Thread( r, "fake-burrow" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        this.server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        this.server.setExecutor( this.executor );
+        this.server.createContext( "/", this::handle );
+        this.server.start();
+    }
+
+    public int getPort()
+    {
+        return this.server.getAddress().getPort();
+    }
+
+    public void setConsumers( String... names )
+    {
+        this.consumers.clear();
+        for( String name : names )
+            this.consumers.add( name );
+    }
+
+    /**
+     * group의 lag 응답을 millis만큼 늦춘다.
+     */
+    public void setDelay( String group, long millis )
+    {
+        this.delays.put( group, millis );
+    }
+
+    /**
+     * group의 lag 응답 status를 바꾼다. 기본값 : OK
+     */
+    public void setStatus( String group, String status )
+    {
+        this.statuses.put( group, status );
+    }
+
+    public List<String> getTelegramTexts()
+    {
+        return this.telegramTexts;
+    }
+
+    public int getLagCount( String group )
+    {
+        AtomicInteger count = this.lagCounts.get( group );
+        return count == null ? 0 : count.get();
+    }
+
+    public int getListCount()
+    {
+        return this.listCount.get();
+    }
+
+    /**
+     * 동시에 처리한 lag 요청 수의 최대값
+     */
+    public int getMaxRunning()
+    {
+        return this.maxRunning.get();
+    }
+
+    public void stop()
+    {
+        this.server.stop( 0 );
+        this.executor.shutdownNow();
+    }
+
+    private void handle( HttpExchange exchange ) throws IOException
+    {
+        String path = exchange.getRequestURI().getPath();
+        String body;
+
+        if( path.startsWith( "/bot" ) )
+        {
+            try( InputStream in = exchange.getRequestBody() )
+            {
+                JSONObject json = (JSONObject) new JSONParser().parse( new String( in.readAllBytes(), StandardCharsets.UTF_8 ) );
+                this.telegramTexts.add( (String) json.get( "text" ) );
+            }
+            catch( ParseException e )
+            {
+                throw new IOException( e );
+            }
+            body = "{\"ok\":true}";
+        }
+        else if( path.endsWith( "/lag" ) )
+        {
+            String[] parts = path.split( "/" );
+            String group = parts[parts.length - 2];
+            this.lagCounts.computeIfAbsent( group, k -> new AtomicInteger() ).incrementAndGet();
+
+            int now = this.running.incrementAndGet();
+            this.maxRunning.accumulateAndGet( now, Math::max );
+            try
+            {
+                Long delay = this.delays.get( group );
+                if( delay != null )
+                    Thread.sleep( delay );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                this.running.decrementAndGet();
+            }
+
+            body = "{\"error\":false,\"message\":\"consumer status returned\",\"status\":{\"cluster\":\"local\",\"group\":\"" + group
+                    + "\",\"status\":\"" + this.statuses.getOrDefault( group, "OK" ) + "\",\"complete\":1.0,\"partitions\":[{\"topic\":\"topic\",\"partition\":0,\"status\":\"OK\","
+                    + "\"current_lag\":1,\"complete\":1.0}],\"partition_count\":1,\"maxlag\":null,\"totallag\":1},"
+                    + "\"request\":{\"url\":\"" + path + "\",\"host\":\"test\"}}";
+        }
+        else
+        {
+            this.listCount.incrementAndGet();
+            StringBuilder list = new StringBuilder();
+            for( String name : this.consumers )
+                list.append( list.length() > 0 ? "," : "" ).append( '"' ).append( name ).append( '"' );
+
+            body = "{\"error\":false,\"message\":\"consumer list returned\",\"consumers\":[" + list
+                    + "],\"request\":{\"url\":\"" + path + "\",\"host\":\"test\"}}";
+        }
+
+        byte[] response = body.getBytes( StandardCharsets.UTF_8 );
+        exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+        exchange.sendResponseHeaders( 200, response.length );
+        try( OutputStream out = exchange.getResponseBody() )
+        {
+            out.write( response );
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.yna.ecqmanager;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for LagSeries.
+ */
+public class LagSeriesTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public LagSeriesTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( LagSeriesTest.class );
+    }
+
+    public void testLast()
+    {
+        LagSeries series = new LagSeries( 3 );
+        long[] times = new long[5];
+        long[] lags = new long[5];
+
+        assertEquals( 0, series.last( 5, times, lags ) );
+        assertEquals( -1L, series.getLastLag() );
+
+        for( int i = 1; i <= 5; i++ )
+            series.add( i * 1000L, i * 10L );
+
+        assertEquals( 3, series.size() );
+        assertEquals( 3, series.last( 5, times, lags ) );
+        assertEquals( 3000L, times[0] );
+        assertEquals( 50L, lags[2] );
+
+        assertEquals( 2, series.last( 2, null, lags ) );
+        assertEquals( 40L, lags[0] );
+        assertEquals( 50L, lags[1] );
+        assertEquals( 50L, series.getLastLag() );
+        assertEquals( 5000L, series.getLastTime() );
+    }
+
+    public void testWindow()
+    {
+        LagSeries series = new LagSeries( 4 );
+        long[] times = new long[4];
+        long[] lags = new long[4];
+
+        for( int i = 1; i <= 6; i++ )
+            series.add( i * 1000L, i );
+
+        assertEquals( 2, series.window( 3500L, 5000L, times, lags ) );
+        assertEquals( 4000L, times[0] );
+        assertEquals( 5L, lags[1] );
+
+        assertEquals( 0, series.window( 7000L, 8000L, times, lags ) );
+
+        long[] small = new long[2];
+        assertEquals( 2, series.window( 0L, 10000L, small, null ) );
+        assertEquals( 5000L, small[0] );
+        assertEquals( 6000L, small[1] );
+    }
+}
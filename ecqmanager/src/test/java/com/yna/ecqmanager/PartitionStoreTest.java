@@ -0,0 +1,124 @@
+package com.yna.ecqmanager;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for PartitionStore.
+ */
+public class PartitionStoreTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public PartitionStoreTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( PartitionStoreTest.class );
+    }
+
+    public void testUpdate()
+    {
+        PartitionStore store = new PartitionStore();
+
+        store.beginSample();
+        store.update( "a", 0, 10 );
+        store.update( "a", 200, 20 );
+        store.update( "b", 1, 30 );
+        store.endSample();
+
+        assertEquals( 3, store.size() );
+        assertTrue( store.isChanged() );
+        assertEquals( 20L, store.get( "a", 200 ).getLag() );
+        assertNull( store.get( "a", 1 ) );
+
+        store.beginSample();
+        store.update( "a", 0, 11 );
+        store.update( "a", 200, 21 );
+        store.update( "b", 1, 31 );
+        store.endSample();
+
+        assertFalse( store.isChanged() );
+        assertEquals( 11L, store.get( "a", 0 ).getLag() );
+    }
+
+    public void testAddAndRemove()
+    {
+        PartitionStore store = new PartitionStore();
+
+        store.beginSample();
+        store.update( "a", 0, 1 );
+        store.update( "a", 1, 1 );
+        store.update( "b", 0, 1 );
+        store.endSample();
+
+        store.beginSample();
+        store.update( "a", 1, 2 );
+        store.update( "c", 0, 2 );
+        store.endSample();
+
+        assertTrue( store.isChanged() );
+        assertEquals( 2, store.size() );
+        assertNull( store.get( "a", 0 ) );
+        assertNull( store.get( "b", 0 ) );
+
+        StringBuilder sb = new StringBuilder();
+        for( PartitionInfo partitionInfo : store )
+            partitionInfo.appendInfo( sb ).append( ';' );
+        assertEquals( "[a-1] lag : 2;[c-0] lag : 2;", sb.toString() );
+    }
+
+    public void testIgnoreInvalid()
+    {
+        PartitionStore store = new PartitionStore();
+
+        store.beginSample();
+        assertNull( store.update( null, 0, 1 ) );
+        assertNull( store.update( "a", -9, 1 ) );
+        assertNull( store.update( "a", PartitionStore.MAX_PARTITION + 1, 1 ) );
+        assertNull( store.update( "a", Integer.MAX_VALUE - 1, 1 ) );
+        store.endSample();
+
+        assertEquals( 0, store.size() );
+        assertFalse( store.iterator().hasNext() );
+
+        store.beginSample();
+        assertNotNull( store.update( "a", PartitionStore.MAX_PARTITION, 1 ) );
+        store.endSample();
+        assertEquals( 1L, store.get( "a", PartitionStore.MAX_PARTITION ).getLag() );
+    }
+
+    public void testChangedSinceLogged()
+    {
+        PartitionStore store = new PartitionStore();
+
+        store.beginSample();
+        PartitionInfo partitionInfo = store.update( "a", 0, 100, "OK" );
+        store.endSample();
+        assertTrue( partitionInfo.isChangedSinceLogged( 10 ) );
+        partitionInfo.markLogged();
+
+        store.beginSample();
+        store.update( "a", 0, 105, "OK" );
+        store.endSample();
+        assertFalse( partitionInfo.isChangedSinceLogged( 10 ) );
+        assertTrue( partitionInfo.isChangedSinceLogged( 0 ) );
+
+        store.beginSample();
+        store.update( "a", 0, 100, "STOP" );
+        store.endSample();
+        assertTrue( partitionInfo.isChangedSinceLogged( 10 ) );
+        assertEquals( "[a-0] lag : 100 (STOP)", partitionInfo.getInfo() );
+    }
+}
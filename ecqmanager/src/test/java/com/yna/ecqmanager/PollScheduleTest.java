@@ -0,0 +1,85 @@
+package com.yna.ecqmanager;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for PollSchedule.
+ */
+public class PollScheduleTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public PollScheduleTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( PollScheduleTest.class );
+    }
+
+    /**
+     * OK가 아니면 최소 간격, OK가 오래 계속되면 최대 간격까지 2배씩 늘린다.
+     */
+    public void testInterval()
+    {
+        PollSchedule schedule = new PollSchedule( 5, 30, 240, 100 );
+        assertTrue( schedule.isDue( 0 ) );
+
+        schedule.markPolled( 0 );
+        assertFalse( schedule.isDue( 29 ) );
+        assertTrue( schedule.isDue( 30 ) );
+
+        assertEquals( 5, schedule.update( "WARN", false, 30 ) );
+        assertEquals( 35, schedule.getNextPollMillis() );
+        assertEquals( 5, schedule.update( "ERR", false, 35 ) );
+
+        // OK가 되면 기본 간격으로 돌아가고, relaxAfter가 지나면 늘린다.
+        assertEquals( 30, schedule.update( "OK", false, 40 ) );
+        assertEquals( 30, schedule.update( "OK", false, 70 ) );
+        assertEquals( 60, schedule.update( "OK", false, 140 ) );
+        assertEquals( 120, schedule.update( "OK", false, 200 ) );
+        assertEquals( 240, schedule.update( "OK", false, 320 ) );
+        assertEquals( 240, schedule.update( "OK", false, 560 ) );
+
+        // lag이 빠르게 늘면 OK여도 최소 간격
+        assertEquals( 5, schedule.update( "OK", true, 800 ) );
+        assertEquals( 30, schedule.update( "OK", false, 805 ) );
+        assertEquals( 30, schedule.update( "OK", false, 835 ) );
+    }
+
+    /**
+     * 최근 sample의 lag이 계속 늘고, 초당 증가량이 기준 이상이면 true
+     */
+    public void testLagGrowing()
+    {
+        long[] times = new long[3];
+        long[] lags = new long[3];
+        LagSeries series = new LagSeries( 10 );
+
+        series.add( 0, 100 );
+        assertFalse( PollSchedule.isLagGrowing( series, 3, 10, times, lags ) );
+
+        series.add( 1000, 200 );
+        series.add( 2000, 300 );
+        assertTrue( PollSchedule.isLagGrowing( series, 3, 100, times, lags ) );
+        assertFalse( PollSchedule.isLagGrowing( series, 3, 101, times, lags ) );
+
+        // 중간에 줄었으면 false
+        series.add( 3000, 250 );
+        series.add( 4000, 5000 );
+        assertFalse( PollSchedule.isLagGrowing( series, 3, 1, times, lags ) );
+
+        assertFalse( PollSchedule.isLagGrowing( null, 3, 1, times, lags ) );
+    }
+}
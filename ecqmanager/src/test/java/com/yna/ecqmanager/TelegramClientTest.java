@@ -0,0 +1,148 @@
+package com.yna.ecqmanager;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for TelegramClient.
+ */
+public class TelegramClientTest
+    extends TestCase
+{
+    private HttpServer server;
+
+    private final List<String> paths = new CopyOnWriteArrayList<String>();
+
+    private final List<JSONObject> bodies = new CopyOnWriteArrayList<JSONObject>();
+
+    /** 모든 요청이 이 latch를 기다리므로, 동시에 보내지 않으면 timeout이 난다. */
+    private CountDownLatch arrived = new CountDownLatch( 0 );
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public TelegramClientTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( TelegramClientTest.class );
+    }
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        this.server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        this.server.setExecutor( Executors.newFixedThreadPool( 4 ) );
+        this.server.createContext( "/", exchange -> {
+            try( InputStream in = exchange.getRequestBody() )
+            {
+                String body = new String( in.readAllBytes(), StandardCharsets.UTF_8 );
+                this.paths.add( exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() );
+                this.bodies.add( (JSONObject) new JSONParser().parse( body ) );
+
+                this.arrived.countDown();
+                this.arrived.await( 5, TimeUnit.SECONDS );
+            }
+            catch( Exception e )
+            {
+                e.printStackTrace();
+            }
+
+            boolean isBad = exchange.getRequestURI().getPath().contains( "bad" );
+            byte[] response = ( isBad ? "{\"ok\":false,\"description\":\"Unauthorized\"}" : "{\"ok\":true}" ).getBytes( StandardCharsets.UTF_8 );
+            exchange.sendResponseHeaders( isBad ? 401 : 200, response.length );
+            try( OutputStream out = exchange.getResponseBody() )
+            {
+                out.write( response );
+            }
+        } );
+        this.server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        this.server.stop( 0 );
+    }
+
+    private TelegramClient newClient()
+    {
+        return new TelegramClient( "http://127.0.0.1:" + this.server.getAddress().getPort() + "/", 1000, 3000 );
+    }
+
+    /**
+     * 줄바꿈, 따옴표, 한글이 들어간 긴 메세지도 JSON body로 그대로 보낸다.
+     */
+    public void testSend() throws Exception
+    {
+        StringBuilder text = new StringBuilder( "[group] [WARN] \"lag\" & #1\n" );
+        for( int i = 0; i < 300; i++ )
+            text.append( "[topic-" ).append( i ).append( "] 지연 : " ).append( i ).append( '\n' );
+
+        this.newClient().send( "123:abc", "-100", text.toString() );
+
+        assertEquals( "POST /bot123:abc/sendMessage", this.paths.get( 0 ) );
+        assertEquals( "-100", this.bodies.get( 0 ).get( "chat_id" ) );
+        assertEquals( text.toString(), this.bodies.get( 0 ).get( "text" ) );
+    }
+
+    /**
+     * 2xx가 아닌 응답이면 응답 body를 담은 예외가 발생한다.
+     */
+    public void testErrorResponse()
+    {
+        try
+        {
+            this.newClient().send( "bad", "1", "text" );
+            fail();
+        }
+        catch( Exception e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( "401" ) );
+            assertTrue( e.getMessage(), e.getMessage().contains( "Unauthorized" ) );
+        }
+    }
+
+    /**
+     * TelegramDispatcher의 worker들이 하나의 client로 여러 chat id에 동시에 보낸다.
+     */
+    public void testDispatcherWorkers() throws Exception
+    {
+        this.arrived = new CountDownLatch( 3 );
+        TelegramDispatcher dispatcher = new TelegramDispatcher( this.newClient(), 10, 3, 0, 10 );
+
+        for( String chatId : new String[] { "1", "2", "3" } )
+            assertTrue( dispatcher.send( "token", chatId, "text", TelegramDispatcher.PRIORITY_WARN ) );
+        for( int i = 0; i < 500 && dispatcher.getSentCount() < 3; i++ )
+            Thread.sleep( 10 );
+        dispatcher.shutdown();
+
+        assertEquals( 3, dispatcher.getSentCount() );
+        assertEquals( 0, this.arrived.getCount() );
+        assertEquals( 3, this.bodies.size() );
+    }
+}
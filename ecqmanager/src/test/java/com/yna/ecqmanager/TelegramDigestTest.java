@@ -0,0 +1,89 @@
+package com.yna.ecqmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for TelegramDigest.
+ */
+public class TelegramDigestTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public TelegramDigestTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( TelegramDigestTest.class );
+    }
+
+    /**
+     * 줄 단위로 나누고, maxLength보다 긴 줄은 잘라서 나눈다.
+     */
+    public void testSplit()
+    {
+        List<String> parts = TelegramDigest.split( Arrays.asList( "aaa", "bbb", "ccc" ), 7 );
+        assertEquals( Arrays.asList( "aaa\nbbb", "ccc" ), parts );
+
+        parts = TelegramDigest.split( Arrays.asList( "a", "bbbbbbbbbb" ), 4 );
+        assertEquals( Arrays.asList( "a", "bbbb", "bbbb", "bb" ), parts );
+
+        List<String> lines = new ArrayList<String>();
+        for( int i = 0; i < 1000; i++ )
+            lines.add( "[group-" + i + "] [WARN] status : WARN, totalLag : " + i );
+
+        StringBuilder joined = new StringBuilder();
+        for( String part : TelegramDigest.split( lines, 4000 ) )
+        {
+            assertTrue( part.length() <= 4000 );
+            joined.append( joined.length() > 0 ? "\n" : "" ).append( part );
+        }
+        assertEquals( String.join( "\n", lines ), joined.toString() );
+    }
+
+    /**
+     * chat id별로 1개의 메세지로 합쳐서 보낸다.
+     */
+    public void testFlush() throws Exception
+    {
+        final List<String> sent = new CopyOnWriteArrayList<String>();
+        TelegramDispatcher dispatcher = new TelegramDispatcher( ( token, chatId, text ) -> sent.add( chatId + ":" + text ), 100, 1, 0, 10 );
+        TelegramDigest digest = new TelegramDigest( dispatcher, 60000, TelegramDigest.MAX_MESSAGE_LENGTH );
+
+        for( int i = 0; i < 30; i++ )
+        {
+            digest.add( "token", "1", "group-" + i, TelegramDispatcher.PRIORITY_WARN );
+            digest.add( "token", "2", "group-" + i, TelegramDispatcher.PRIORITY_WARN );
+        }
+        assertEquals( 2, digest.flush() );
+        assertEquals( 0, digest.flush() );
+
+        digest.shutdown();
+        dispatcher.shutdown();
+        for( int i = 0; i < 500 && sent.size() < 2; i++ )
+            Thread.sleep( 10 );
+
+        assertEquals( 2, sent.size() );
+        for( String text : sent )
+        {
+            assertTrue( text, text.contains( "[DIGEST] 30 alerts\n" ) );
+            assertTrue( text, text.endsWith( "group-29" ) );
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.yna.ecqmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.yna.ecqmanager.log.KLogger;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for TelegramDispatcher.
+ */
+public class TelegramDispatcherTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public TelegramDispatcherTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( TelegramDispatcherTest.class );
+    }
+
+    private static void waitFor( TelegramDispatcher dispatcher, long count ) throws Exception
+    {
+        for( int i = 0; i < 500 && dispatcher.getSentCount() + dispatcher.getDroppedCount() < count; i++ )
+            Thread.sleep( 10 );
+    }
+
+    public void testPriorityAndCapacity() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch( 1 );
+        final List<String> sent = new CopyOnWriteArrayList<String>();
+        TelegramDispatcher dispatcher = new TelegramDispatcher( ( token, chatId, text ) -> {
+            latch.await();
+            sent.add( text );
+        }, 3, 1, 0, 10 );
+
+        // worker가 첫 메세지를 보내는 동안 queue에 쌓는다.
+        assertTrue( dispatcher.send( "t", "c", "first", TelegramDispatcher.PRIORITY_WARN ) );
+        for( int i = 0; i < 100 && dispatcher.getQueueSize() > 0; i++ )
+            Thread.sleep( 10 );
+
+        assertTrue( dispatcher.send( "t", "c", "warn1", TelegramDispatcher.PRIORITY_WARN ) );
+        assertTrue( dispatcher.send( "t", "c", "warn2", TelegramDispatcher.PRIORITY_WARN ) );
+        assertTrue( dispatcher.send( "t", "c", "warn3", TelegramDispatcher.PRIORITY_WARN ) );
+        assertFalse( dispatcher.send( "t", "c", "warn4", TelegramDispatcher.PRIORITY_WARN ) );
+        assertTrue( dispatcher.send( "t", "c", "error", TelegramDispatcher.PRIORITY_ERROR ) );
+        assertEquals( 2, dispatcher.getDroppedCount() );
+
+        latch.countDown();
+        waitFor( dispatcher, 6 );
+        dispatcher.shutdown();
+
+        assertEquals( "[first, error, warn2, warn3]", sent.toString() );
+    }
+
+    public void testRetry() throws Exception
+    {
+        final AtomicInteger attempts = new AtomicInteger();
+        TelegramDispatcher dispatcher = new TelegramDispatcher( ( token, chatId, text ) -> {
+            if( attempts.incrementAndGet() < 3 )
+                throw new IOException( "fail" );
+        }, 10, 2, 3, 10 );
+
+        dispatcher.send( "t", "c", "retry", TelegramDispatcher.PRIORITY_ERROR );
+        waitFor( dispatcher, 1 );
+
+        assertEquals( 3, attempts.get() );
+        assertEquals( 1, dispatcher.getSentCount() );
+        assertEquals( 0, dispatcher.getDroppedCount() );
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 재시도까지 모두 실패하면 로거에 ERROR로 남긴다.
+     */
+    public void testRetryFail() throws Exception
+    {
+        Path dir = Files.createTempDirectory( "telegram" );
+        final List<String> lines = new CopyOnWriteArrayList<String>();
+        KLogger logger = new KLogger( "telegram", dir.toString(), KLogger.INFO );
+        logger.addSink( line -> lines.add( line ) );
+        Thread thread = new Thread( logger );
+        thread.start();
+
+        TelegramDispatcher dispatcher = new TelegramDispatcher( ( token, chatId, text ) -> {
+            throw new IOException( "fail" );
+        }, 10, 1, 1, 10 );
+        dispatcher.setLogger( logger );
+
+        dispatcher.send( "t", "c", "fail", TelegramDispatcher.PRIORITY_ERROR );
+        waitFor( dispatcher, 1 );
+        dispatcher.shutdown();
+        logger.terminate();
+        thread.join( 5000 );
+
+        assertEquals( 1, dispatcher.getDroppedCount() );
+        assertEquals( 1, lines.size() );
+        assertTrue( lines.get( 0 ), lines.get( 0 ).contains( "[ERROR] telegram send fail. chatId : c attempt : 2" ) );
+        assertTrue( lines.get( 0 ), lines.get( 0 ).contains( "fail" ) );
+
+        for( File file : dir.toFile().listFiles() )
+            file.delete();
+        dir.toFile().delete();
+    }
+}
@@ -0,0 +1,175 @@
+package com.yna.ecqmanager.history;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for LagHistoryWriter and LagHistoryReader.
+ */
+public class LagHistoryTest
+    extends TestCase
+{
+    private Path dir;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public LagHistoryTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( LagHistoryTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        this.dir = Files.createTempDirectory( "lag-history" );
+    }
+
+    protected void tearDown() throws Exception
+    {
+        for( File file : this.dir.toFile().listFiles() )
+            file.delete();
+        this.dir.toFile().delete();
+    }
+
+    private static void writeSample( LagHistoryWriter writer, long time, long base ) throws Exception
+    {
+        writer.beginSample( time, base % 2 == 0 ? "OK" : "WARN", base * 100 );
+        for( int i = 0; i < 50; i++ )
+            writer.addPartition( i % 2 == 0 ? "topic-a" : "topic-b", i, base + i );
+        writer.endSample();
+    }
+
+    private static int readAll( Path file, long time ) throws Exception
+    {
+        int samples = 0;
+        try( LagHistoryReader reader = new LagHistoryReader( file ) )
+        {
+            while( reader.next() )
+            {
+                assertEquals( time + samples * 1000L, reader.getTime() );
+                assertEquals( samples % 2 == 0 ? "OK" : "WARN", reader.getStatus() );
+                assertEquals( samples * 100L, reader.getTotalLag() );
+                assertEquals( 50, reader.getPartitionCount() );
+                assertEquals( "topic-b", reader.getTopic( 7 ) );
+                assertEquals( 7L, reader.getPartition( 7 ) );
+                assertEquals( samples + 7L, reader.getLag( 7 ) );
+                samples++;
+            }
+        }
+        return samples;
+    }
+
+    public void testRoundTrip() throws Exception
+    {
+        long time = 1700000000000L;
+        Path file;
+
+        // 작은 segment로 remap도 확인한다.
+        try( LagHistoryWriter writer = new LagHistoryWriter( this.dir.toString(), "test", 256 ) )
+        {
+            for( int i = 0; i < 100; i++ )
+                writeSample( writer, time + i * 1000L, i );
+            file = writer.getFile();
+        }
+
+        assertEquals( 100, readAll( file, time ) );
+        // partition 50개 * 100 sample, partition당 평균 4 byte 이하
+        assertTrue( Files.size( file ) < 50 * 100 * 4 );
+    }
+
+    /**
+     * endSample()로 기록하지 못한 sample의 lag은 다음 sample의 차이 계산에 쓰지 않는다.
+     */
+    public void testAbandonedSample() throws Exception
+    {
+        long time = 1700000000000L;
+        Path file;
+
+        try( LagHistoryWriter writer = new LagHistoryWriter( this.dir.toString(), "test" ) )
+        {
+            writeSample( writer, time, 0 );
+
+            // endSample() 없이 다음 sample을 시작한다.
+            writer.beginSample( time + 500, "OK", 999 );
+            for( int i = 0; i < 50; i++ )
+                writer.addPartition( i % 2 == 0 ? "topic-a" : "topic-b", i, 12345 + i );
+
+            writeSample( writer, time + 1000, 1 );
+            file = writer.getFile();
+        }
+
+        assertEquals( 2, readAll( file, time ) );
+    }
+
+    /**
+     * 범위를 벗어난 partition 번호는 기록하지 않는다.
+     */
+    public void testInvalidPartition() throws Exception
+    {
+        long time = 1700000000000L;
+        Path file;
+
+        try( LagHistoryWriter writer = new LagHistoryWriter( this.dir.toString(), "test" ) )
+        {
+            writer.beginSample( time, "OK", 0 );
+            writer.addPartition( "topic-a", Integer.MAX_VALUE - 1, 1 );
+            writer.addPartition( "topic-a", LagHistoryFormat.MAX_PARTITION + 1, 1 );
+            writer.addPartition( "topic-a", LagHistoryFormat.MAX_PARTITION, 7 );
+            writer.endSample();
+            file = writer.getFile();
+        }
+
+        try( LagHistoryReader reader = new LagHistoryReader( file ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( 1, reader.getPartitionCount() );
+            assertEquals( (long) LagHistoryFormat.MAX_PARTITION, reader.getPartition( 0 ) );
+            assertEquals( 7L, reader.getLag( 0 ) );
+        }
+    }
+
+    public void testRecover() throws Exception
+    {
+        long time = 1700000000000L;
+        Path file;
+
+        try( LagHistoryWriter writer = new LagHistoryWriter( this.dir.toString(), "test" ) )
+        {
+            for( int i = 0; i < 10; i++ )
+                writeSample( writer, time + i * 1000L, i );
+            file = writer.getFile();
+        }
+
+        // 비정상 종료로 마지막 record가 잘린 경우
+        try( FileChannel channel = FileChannel.open( file, StandardOpenOption.WRITE ) )
+        {
+            channel.truncate( channel.size() - 3 );
+        }
+        assertEquals( 9, readAll( file, time ) );
+
+        // 이어서 기록하면 사전과 직전 값이 복구되어 있어야 한다.
+        try( LagHistoryWriter writer = new LagHistoryWriter( this.dir.toString(), "test" ) )
+        {
+            for( int i = 9; i < 20; i++ )
+                writeSample( writer, time + i * 1000L, i );
+        }
+        assertEquals( 20, readAll( file, time ) );
+    }
+}
@@ -0,0 +1,121 @@
+package com.yna.ecqmanager.log;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * FlushPolicy별 KLogger 처리량 비교.
+ * 이름이 *Test가 아니므로 mvn test에서는 실행되지 않는다.
+ * 두 번째 표는 컨슈머 로거처럼 여러 KLogger가 LogWriterService thread 1개를 공유하면서 동시에 에러 로그를 남기는 경우이다.
+ *
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes com.yna.ecqmanager.log.KLoggerFlushBenchmark [threads] [records per thread] [shared loggers] [rounds]
+ */
+public class KLoggerFlushBenchmark
+{
+    public static void main( String[] args ) throws Exception
+    {
+        int threads = args.length > 0 ? Integer.parseInt( args[0] ) : 4;
+        int records = args.length > 1 ? Integer.parseInt( args[1] ) : 250000;
+        int loggers = args.length > 2 ? Integer.parseInt( args[2] ) : 50;
+        int rounds = args.length > 3 ? Integer.parseInt( args[3] ) : 20;
+
+        // 처음 실행은 JIT 준비용
+        run( FlushPolicy.BATCH, threads, records / 10 );
+
+        for( FlushPolicy policy : FlushPolicy.values() )
+        {
+            long nanos = run( policy, threads, records );
+            long total = (long) threads * records;
+            System.out.printf( "%-8s %,12d records %,8d ms %,12d records/s%n", policy, total, nanos / 1000000,
+                total * 1000000000L / Math.max( nanos, 1 ) );
+        }
+
+        System.out.printf( "shared writer, error log, %d loggers%n", loggers );
+        for( FlushPolicy policy : FlushPolicy.values() )
+        {
+            long nanos = runShared( policy, loggers, rounds );
+            System.out.printf( "%-8s %,12d rounds %,9d ms %,12d us/round%n", policy, rounds, nanos / 1000000,
+                nanos / 1000 / Math.max( rounds, 1 ) );
+        }
+    }
+
+    /**
+     * threads개의 thread가 records개씩 로그를 남기고, 로거가 모두 기록하고 종료할 때까지의 시간을 리턴한다.
+     */
+    private static long run( FlushPolicy policy, int threads, final int records ) throws Exception
+    {
+        Path dir = Files.createTempDirectory( "klog-bench" );
+        final KLogger logger = new KLogger( "bench", dir.toString(), KLogger.INFO );
+        logger.setFlushPolicy( policy, KLogger.DEFAULT_FLUSH_INTERVAL );
+
+        Thread writer = new Thread( logger );
+        Thread[] producers = new Thread[threads];
+        for( int i = 0; i < threads; i++ )
+        {
+            final int id = i;
+            producers[i] = new Thread( () -> {
+                for( int n = 0; n < records; n++ )
+                    logger.log( new LazyLogData( KLogger.INFO, "bench", id, n, "consumer-group", "topic", 1234567L ) );
+            } );
+        }
+
+        long start = System.nanoTime();
+        writer.start();
+        for( Thread producer : producers )
+            producer.start();
+        for( Thread producer : producers )
+            producer.join();
+        logger.terminate();
+        writer.join();
+        long nanos = System.nanoTime() - start;
+
+        for( File file : dir.toFile().listFiles() )
+            file.delete();
+        dir.toFile().delete();
+        return nanos;
+    }
+
+    /**
+     * loggers개의 KLogger를 startShared()로 등록하고, 장애 상황처럼 poll 주기마다 로거마다 ERROR 로그를 1개씩 남긴다.<br>
+     * 에러 로그에만 policy를 적용한다. 한 주기의 로그를 공유 thread가 모두 꺼낼 때까지 기다리는 것을 rounds번 반복한 시간을 리턴한다.
+     */
+    private static long runShared( FlushPolicy policy, int loggers, int rounds ) throws Exception
+    {
+        Path dir = Files.createTempDirectory( "klog-bench" );
+        KLogger[] shared = new KLogger[loggers];
+        for( int i = 0; i < loggers; i++ )
+        {
+            shared[i] = new KLogger( "bench" + i, dir.toString(), KLogger.INFO );
+            shared[i].setErrorLog( true, "bench" + i + ".error.log" );
+            shared[i].setErrorFlushPolicy( policy, KLogger.DEFAULT_FLUSH_INTERVAL );
+            shared[i].startShared();
+        }
+
+        long start = System.nanoTime();
+        for( int n = 0; n < rounds; n++ )
+        {
+            for( KLogger logger : shared )
+                logger.log( new LazyLogData( KLogger.ERROR, "callAPI fail. consumerName :", n, "consumer-group" ) );
+            for( KLogger logger : shared )
+            {
+                while( logger.hasPending() )
+                    Thread.yield();
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        for( KLogger logger : shared )
+            logger.terminate();
+        for( KLogger logger : shared )
+        {
+            while( !logger.isClosed() )
+                Thread.sleep( 1 );
+        }
+        for( File file : dir.toFile().listFiles() )
+            file.delete();
+        dir.toFile().delete();
+        return nanos;
+    }
+}
@@ -0,0 +1,395 @@
+package com.yna.ecqmanager.log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for KLogger.
+ */
+public class KLoggerTest
+    extends TestCase
+{
+    private Path dir;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public KLoggerTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( KLoggerTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        this.dir = Files.createTempDirectory( "klog" );
+    }
+
+    protected void tearDown() throws Exception
+    {
+        for( File file : this.dir.toFile().listFiles() )
+            file.delete();
+        this.dir.toFile().delete();
+    }
+
+    private static String readLog( Path dir, String prefix ) throws Exception
+    {
+        for( File file : dir.toFile().listFiles() )
+        {
+            if( file.getName().startsWith( prefix ) )
+                return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+        }
+        return null;
+    }
+
+    public void testLogAndSink() throws Exception
+    {
+        final List<String> lines = new CopyOnWriteArrayList<String>();
+        KLogger logger = new KLogger( "test", this.dir.toString(), KLogger.INFO );
+        logger.setErrorLog( true, "test.error.log" );
+        logger.addSink( line -> lines.add( line ) );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        for( int i = 0; i < 3000; i++ )
+            logger.log( new LogData( KLogger.INFO, "line", i ) );
+        logger.log( new LogData( KLogger.DEBUG, "debug" ) );
+        logger.log( new LogData( KLogger.ERROR, "error" ) );
+        logger.terminate();
+        thread.join( 5000 );
+
+        assertFalse( thread.isAlive() );
+        assertEquals( 3001, lines.size() );
+
+        String log = readLog( this.dir, "test.2" );
+        assertEquals( 3001, log.split( "\n" ).length );
+        assertTrue( log.contains( "[INFO] line 2999\n" ) );
+        assertFalse( log.contains( "debug" ) );
+        assertTrue( readLog( this.dir, "test.error" ).endsWith( "[ERROR] error\n" ) );
+    }
+
+    public void testLazyLogData()
+    {
+        LogData logData = new LogData( KLogger.INFO, "msg", "a", null, 1 );
+        LazyLogData lazyLogData = new LazyLogData( KLogger.INFO, "msg", "a", null, 1 );
+
+        assertEquals( logData.getLogMsg(), lazyLogData.getLogMsg() );
+        assertEquals( "msg a 1", lazyLogData.appendLogMsg( new StringBuilder() ).toString() );
+        assertEquals( new SimpleDateFormat( "yyyyMMdd HH:mm:ss.SSS" ).format( new Date( lazyLogData.getLogMillis() ) ),
+            lazyLogData.getLogTime() );
+        assertTrue( LogTimeFormatter.format( 5L ).endsWith( ".005" ) );
+    }
+
+    public void testLevelFilter()
+    {
+        KLogger logger = new KLogger( "test", this.dir.toString(), "WARN" );
+        final int[] called = new int[1];
+
+        assertFalse( logger.isEnabled( KLogger.INFO ) );
+        assertTrue( logger.isEnabled( KLogger.ERROR ) );
+
+        logger.log( KLogger.INFO, () -> "info" + ( ++called[0] ) );
+        assertEquals( 0, called[0] );
+        logger.log( KLogger.WARN, () -> "warn" + ( ++called[0] ) );
+        assertEquals( 1, called[0] );
+    }
+
+    public void testShared() throws Exception
+    {
+        KLogger[] loggers = new KLogger[20];
+        for( int i = 0; i < loggers.length; i++ )
+        {
+            loggers[i] = new KLogger( "shared" + i, this.dir.toString(), KLogger.INFO );
+            loggers[i].startShared();
+        }
+
+        for( int n = 0; n < 500; n++ )
+        {
+            for( KLogger logger : loggers )
+                logger.log( new LazyLogData( KLogger.INFO, "line", n ) );
+        }
+        for( KLogger logger : loggers )
+            logger.terminate();
+
+        // 모든 로거가 종료되면 기록 thread도 종료된다.
+        for( int i = 0; i < 500 && LogWriterService.getInstance().getLoggerCount() > 0; i++ )
+            Thread.sleep( 10 );
+        assertEquals( 0, LogWriterService.getInstance().getLoggerCount() );
+
+        for( int i = 0; i < loggers.length; i++ )
+        {
+            String log = readLog( this.dir, "shared" + i + ".2" );
+            assertEquals( 500, log.split( "\n" ).length );
+            assertTrue( log.endsWith( "[INFO] line 499\n" ) );
+        }
+    }
+
+    public void testRolling() throws Exception
+    {
+        // 보관 기간이 지난 이전 파일
+        File old = new File( this.dir.toFile(), "roll.20000101.log" );
+        Files.write( old.toPath(), "old\n".getBytes( StandardCharsets.UTF_8 ) );
+        old.setLastModified( System.currentTimeMillis() - 10 * 24 * 60 * 60 * 1000L );
+
+        KLogger logger = new KLogger( "roll", this.dir.toString(), KLogger.INFO );
+        logger.setRollingPolicy( 10000, 1, 0, true );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        for( int i = 0; i < 3000; i++ )
+            logger.log( new LogData( KLogger.INFO, "line", i ) );
+        logger.terminate();
+        thread.join( 5000 );
+
+        // 압축은 LogArchiver thread에서 한다.
+        int lines = 0;
+        int gzipCount = 0;
+        for( int n = 0; n < 500; n++ )
+        {
+            lines = 0;
+            gzipCount = 0;
+            boolean isDone = !old.exists();
+            for( File file : this.dir.toFile().listFiles() )
+            {
+                String name = file.getName();
+                if( name.endsWith( ".tmp" ) || name.matches( "roll\\.\\d{8}\\.\\d+\\.log" ) )
+                    isDone = false;
+                else if( name.endsWith( ".gz" ) )
+                {
+                    assertTrue( file.length() < 10000 );
+                    gzipCount++;
+                    try( BufferedReader reader = new BufferedReader( new InputStreamReader(
+                        new GZIPInputStream( Files.newInputStream( file.toPath() ) ), StandardCharsets.UTF_8 ) ) )
+                    {
+                        while( reader.readLine() != null )
+                            lines++;
+                    }
+                }
+                else
+                {
+                    assertTrue( file.length() <= 10000 );
+                    lines += new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ).split( "\n" ).length;
+                }
+            }
+            if( isDone )
+                break;
+            Thread.sleep( 10 );
+        }
+
+        assertFalse( old.exists() );
+        assertTrue( gzipCount > 5 );
+        assertEquals( 3000, lines );
+    }
+
+    public void testErrorLogRolling() throws Exception
+    {
+        // 이전 실행에서 남은 전날 에러 로그와 보관 기간이 지난 에러 로그
+        long oldMillis = System.currentTimeMillis() - 2 * 24 * 60 * 60 * 1000L;
+        File active = new File( this.dir.toFile(), "err.error.log" );
+        Files.write( active.toPath(), "yesterday\n".getBytes( StandardCharsets.UTF_8 ) );
+        active.setLastModified( oldMillis );
+        File old = new File( this.dir.toFile(), "err.error.20000101.1.log" );
+        Files.write( old.toPath(), "old\n".getBytes( StandardCharsets.UTF_8 ) );
+        old.setLastModified( oldMillis );
+
+        KLogger logger = new KLogger( "err", this.dir.toString(), KLogger.INFO );
+        logger.setErrorLog( true, "err.error.log" );
+        logger.setRollingPolicy( 10000, 1, 0, true );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        for( int i = 0; i < 3000; i++ )
+            logger.log( new LogData( KLogger.ERROR, "line", i ) );
+        logger.terminate();
+        thread.join( 5000 );
+
+        int lines = 0;
+        int gzipCount = 0;
+        for( int n = 0; n < 500; n++ )
+        {
+            lines = 0;
+            gzipCount = 0;
+            boolean isDone = !old.exists();
+            for( File file : this.dir.toFile().listFiles() )
+            {
+                String name = file.getName();
+                if( !name.startsWith( "err.error." ) )
+                    continue;
+                if( name.endsWith( ".tmp" ) || name.matches( "err\\.error\\.\\d{8}\\.\\d+\\.log" ) )
+                    isDone = false;
+                else if( name.endsWith( ".gz" ) )
+                {
+                    assertTrue( file.length() < 10000 );
+                    gzipCount++;
+                    try( BufferedReader reader = new BufferedReader( new InputStreamReader(
+                        new GZIPInputStream( Files.newInputStream( file.toPath() ) ), StandardCharsets.UTF_8 ) ) )
+                    {
+                        String line;
+                        while( ( line = reader.readLine() ) != null )
+                            lines += line.contains( "[ERROR] line " ) ? 1 : 0;
+                    }
+                }
+                else
+                {
+                    assertEquals( "err.error.log", name );
+                    assertTrue( file.length() <= 10000 );
+                    lines += new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ).split( "\n" ).length;
+                }
+            }
+            if( isDone )
+                break;
+            Thread.sleep( 10 );
+        }
+
+        // 전날 파일은 이름을 바꾼 뒤 보관 기간이 지나 지워진다.
+        assertFalse( old.exists() );
+        assertFalse( new File( this.dir.toFile(), "err.error." + new SimpleDateFormat( "yyyyMMdd" ).format( new Date( oldMillis ) ) + ".1.log.gz" ).exists() );
+        assertTrue( gzipCount > 5 );
+        assertEquals( 3000, lines );
+    }
+
+    public void testFlushPolicy() throws Exception
+    {
+        KLogger logger = new KLogger( "flush", this.dir.toString(), KLogger.INFO );
+        logger.setFlushPolicy( FlushPolicy.INTERVAL, 2000 );
+        logger.setErrorLog( true, "flush.error.log" );
+        logger.setErrorFlushPolicy( FlushPolicy.FSYNC, KLogger.DEFAULT_FLUSH_INTERVAL );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        logger.log( new LogData( KLogger.ERROR, "error" ) );
+        Thread.sleep( 100 );
+
+        // 에러 로그는 batch마다, 일반 로그는 2초 뒤에 flush된다.
+        assertEquals( "", readLog( this.dir, "flush.2" ) );
+        assertTrue( readLog( this.dir, "flush.error" ).endsWith( "[ERROR] error\n" ) );
+
+        for( int i = 0; i < 500 && readLog( this.dir, "flush.2" ).isEmpty(); i++ )
+            Thread.sleep( 10 );
+        assertTrue( readLog( this.dir, "flush.2" ).endsWith( "[ERROR] error\n" ) );
+
+        logger.terminate();
+        thread.join( 5000 );
+        assertFalse( thread.isAlive() );
+    }
+
+    public void testOverflow() throws Exception
+    {
+        // DROP_BELOW : 가득 차면 WARN 미만은 버린다.
+        KLogger logger = new KLogger( "below", this.dir.toString(), KLogger.INFO );
+        logger.setQueueCapacity( 16 );
+        logger.setOverflowPolicy( OverflowPolicy.DROP_BELOW );
+        for( int i = 0; i < 21; i++ )
+            logger.log( new LogData( KLogger.INFO, "line", i ) );
+        assertEquals( 16, logger.getQueueSize() );
+        assertEquals( 5, logger.getOverflowCount() );
+        assertEquals( 5, logger.getDroppedCount() );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        logger.log( new LogData( KLogger.ERROR, "error" ) );
+        logger.terminate();
+        thread.join( 5000 );
+
+        String log = readLog( this.dir, "below.2" );
+        assertEquals( 18, log.split( "\n" ).length );
+        assertTrue( log.contains( "[WARN] KLogger queue overflow. policy : DROP_BELOW dropped : 5" ) );
+        assertTrue( log.endsWith( "[ERROR] error\n" ) );
+
+        // DROP_OLDEST : log()를 호출한 thread가 오래된 로그를 버리고, 새 로그와 ERROR는 남긴다.
+        final KLogger oldest = new KLogger( "oldest", this.dir.toString(), KLogger.INFO );
+        oldest.setQueueCapacity( 16 );
+        oldest.setOverflowPolicy( OverflowPolicy.DROP_OLDEST );
+        Thread producer = new Thread( () -> {
+            for( int i = 0; i < 64; i++ )
+                oldest.log( new LogData( i == 3 ? KLogger.ERROR : KLogger.INFO, "line", i ) );
+        } );
+        producer.start();
+        Thread.sleep( 100 );
+
+        thread = new Thread( oldest );
+        thread.start();
+        producer.join( 5000 );
+        oldest.terminate();
+        thread.join( 5000 );
+
+        log = readLog( this.dir, "oldest.2" );
+        assertTrue( oldest.getDroppedCount() > 0 );
+        assertTrue( log.contains( "[ERROR] line 3\n" ) );
+        assertTrue( log.contains( "[INFO] line 63\n" ) );
+        assertEquals( 64 - oldest.getDroppedCount(), log.split( "\\] line " ).length - 1 );
+    }
+
+    public void testDropOldestStalled() throws Exception
+    {
+        // 로거 thread의 기록이 멈춰 있어도 DROP_OLDEST의 log()는 기다리지 않는다.
+        final CountDownLatch stalled = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final KLogger logger = new KLogger( "stall", this.dir.toString(), KLogger.INFO );
+        logger.setQueueCapacity( 16 );
+        logger.setOverflowPolicy( OverflowPolicy.DROP_OLDEST );
+        logger.addSink( line -> {
+            stalled.countDown();
+            try
+            {
+                release.await();
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        } );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        logger.log( new LogData( KLogger.INFO, "first" ) );
+        assertTrue( stalled.await( 5, TimeUnit.SECONDS ) );
+
+        Thread producer = new Thread( () -> {
+            for( int i = 0; i < 200; i++ )
+                logger.log( new LogData( i == 10 || i == 100 ? KLogger.ERROR : KLogger.INFO, "line", i ) );
+        } );
+        producer.start();
+        producer.join( 2000 );
+        boolean isBlocked = producer.isAlive();
+        release.countDown();
+        producer.join( 5000 );
+        assertFalse( "log() waited for the stalled writer", isBlocked );
+
+        logger.terminate();
+        thread.join( 5000 );
+
+        String log = readLog( this.dir, "stall.2" );
+        assertTrue( logger.getDroppedCount() > 0 );
+        assertTrue( log.contains( "[INFO] first\n" ) );
+        assertTrue( log.contains( "[ERROR] line 10\n" ) );
+        assertTrue( log.contains( "[ERROR] line 100\n" ) );
+        assertTrue( log.contains( "[INFO] line 199\n" ) );
+        assertTrue( log.indexOf( "[ERROR] line 10\n" ) < log.indexOf( "[ERROR] line 100\n" ) );
+        assertEquals( 200 - logger.getDroppedCount(), log.split( "\\] line " ).length - 1 );
+    }
+}
@@ -0,0 +1,125 @@
+package com.yna.ecqmanager.log;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for MappedLogWriter.
+ */
+public class MappedLogWriterTest
+    extends TestCase
+{
+    private Path dir;
+
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public MappedLogWriterTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( MappedLogWriterTest.class );
+    }
+
+    protected void setUp() throws Exception
+    {
+        this.dir = Files.createTempDirectory( "mlog" );
+    }
+
+    protected void tearDown() throws Exception
+    {
+        for( File file : this.dir.toFile().listFiles() )
+            file.delete();
+        this.dir.toFile().delete();
+    }
+
+    public void testWriteAndRemap() throws Exception
+    {
+        this.writeAndRemap( false );
+    }
+
+    /**
+     * isSync이면 구간을 넘어갈 때마다 이전 구간을 force한다. 기록한 내용은 같다.
+     */
+    public void testWriteAndRemapSync() throws Exception
+    {
+        this.writeAndRemap( true );
+    }
+
+    private void writeAndRemap( boolean isSync ) throws Exception
+    {
+        Path file = this.dir.resolve( "test.log" );
+        StringBuilder expected = new StringBuilder();
+
+        MappedLogWriter writer = new MappedLogWriter( file, 64, isSync );
+        for( int i = 0; i < 100; i++ )
+        {
+            String line = "line " + i + " 한글 😀\n";
+            expected.append( line );
+            writer.write( line );
+        }
+        assertTrue( Files.size( file ) > writer.getSize() );
+        writer.close();
+
+        byte[] bytes = Files.readAllBytes( file );
+        assertEquals( expected.toString(), new String( bytes, StandardCharsets.UTF_8 ) );
+        assertEquals( expected.toString().getBytes( StandardCharsets.UTF_8 ).length, bytes.length );
+    }
+
+    public void testRecover() throws Exception
+    {
+        // 비정상 종료로 잘리지 않은 파일 (마지막 줄도 끝나지 않음)
+        Path file = this.dir.resolve( "crash.log" );
+        byte[] crashed = new byte[200];
+        byte[] written = "a\nb".getBytes( StandardCharsets.UTF_8 );
+        System.arraycopy( written, 0, crashed, 0, written.length );
+        Files.write( file, crashed );
+
+        MappedLogWriter writer = new MappedLogWriter( file, 64 );
+        assertEquals( 4, writer.getSize() );
+        writer.write( "c\n" );
+        writer.close();
+
+        assertEquals( "a\nb\nc\n", new String( Files.readAllBytes( file ), StandardCharsets.UTF_8 ) );
+    }
+
+    public void testKLogger() throws Exception
+    {
+        KLogger logger = new KLogger( "mmap", this.dir.toString(), KLogger.INFO );
+        logger.setMappedOutput( 4096 );
+        logger.setRollingPolicy( 20000, 0, 0, false );
+
+        Thread thread = new Thread( logger );
+        thread.start();
+        for( int i = 0; i < 3000; i++ )
+            logger.log( new LogData( KLogger.INFO, "line", i ) );
+        logger.terminate();
+        thread.join( 5000 );
+
+        int lines = 0;
+        File[] files = this.dir.toFile().listFiles();
+        for( File file : files )
+        {
+            String log = new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+            assertTrue( file.length() <= 20000 );
+            assertEquals( -1, log.indexOf( '\0' ) );
+            lines += log.split( "\n" ).length;
+        }
+        assertTrue( files.length > 1 );
+        assertEquals( 3000, lines );
+    }
+}
@@ -0,0 +1,92 @@
+package com.yna.ecqmanager.log;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit test for MpscRingBuffer.
+ */
+public class MpscRingBufferTest
+    extends TestCase
+{
+    /**
+     * Create the test case
+     *
+     * @param testName name of the test case
+     */
+    public MpscRingBufferTest( String testName )
+    {
+        super( testName );
+    }
+
+    /**
+     * @return the suite of tests being tested
+     */
+    public static Test suite()
+    {
+        return new TestSuite( MpscRingBufferTest.class );
+    }
+
+    public void testOfferAndPoll()
+    {
+        MpscRingBuffer<Integer> queue = new MpscRingBuffer<Integer>( 3 );
+
+        assertEquals( 4, queue.capacity() );
+        assertTrue( queue.isEmpty() );
+        assertNull( queue.poll() );
+
+        for( int i = 0; i < 4; i++ )
+            assertTrue( queue.offer( i ) );
+        assertFalse( queue.offer( 4 ) );
+        assertEquals( 4, queue.size() );
+
+        assertEquals( Integer.valueOf( 0 ), queue.poll() );
+        assertTrue( queue.offer( 4 ) );
+
+        for( int i = 1; i <= 4; i++ )
+            assertEquals( Integer.valueOf( i ), queue.poll() );
+        assertTrue( queue.isEmpty() );
+    }
+
+    public void testMultiProducer() throws Exception
+    {
+        final MpscRingBuffer<Long> queue = new MpscRingBuffer<Long>( 64 );
+        final int producers = 4;
+        final int count = 20000;
+        Thread[] threads = new Thread[producers];
+
+        for( int p = 0; p < producers; p++ )
+        {
+            final long base = (long) p << 32;
+            threads[p] = new Thread( () -> {
+                for( int i = 0; i < count; i++ )
+                {
+                    while( !queue.offer( base + i ) )
+                        Thread.yield();
+                }
+            } );
+            threads[p].start();
+        }
+
+        // producer별 순서가 지켜지고, 빠지거나 중복된 원소가 없어야 한다.
+        long[] next = new long[producers];
+        int received = 0;
+        while( received < producers * count )
+        {
+            Long value = queue.poll();
+            if( value == null )
+            {
+                Thread.yield();
+                continue;
+            }
+            int p = (int) ( value >>> 32 );
+            assertEquals( next[p]++, value & 0xFFFFFFFFL );
+            received++;
+        }
+
+        for( Thread thread : threads )
+            thread.join();
+        assertTrue( queue.isEmpty() );
+    }
+}